@@ -19,10 +19,13 @@ package org.eclipse.tractusx.agents.edc;
 import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.system.configuration.Config;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * typed wrapper around the
@@ -35,6 +38,17 @@ public class AgentConfig {
 
     public static final String ASSET_FILE_PROPERTY = "cx.agent.asset.file";
 
+    public static final String RDF_STORE_PROPERTY = "cx.agent.rdf.store";
+    public static final String DEFAULT_RDF_STORE = "memory";
+
+    public static final String RDF_STORE_DIRECTORY_PROPERTY = "cx.agent.rdf.store.directory";
+    public static final String DEFAULT_RDF_STORE_DIRECTORY = "rdfstore";
+
+    public static final String RDF_SNAPSHOT_PROPERTY = "cx.agent.rdf.snapshot";
+
+    public static final String RDF_SNAPSHOT_INTERVAL_PROPERTY = "cx.agent.rdf.snapshot.interval";
+    public static final long DEFAULT_RDF_SNAPSHOT_INTERVAL = 600000;
+
     public static final String ACCESS_POINT_PROPERTY = "cx.agent.accesspoint.name";
     public static final String DEFAULT_ACCESS_POINT = "api";
 
@@ -55,11 +69,53 @@ public class AgentConfig {
     public static final String NEGOTIATION_POLLINTERVAL_PROPERTY = "cx.agent.negotiation.poll";
     public static final long DEFAULT_NEGOTIATION_POLLINTERVAL = 1000;
 
+    public static final String NEGOTIATION_FALLBACK_POLLINTERVAL_PROPERTY = "cx.agent.negotiation.poll.fallback";
+
+    public static final String AGREEMENT_VALIDITY_PROPERTY = "cx.agent.agreement.validity";
+    public static final long DEFAULT_AGREEMENT_VALIDITY = 600000;
+
+    public static final String OFFER_RANKING_PROPERTY = "cx.agent.offer.ranking";
+    public static final String DEFAULT_OFFER_RANKING = "agreed,complexity,preference";
+
+    public static final String OFFER_PREFERENCE_PROPERTY = "cx.agent.offer.preference";
+
+    public static final String CATALOG_CACHE_TTL_PROPERTY = "cx.agent.catalog.cache.ttl";
+    public static final long DEFAULT_CATALOG_CACHE_TTL = 120000;
+
+    public static final String EDR_REFRESH_INTERVAL_PROPERTY = "cx.agent.edr.refresh.interval";
+    public static final long DEFAULT_EDR_REFRESH_INTERVAL = 10000;
+
+    public static final String EDR_REFRESH_AHEAD_PROPERTY = "cx.agent.edr.refresh.ahead";
+    public static final long DEFAULT_EDR_REFRESH_AHEAD = 90000;
+
+    public static final String EDR_REFRESH_IDLE_PROPERTY = "cx.agent.edr.refresh.idle";
+    public static final long DEFAULT_EDR_REFRESH_IDLE = 300000;
+
+    public static final String EDR_REFRESH_PARALLELISM_PROPERTY = "cx.agent.edr.refresh.parallelism";
+    public static final int DEFAULT_EDR_REFRESH_PARALLELISM = 2;
+
     public static final String DATASPACE_SYNCINTERVAL_PROPERTY = "cx.agent.dataspace.synchronization";
     public static final long DEFAULT_DATASPACE_SYNCINTERVAL = -1;
 
     public static final String DATASPACE_SYNCCONNECTORS_PROPERTY = "cx.agent.dataspace.remotes";
 
+    public static final String DATASPACE_SYNCPARALLELISM_PROPERTY = "cx.agent.dataspace.synchronization.parallelism";
+    public static final int DEFAULT_DATASPACE_SYNCPARALLELISM = 8;
+
+    public static final String DATASPACE_SYNCTIMEOUT_PROPERTY = "cx.agent.dataspace.synchronization.timeout";
+    public static final long DEFAULT_DATASPACE_SYNCTIMEOUT = 30000;
+
+    public static final String DATASPACE_SYNCINTERVALS_PROPERTY = "cx.agent.dataspace.synchronization.intervals";
+
+    public static final String DATASPACE_SYNCJITTER_PROPERTY = "cx.agent.dataspace.synchronization.jitter";
+    public static final long DEFAULT_DATASPACE_SYNCJITTER = 1000;
+
+    public static final String DATASPACE_SYNCBACKOFF_PROPERTY = "cx.agent.dataspace.synchronization.backoff.max";
+    public static final long DEFAULT_DATASPACE_SYNCBACKOFF = 3600000;
+
+    public static final String DATASPACE_SYNCPRIORITY_PROPERTY = "cx.agent.dataspace.synchronization.priority";
+    public static final int DEFAULT_DATASPACE_SYNCPRIORITY = 2;
+
     public static final String VALIDATION_ENDPOINTS = "edc.dataplane.token.validation.endpoints";
 
     public static final String FEDERATION_SERVICE_BATCH_SIZE = "cx.agent.federation.batch.max";
@@ -78,6 +134,26 @@ public class AgentConfig {
 
     public static final String DEFAULT_SKILL_CONTRACT_PROPERTY = "cx.agent.skill.contract.default";
 
+    public static final String SKILL_CACHE_TTL_PROPERTY = "cx.agent.skill.cache.ttl";
+    public static final long DEFAULT_SKILL_CACHE_TTL = 60000;
+
+    public static final String SKILL_STORE_PROPERTY = "cx.agent.skill.store";
+    public static final String DEFAULT_SKILL_STORE = "edc";
+
+    public static final String SKILL_STORE_FILE_PROPERTY = "cx.agent.skill.store.file";
+    public static final String DEFAULT_SKILL_STORE_FILE = "skills.journal";
+
+    public static final String AGREEMENT_STORE_PROPERTY = "cx.agent.agreement.store";
+    public static final String DEFAULT_AGREEMENT_STORE = "memory";
+
+    public static final String AGREEMENT_STORE_FILE_PROPERTY = "cx.agent.agreement.store.file";
+    public static final String DEFAULT_AGREEMENT_STORE_FILE = "agreements.journal";
+
+    public static final String AGREEMENT_STORE_KEY_PROPERTY = "cx.agent.agreement.store.key";
+
+    public static final String AGREEMENT_STORE_DIRECTORY_PROPERTY = "cx.agent.agreement.store.directory";
+    public static final String DEFAULT_AGREEMENT_STORE_DIRECTORY = "agreements";
+
     public static final String SERVICE_ALLOW_PROPERTY = "cx.agent.service.allow";
     public static final String DEFAULT_SERVICE_ALLOW_PATTERN = "(http|edc)s?://.*";
 
@@ -144,6 +220,42 @@ public class AgentConfig {
         return config.getString(BUSINESS_PARTNER_NUMBER, "anonymous");
     }
 
+    /**
+     * access
+     *
+     * @return type of the rdf store (memory or tdb2)
+     */
+    public String getRdfStoreType() {
+        return config.getString(RDF_STORE_PROPERTY, DEFAULT_RDF_STORE);
+    }
+
+    /**
+     * access
+     *
+     * @return directory of the persistent rdf store
+     */
+    public String getRdfStoreDirectory() {
+        return config.getString(RDF_STORE_DIRECTORY_PROPERTY, DEFAULT_RDF_STORE_DIRECTORY);
+    }
+
+    /**
+     * access
+     *
+     * @return file of the snapshot of the in-memory rdf store, null if no snapshots are taken
+     */
+    public String getRdfSnapshotFile() {
+        return config.getString(RDF_SNAPSHOT_PROPERTY, null);
+    }
+
+    /**
+     * access
+     *
+     * @return number of milliseconds between snapshots of the in-memory rdf store
+     */
+    public long getRdfSnapshotInterval() {
+        return config.getLong(RDF_SNAPSHOT_INTERVAL_PROPERTY, DEFAULT_RDF_SNAPSHOT_INTERVAL);
+    }
+
     /**
      * access
      *
@@ -234,6 +346,95 @@ public class AgentConfig {
         return config.getLong(NEGOTIATION_POLLINTERVAL_PROPERTY, DEFAULT_NEGOTIATION_POLLINTERVAL);
     }
 
+    /**
+     * access
+     *
+     * @return the interval of status checks when no callback from the control plane has arrived
+     */
+    public long getNegotiationFallbackPollInterval() {
+        return config.getLong(NEGOTIATION_FALLBACK_POLLINTERVAL_PROPERTY, 5 * getNegotiationPollInterval());
+    }
+
+    /**
+     * access
+     *
+     * @return the number of milliseconds after signing in which an agreement is reused for new transfers
+     */
+    public long getAgreementValidity() {
+        return config.getLong(AGREEMENT_VALIDITY_PROPERTY, DEFAULT_AGREEMENT_VALIDITY);
+    }
+
+    /**
+     * access
+     *
+     * @return the names of the strategies to rank contract offers, earlier strategies take precedence
+     */
+    public List<String> getOfferRankingStrategies() {
+        return Arrays.stream(config.getString(OFFER_RANKING_PROPERTY, DEFAULT_OFFER_RANKING).split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * access
+     *
+     * @return patterns on contract offer policies, policies matching earlier patterns are preferred
+     */
+    public List<Pattern> getOfferPreferences() {
+        String preferences = config.getString(OFFER_PREFERENCE_PROPERTY, "");
+        return Arrays.stream(preferences.split(","))
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .map(Pattern::compile)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * access
+     *
+     * @return the number of milliseconds for which offers of a remote catalog are reused
+     */
+    public long getCatalogCacheTtl() {
+        return config.getLong(CATALOG_CACHE_TTL_PROPERTY, DEFAULT_CATALOG_CACHE_TTL);
+    }
+
+    /**
+     * access
+     *
+     * @return the interval in milliseconds between checks for expiring endpoint references, -1 if no refresh
+     */
+    public long getEdrRefreshInterval() {
+        return config.getLong(EDR_REFRESH_INTERVAL_PROPERTY, DEFAULT_EDR_REFRESH_INTERVAL);
+    }
+
+    /**
+     * access
+     *
+     * @return the number of milliseconds before expiry at which an endpoint reference is refreshed
+     */
+    public long getEdrRefreshAhead() {
+        return config.getLong(EDR_REFRESH_AHEAD_PROPERTY, DEFAULT_EDR_REFRESH_AHEAD);
+    }
+
+    /**
+     * access
+     *
+     * @return the number of milliseconds after its last use after which an endpoint reference is no more refreshed
+     */
+    public long getEdrRefreshIdle() {
+        return config.getLong(EDR_REFRESH_IDLE_PROPERTY, DEFAULT_EDR_REFRESH_IDLE);
+    }
+
+    /**
+     * access
+     *
+     * @return the number of threads which refresh endpoint references in parallel
+     */
+    public int getEdrRefreshParallelism() {
+        return config.getInteger(EDR_REFRESH_PARALLELISM_PROPERTY, DEFAULT_EDR_REFRESH_PARALLELISM);
+    }
+
     /**
      * access
      *
@@ -243,6 +444,87 @@ public class AgentConfig {
         return config.getLong(DATASPACE_SYNCINTERVAL_PROPERTY, DEFAULT_DATASPACE_SYNCINTERVAL);
     }
 
+    /**
+     * access
+     *
+     * @return the maximal number of catalogs which are fetched concurrently during synchronization
+     */
+    public int getDataspaceSynchronizationParallelism() {
+        return config.getInteger(DATASPACE_SYNCPARALLELISM_PROPERTY, DEFAULT_DATASPACE_SYNCPARALLELISM);
+    }
+
+    /**
+     * access
+     *
+     * @return the maximal number of milliseconds to fetch the catalog of a single connector during synchronization
+     */
+    public long getDataspaceSynchronizationTimeout() {
+        return config.getLong(DATASPACE_SYNCTIMEOUT_PROPERTY, DEFAULT_DATASPACE_SYNCTIMEOUT);
+    }
+
+    /**
+     * access
+     *
+     * @param connectorUrl protocol url of the remote connector
+     * @return the synchronization interval for the given connector, -1 if no sync
+     */
+    public long getDataspaceSynchronizationInterval(String connectorUrl) {
+        Map<String, Long> intervals = getDataspaceSynchronizationIntervals();
+        return intervals.getOrDefault(connectorUrl, getDataspaceSynchronizationInterval());
+    }
+
+    protected volatile Map<String, Long> connectorIntervals;
+
+    /**
+     * access
+     *
+     * @return map of connector urls to the synchronization intervals deviating from the default interval
+     */
+    public Map<String, Long> getDataspaceSynchronizationIntervals() {
+        if (connectorIntervals == null) {
+            synchronized (config) {
+                if (connectorIntervals == null) {
+                    Map<String, Long> intervals = new HashMap<>();
+                    for (String connector : config.getString(DATASPACE_SYNCINTERVALS_PROPERTY, "").split(",")) {
+                        int separator = connector.lastIndexOf("=");
+                        if (separator > 0) {
+                            intervals.put(connector.substring(0, separator).trim(), Long.parseLong(connector.substring(separator + 1).trim()));
+                        }
+                    }
+                    connectorIntervals = intervals;
+                }
+            }
+        }
+        return connectorIntervals;
+    }
+
+    /**
+     * access
+     *
+     * @return the maximal number of milliseconds randomly added to each scheduled synchronization of a connector
+     */
+    public long getDataspaceSynchronizationJitter() {
+        return config.getLong(DATASPACE_SYNCJITTER_PROPERTY, DEFAULT_DATASPACE_SYNCJITTER);
+    }
+
+    /**
+     * access
+     *
+     * @return the maximal number of milliseconds to wait before retrying a failing connector
+     */
+    public long getDataspaceSynchronizationBackoff() {
+        return config.getLong(DATASPACE_SYNCBACKOFF_PROPERTY, DEFAULT_DATASPACE_SYNCBACKOFF);
+    }
+
+    /**
+     * access
+     *
+     * @return the divisor of the synchronization interval for connectors which have been queried recently
+     */
+    public int getDataspaceSynchronizationPriority() {
+        return config.getInteger(DATASPACE_SYNCPRIORITY_PROPERTY, DEFAULT_DATASPACE_SYNCPRIORITY);
+    }
+
     protected volatile Map<String, String> knownConnectors;
 
     /**
@@ -346,6 +628,69 @@ public class AgentConfig {
         return config.getString(DEFAULT_SKILL_CONTRACT_PROPERTY, null);
     }
 
+    /**
+     * access
+     *
+     * @return number of milliseconds that a skill resolved from the control plane is cached, non-positive if no caching
+     */
+    public long getSkillCacheTtl() {
+        return config.getLong(SKILL_CACHE_TTL_PROPERTY, DEFAULT_SKILL_CACHE_TTL);
+    }
+
+    /**
+     * access
+     *
+     * @return type of skill store to use (edc, file or memory)
+     */
+    public String getSkillStoreType() {
+        return config.getString(SKILL_STORE_PROPERTY, DEFAULT_SKILL_STORE);
+    }
+
+    /**
+     * access
+     *
+     * @return path of the journal file of a file-based skill store
+     */
+    public String getSkillStoreFile() {
+        return config.getString(SKILL_STORE_FILE_PROPERTY, DEFAULT_SKILL_STORE_FILE);
+    }
+
+    /**
+     * access
+     *
+     * @return type of the agreement persistence (file, shared or memory)
+     */
+    public String getAgreementStoreType() {
+        return config.getString(AGREEMENT_STORE_PROPERTY, DEFAULT_AGREEMENT_STORE);
+    }
+
+    /**
+     * access
+     *
+     * @return path of the file of a file-based agreement persistence
+     */
+    public String getAgreementStoreFile() {
+        return config.getString(AGREEMENT_STORE_FILE_PROPERTY, DEFAULT_AGREEMENT_STORE_FILE);
+    }
+
+    /**
+     * access
+     *
+     * @return base64-encoded AES key to encrypt persisted tokens, null if tokens should not be persisted
+     */
+    public String getAgreementStoreKey() {
+        return config.getString(AGREEMENT_STORE_KEY_PROPERTY, null);
+    }
+
+    /**
+     * access
+     *
+     * @return path of the directory of a shared agreement persistence
+     */
+    public String getAgreementStoreDirectory() {
+        return config.getString(AGREEMENT_STORE_DIRECTORY_PROPERTY, DEFAULT_AGREEMENT_STORE_DIRECTORY);
+    }
+
     /**
      * access
      *
@@ -44,6 +44,10 @@ import org.eclipse.tractusx.agents.edc.rdf.RdfStore;
 import org.eclipse.tractusx.agents.edc.service.DataManagement;
 import org.eclipse.tractusx.agents.edc.service.DataspaceSynchronizer;
 import org.eclipse.tractusx.agents.edc.service.EdcSkillStore;
+import org.eclipse.tractusx.agents.edc.service.FileAgreementPersistence;
+import org.eclipse.tractusx.agents.edc.service.FileSkillStore;
+import org.eclipse.tractusx.agents.edc.service.InMemorySkillStore;
+import org.eclipse.tractusx.agents.edc.service.SharedFileAgreementPersistence;
 import org.eclipse.tractusx.agents.edc.sparql.DataspaceServiceExecutor;
 import org.eclipse.tractusx.agents.edc.sparql.SparqlQueryProcessor;
 import org.eclipse.tractusx.agents.edc.sparql.SparqlQuerySerializerFactory;
@@ -52,6 +56,7 @@ import org.eclipse.tractusx.agents.edc.validation.SwitchingDataPlaneTokenValidat
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * EDC extension that initializes the Agent subsystem (Agent Sources, Agent Endpoint and Federation Callbacks
@@ -102,6 +107,21 @@ public class AgentExtension implements ServiceExtension {
      */
     protected DataspaceSynchronizer synchronizer;
 
+    /**
+     * typed configuration
+     */
+    protected AgentConfig config;
+
+    /**
+     * local graph store
+     */
+    protected RdfStore rdfStore;
+
+    /**
+     * agreement controller with endpoint reference refresh
+     */
+    protected AgreementControllerImpl agreementController;
+
     /**
      * access
      *
@@ -123,21 +143,23 @@ public class AgentExtension implements ServiceExtension {
         
         monitor.debug(String.format("Initializing %s", name()));
 
-        AgentConfig config = new AgentConfig(monitor, context.getConfig());
+        config = new AgentConfig(monitor, context.getConfig());
         Map.Entry<EdcHttpClient, OkHttpClient> instance = HttpClientFactory.create(edcHttpClient, httpClient, pipelineService, config);
         edcHttpClient = instance.getKey();
         httpClient = instance.getValue();
 
         DataManagement catalogService = new DataManagement(monitor, typeManager, httpClient, config);
 
-        AgreementControllerImpl agreementController = new AgreementControllerImpl(monitor, config, catalogService);
+        executorService = Executors.newScheduledThreadPool(config.getThreadPoolSize());
+
+        // the refresh blocks on the control plane, so it must not starve the store and the synchronization
+        ScheduledExecutorService refreshService = Executors.newScheduledThreadPool(config.getEdrRefreshParallelism());
+        agreementController = new AgreementControllerImpl(monitor, config, catalogService, refreshService, createAgreementPersistence(config, monitor));
         monitor.debug(String.format("Registering agreement controller %s", agreementController));
         webService.registerResource(CALLBACK_CONTEXT_ALIAS, agreementController);
 
-        RdfStore rdfStore = new RdfStore(config, monitor);
-
-        executorService = Executors.newScheduledThreadPool(config.getThreadPoolSize());
-        synchronizer = new DataspaceSynchronizer(executorService, config, catalogService, rdfStore, monitor);
+        rdfStore = new RdfStore(config, monitor, executorService);
+        synchronizer = new DataspaceSynchronizer(executorService, config, catalogService, rdfStore, monitor, agreementController::getLastUse);
 
         SwitchingDataPlaneTokenValidatorController validatorController = new SwitchingDataPlaneTokenValidatorController(httpClient, config, monitor);
         if (validatorController.isEnabled()) {
@@ -161,9 +183,9 @@ public class AgentExtension implements ServiceExtension {
         SparqlQueryProcessor processor = new SparqlQueryProcessor(reg, monitor, config, rdfStore, typeManager);
 
         // stored procedure store and transport endpoint
-        SkillStore skillStore = new EdcSkillStore(catalogService, typeManager, config);
+        SkillStore skillStore = createSkillStore(config, catalogService, monitor);
         DelegationServiceImpl delegationService = new DelegationServiceImpl(agreementController, monitor, httpClient, typeManager, config);
-        AgentController agentController = new AgentController(monitor, agreementController, config, processor, skillStore, delegationService);
+        AgentController agentController = new AgentController(monitor, agreementController, config, processor, skillStore, delegationService, rdfStore, synchronizer);
         monitor.debug(String.format("Registering agent controller %s", agentController));
         webService.registerResource(DEFAULT_CONTEXT_ALIAS, agentController);
 
@@ -182,12 +204,58 @@ public class AgentExtension implements ServiceExtension {
         generatorService.addGeneratorFunction(AgentProtocol.SKILL_HTTP.getProtocolId(), dataAddress -> endpoint);
     }
 
+    /**
+     * creates the configured skill store
+     *
+     * @param config         typed config
+     * @param catalogService data management service wrapper
+     * @param monitor        logging subsystem
+     * @return skill store instance
+     */
+    protected SkillStore createSkillStore(AgentConfig config, DataManagement catalogService, Monitor monitor) {
+        String storeType = config.getSkillStoreType();
+        monitor.debug(String.format("Creating skill store of type %s", storeType));
+        switch (storeType) {
+            case "file":
+                return new FileSkillStore(config, typeManager, monitor);
+            case "memory":
+                return new InMemorySkillStore(config);
+            default:
+                return new EdcSkillStore(catalogService, typeManager, config, monitor);
+        }
+    }
+
+    /**
+     * creates the configured agreement persistence
+     *
+     * @param config  typed config
+     * @param monitor logging subsystem
+     * @return agreement persistence, null if agreements should be kept in memory only
+     */
+    protected AgreementPersistence createAgreementPersistence(AgentConfig config, Monitor monitor) {
+        String storeType = config.getAgreementStoreType();
+        monitor.debug(String.format("Creating agreement persistence of type %s", storeType));
+        switch (storeType) {
+            case "memory":
+                return null;
+            case "shared":
+                return new SharedFileAgreementPersistence(config, monitor);
+            default:
+                return new FileAgreementPersistence(config, monitor);
+        }
+    }
+
     /**
      * start scheduled services
      */
     @Override
     public void start() {
+        agreementController.start();
         synchronizer.start();
+        long snapshotInterval = config.getRdfSnapshotInterval();
+        if (rdfStore.isSnapshotEnabled() && snapshotInterval > 0) {
+            executorService.scheduleWithFixedDelay(rdfStore::snapshot, snapshotInterval, snapshotInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -196,6 +264,9 @@ public class AgentExtension implements ServiceExtension {
      */
     @Override
     public void shutdown() {
+        agreementController.shutdown();
         synchronizer.shutdown();
+        rdfStore.snapshot();
+        rdfStore.close();
     }
 }
\ No newline at end of file
@@ -20,15 +20,16 @@ import com.nimbusds.jose.JWSObject;
 import jakarta.json.Json;
 import jakarta.json.JsonValue;
 import jakarta.ws.rs.BadRequestException;
-import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.InternalServerErrorException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
-import jakarta.ws.rs.core.Response;
+import org.eclipse.edc.connector.controlplane.contract.spi.event.contractnegotiation.ContractNegotiationFinalized;
+import org.eclipse.edc.connector.controlplane.contract.spi.event.contractnegotiation.ContractNegotiationTerminated;
 import org.eclipse.edc.connector.controlplane.transfer.spi.event.TransferProcessStarted;
+import org.eclipse.edc.connector.controlplane.transfer.spi.event.TransferProcessTerminated;
 import org.eclipse.edc.spi.event.EventEnvelope;
 import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.types.domain.DataAddress;
@@ -46,15 +47,23 @@ import org.eclipse.tractusx.agents.edc.model.TransferProcess;
 import org.eclipse.tractusx.agents.edc.model.TransferRequest;
 import org.eclipse.tractusx.agents.edc.service.DataManagement;
 import org.eclipse.tractusx.agents.edc.service.DataspaceSynchronizer;
+import org.eclipse.tractusx.agents.edc.service.OfferRanking;
 
 import java.io.IOException;
 import java.text.ParseException;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 
 /**
@@ -69,28 +78,115 @@ public class AgreementControllerImpl implements AgreementController {
      */
     public static final String TRANSFER_TYPE = "HttpProxy";
 
+    /**
+     * sub-paths of the callback endpoint for the individual control plane events
+     */
+    public static final String NEGOTIATION_FINALIZED_PATH = "negotiation-finalized";
+    public static final String NEGOTIATION_TERMINATED_PATH = "negotiation-terminated";
+    public static final String TRANSFER_TERMINATED_PATH = "transfer-terminated";
+
+    /**
+     * negotiation and transfer states
+     */
+    public static final String FINALIZED_STATE = "FINALIZED";
+    public static final String TERMINATED_STATE = "TERMINATED";
+    // EDC 0.5.1 has a problem with the checker configuration and wont process to COMPLETED
+    public static final String STARTED_STATE = "STARTED";
+
     /**
      * EDC service references
      */
     protected final Monitor monitor;
     protected final DataManagement dataManagement;
     protected final AgentConfig config;
+    protected final OfferRanking offerRanking;
 
     /**
-     * memory store for links from assets to the actual transfer addresses
+     * memory store for links from assets to the actual transfer addresses.
+     * All negotiation state is indexed by asset, the connector which
+     * an asset has been agreed with is kept in remoteUrls.
      * TODO make this a distributed cache
-     * TODO let this cache evict invalidate references automatically
      */
-    // hosts all pending processes
-    protected final Set<String> activeAssets = new HashSet<>();
+    // per-asset negotiation state: an in-flight or completed negotiation
+    // resulting in an endpoint reference, concurrent callers join the same future
+    protected final Map<String, CompletableFuture<EndpointDataReference>> negotiations = new ConcurrentHashMap<>();
     // any contract agreements indexed by asset
-    protected final Map<String, ContractAgreement> agreementStore = new HashMap<>();
+    protected final Map<String, ContractAgreement> agreementStore = new ConcurrentHashMap<>();
+    // the offered asset properties which belong to the agreements
+    protected final Map<String, Map<String, JsonValue>> propertiesStore = new ConcurrentHashMap<>();
     // any transfer processes indexed by asset, the current process should
     // always adhere to the above agreement
-    protected final Map<String, TransferProcess> processStore = new HashMap<>();
+    protected final Map<String, TransferProcess> processStore = new ConcurrentHashMap<>();
     // at the end of provisioning and endpoint reference will be set
     // that fits to the current transfer process
-    protected final Map<String, EndpointDataReference> endpointStore = new HashMap<>();
+    protected final Map<String, ActiveEndpoint> endpointStore = new ConcurrentHashMap<>();
+
+    /**
+     * an endpoint reference together with the expiry of its token
+     * which is parsed only once when the reference arrives
+     */
+    protected static class ActiveEndpoint {
+        protected final EndpointDataReference reference;
+        protected final long expiry;
+
+        public ActiveEndpoint(EndpointDataReference reference, long expiry) {
+            this.reference = reference;
+            this.expiry = expiry;
+        }
+
+        public EndpointDataReference getReference() {
+            return reference;
+        }
+
+        public long getExpiry() {
+            return expiry;
+        }
+
+        /**
+         * checks the validity
+         *
+         * @param now current time in milliseconds
+         * @return whether the reference may be used for at least 30 more seconds
+         */
+        public boolean isValid(long now) {
+            return expiry >= now + 30 * 1000;
+        }
+    }
+
+    /**
+     * pending negotiations and transfers which are completed by control plane callbacks.
+     * Only ids which a thread waits for are registered, callbacks for other ids
+     * (or which arrive before the registration) are left to the status poll.
+     */
+    protected final Map<String, CompletableFuture<ContractNegotiation>> negotiationEvents = new ConcurrentHashMap<>();
+    protected final Map<String, CompletableFuture<TransferProcess>> transferEvents = new ConcurrentHashMap<>();
+
+    /**
+     * persistence of agreements and endpoint references across restarts, maybe null
+     */
+    protected final AgreementPersistence persistence;
+
+    /**
+     * background refresh of endpoint references which are about to expire
+     */
+    protected final ScheduledExecutorService refreshService;
+    protected ScheduledFuture<?> refreshSchedule;
+    // last access time of each asset, only recently used assets are refreshed
+    protected final Map<String, Long> lastUse = new ConcurrentHashMap<>();
+    // the remote connector of each agreed asset
+    protected final Map<String, String> remoteUrls = new ConcurrentHashMap<>();
+    // assets whose endpoint reference is currently refreshed
+    protected final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * a status check against the management api
+     *
+     * @param <T> type of the status object
+     */
+    @FunctionalInterface
+    protected interface StatusCheck<T> {
+        T check() throws IOException;
+    }
 
     /**
      * creates an agreement controller
@@ -100,9 +196,221 @@ public class AgreementControllerImpl implements AgreementController {
      * @param dataManagement data management service wrapper
      */
     public AgreementControllerImpl(Monitor monitor, AgentConfig config, DataManagement dataManagement) {
+        this(monitor, config, dataManagement, null);
+    }
+
+    /**
+     * creates an agreement controller which refreshes endpoint references in the background
+     *
+     * @param monitor        logger
+     * @param config         typed config
+     * @param dataManagement data management service wrapper
+     * @param refreshService dedicated scheduler for the refresh which is shut down together with the controller,
+     *                       null if endpoint references should not be refreshed
+     */
+    public AgreementControllerImpl(Monitor monitor, AgentConfig config, DataManagement dataManagement, ScheduledExecutorService refreshService) {
+        this(monitor, config, dataManagement, refreshService, null);
+    }
+
+    /**
+     * creates an agreement controller which refreshes and persists endpoint references
+     *
+     * @param monitor        logger
+     * @param config         typed config
+     * @param dataManagement data management service wrapper
+     * @param refreshService dedicated scheduler for the refresh which is shut down together with the controller,
+     *                       null if endpoint references should not be refreshed
+     * @param persistence    persistence of agreements and endpoint references, null if state should not survive restarts
+     */
+    public AgreementControllerImpl(Monitor monitor, AgentConfig config, DataManagement dataManagement, ScheduledExecutorService refreshService, AgreementPersistence persistence) {
         this.monitor = monitor;
         this.dataManagement = dataManagement;
         this.config = config;
+        this.refreshService = refreshService;
+        this.persistence = persistence;
+        this.offerRanking = OfferRanking.create(config, agreementStore::values);
+    }
+
+    /**
+     * restores the persisted agreements and
+     * starts the background refresh of endpoint references
+     */
+    public synchronized void start() {
+        if (persistence != null) {
+            restore();
+        }
+        long interval = config.getEdrRefreshInterval();
+        if (refreshService != null && refreshSchedule == null && interval > 0) {
+            monitor.info(String.format("Starting endpoint reference refresh with interval %d milliseconds", interval));
+            refreshSchedule = refreshService.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * restores all persisted agreements which are still reusable
+     * together with their unexpired endpoint references
+     */
+    protected void restore() {
+        int agreements = 0;
+        int endpoints = 0;
+        for (AgreementPersistence.AgreementRecord record : persistence.load()) {
+            String asset = record.getAsset();
+            if (record.getAgreement() == null || record.getAssetProperties().isEmpty()) {
+                // another replica is about to publish the complete state
+                continue;
+            }
+            if (!isReusable(record.getAgreement())) {
+                persistence.remove(asset);
+                continue;
+            }
+            agreements++;
+            if (adopt(record)) {
+                negotiations.put(asset, CompletableFuture.completedFuture(endpointStore.get(asset).getReference()));
+                endpoints++;
+            }
+        }
+        monitor.info(String.format("Restored %d agreements and %d endpoint references.", agreements, endpoints));
+    }
+
+    /**
+     * takes over a persisted agreement and its endpoint reference
+     *
+     * @param record persisted state of the asset
+     * @return whether a valid endpoint reference has been installed
+     */
+    protected boolean adopt(AgreementPersistence.AgreementRecord record) {
+        String asset = record.getAsset();
+        // records which have only been published by callbacks lack the offered asset properties
+        if (record.getAgreement() == null || record.getRemoteUrl() == null || record.getAssetProperties().isEmpty() || !isReusable(record.getAgreement())) {
+            return false;
+        }
+        registerAgreement(asset, record.getAgreement());
+        propertiesStore.put(asset, record.getAssetProperties());
+        remoteUrls.put(asset, record.getRemoteUrl());
+        EndpointDataReference reference = record.getReference();
+        if (reference != null) {
+            ActiveEndpoint endpoint = activate(asset, reference);
+            if (endpoint.isValid(System.currentTimeMillis())) {
+                endpointStore.put(asset, endpoint);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * writes the current state of an asset to the persistence. A shared persistence
+     * merges the state with what other replicas have stored in the meantime.
+     *
+     * @param asset name of the asset
+     */
+    protected void persist(String asset) {
+        if (persistence == null) {
+            return;
+        }
+        AgreementPersistence.AgreementRecord local = createRecord(asset);
+        if (persistence instanceof SharedAgreementPersistence) {
+            ((SharedAgreementPersistence) persistence).update(asset, current -> merge(current, local));
+        } else if (local == null) {
+            persistence.remove(asset);
+        } else {
+            persistence.store(local);
+        }
+    }
+
+    /**
+     * publishes the outcome of a control plane callback to the other replicas
+     *
+     * @param asset  name of the asset
+     * @param update partial state of the asset
+     */
+    protected void publish(String asset, AgreementPersistence.AgreementRecord update) {
+        if (persistence instanceof SharedAgreementPersistence) {
+            ((SharedAgreementPersistence) persistence).update(asset, current -> merge(current, update));
+        }
+    }
+
+    /**
+     * captures the local state of an asset
+     *
+     * @param asset name of the asset
+     * @return record, null if there is no reusable agreement for the asset
+     */
+    protected AgreementPersistence.AgreementRecord createRecord(String asset) {
+        String remoteUrl = remoteUrls.get(asset);
+        ContractAgreement agreement = agreementStore.get(asset);
+        Map<String, JsonValue> assetProperties = propertiesStore.get(asset);
+        if (remoteUrl == null || agreement == null || assetProperties == null || !isReusable(agreement)) {
+            return null;
+        }
+        ActiveEndpoint endpoint = endpointStore.get(asset);
+        EndpointDataReference reference = null;
+        if (endpoint != null && endpoint.isValid(System.currentTimeMillis())) {
+            reference = endpoint.getReference();
+        }
+        return new AgreementPersistence.AgreementRecord(asset, remoteUrl, agreement, assetProperties, reference);
+    }
+
+    /**
+     * merges two states of an asset, keeping the most recent reusable agreement
+     * and the endpoint reference which is valid for the longest time
+     *
+     * @param current stored state, maybe null
+     * @param update  new (partial) state, maybe null
+     * @return merged state, null if nothing is worth keeping
+     */
+    protected AgreementPersistence.AgreementRecord merge(AgreementPersistence.AgreementRecord current, AgreementPersistence.AgreementRecord update) {
+        AgreementPersistence.AgreementRecord agreed = null;
+        ActiveEndpoint endpoint = null;
+        long now = System.currentTimeMillis();
+        // on ties, the update wins
+        for (AgreementPersistence.AgreementRecord candidate : new AgreementPersistence.AgreementRecord[]{ current, update }) {
+            if (candidate == null) {
+                continue;
+            }
+            ContractAgreement agreement = candidate.getAgreement();
+            if (agreement != null && isReusable(agreement)
+                    && (agreed == null || agreement.getContractSigningDate() >= agreed.getAgreement().getContractSigningDate())) {
+                agreed = candidate;
+            }
+            if (candidate.getReference() != null) {
+                ActiveEndpoint candidateEndpoint = activate(candidate.getAsset(), candidate.getReference());
+                if (candidateEndpoint.isValid(now) && (endpoint == null || candidateEndpoint.getExpiry() >= endpoint.getExpiry())) {
+                    endpoint = candidateEndpoint;
+                }
+            }
+        }
+        if (agreed == null && endpoint == null) {
+            return null;
+        }
+        String asset = current != null ? current.getAsset() : update.getAsset();
+        String remoteUrl = agreed != null ? agreed.getRemoteUrl() : null;
+        Map<String, JsonValue> assetProperties = agreed != null ? agreed.getAssetProperties() : Map.of();
+        // callbacks only know parts of the state
+        for (AgreementPersistence.AgreementRecord candidate : new AgreementPersistence.AgreementRecord[]{ current, update }) {
+            if (candidate != null && remoteUrl == null) {
+                remoteUrl = candidate.getRemoteUrl();
+            }
+            if (candidate != null && assetProperties.isEmpty() && candidate.getAssetProperties() != null) {
+                assetProperties = candidate.getAssetProperties();
+            }
+        }
+        return new AgreementPersistence.AgreementRecord(asset, remoteUrl, agreed != null ? agreed.getAgreement() : null, assetProperties,
+                endpoint != null ? endpoint.getReference() : null);
+    }
+
+    /**
+     * stops the background refresh of endpoint references
+     */
+    public synchronized void shutdown() {
+        if (refreshSchedule != null) {
+            monitor.info("Shutting down endpoint reference refresh");
+            refreshSchedule.cancel(false);
+            refreshSchedule = null;
+        }
+        if (refreshService != null) {
+            refreshService.shutdownNow();
+        }
     }
 
     /**
@@ -123,18 +431,189 @@ public class AgreementControllerImpl implements AgreementController {
         var processId = dataReference.getPayload().getTransferProcessId();
         var assetId = dataReference.getPayload().getAssetId();
         monitor.debug(String.format("A transfer process %s for asset %s has been started.", processId, assetId));
-        synchronized (endpointStore) {
-            EndpointDataReference newRef = EndpointDataReference.Builder.newInstance()
-                    .id(dataReference.getId())
-                    .contractId(dataReference.getPayload().getContractId())
-                    .endpoint(dataReference.getPayload().getDataAddress().getStringProperty("https://w3id.org/edc/v0.0.1/ns/endpoint", null))
-                    .authKey("Authorization")
-                    .authCode(dataReference.getPayload().getDataAddress().getStringProperty("https://w3id.org/edc/v0.0.1/ns/authorization", null))
-                    .build();
-            endpointStore.put(assetId, newRef);
+        // the reference is identified by its transfer process such that replicas can match it
+        EndpointDataReference newRef = EndpointDataReference.Builder.newInstance()
+                .id(processId)
+                .contractId(dataReference.getPayload().getContractId())
+                .endpoint(dataReference.getPayload().getDataAddress().getStringProperty("https://w3id.org/edc/v0.0.1/ns/endpoint", null))
+                .authKey("Authorization")
+                .authCode(dataReference.getPayload().getDataAddress().getStringProperty("https://w3id.org/edc/v0.0.1/ns/authorization", null))
+                .build();
+        // a refreshed reference inherits the asset properties of its predecessor
+        ActiveEndpoint previous = endpointStore.get(assetId);
+        if (previous != null) {
+            previous.getReference().getProperties().forEach(newRef.getProperties()::putIfAbsent);
+        }
+        endpointStore.put(assetId, activate(assetId, newRef));
+        // the replica which waits for the reference may be another one
+        publish(assetId, new AgreementPersistence.AgreementRecord(assetId, null, null, Map.of(), newRef));
+        complete(transferEvents, processId, createTransferProcess(processId, STARTED_STATE));
+    }
+
+    /**
+     * this is called by the control plane when a negotiation has been finalized
+     *
+     * @param event contains the negotiation and the agreement
+     */
+    @POST
+    @Path(NEGOTIATION_FINALIZED_PATH)
+    public void receiveNegotiationFinalized(EventEnvelope<ContractNegotiationFinalized> event) {
+        var negotiationId = event.getPayload().getContractNegotiationId();
+        var agreement = event.getPayload().getContractAgreement();
+        monitor.debug(String.format("Negotiation %s has been finalized.", negotiationId));
+        var negotiation = Json.createObjectBuilder()
+                .add("@id", negotiationId)
+                .add("https://w3id.org/edc/v0.0.1/ns/state", FINALIZED_STATE);
+        if (agreement != null) {
+            negotiation.add("https://w3id.org/edc/v0.0.1/ns/contractAgreementId", agreement.getId());
+            var agreed = Json.createObjectBuilder()
+                    .add("@id", agreement.getId())
+                    .add("https://w3id.org/edc/v0.0.1/ns/assetId", agreement.getAssetId())
+                    .add("https://w3id.org/edc/v0.0.1/ns/contractSigningDate", agreement.getContractSigningDate());
+            if (agreement.getProviderId() != null) {
+                agreed.add("https://w3id.org/edc/v0.0.1/ns/providerId", agreement.getProviderId());
+            }
+            publish(agreement.getAssetId(), new AgreementPersistence.AgreementRecord(agreement.getAssetId(),
+                    getRemoteUrl(event.getPayload().getCounterPartyAddress()), new ContractAgreement(agreed.build()), Map.of(), null));
+        }
+        complete(negotiationEvents, negotiationId, new ContractNegotiation(negotiation.build()));
+    }
+
+    /**
+     * this is called by the control plane when a negotiation has been terminated
+     *
+     * @param event contains the negotiation
+     */
+    @POST
+    @Path(NEGOTIATION_TERMINATED_PATH)
+    public void receiveNegotiationTerminated(EventEnvelope<ContractNegotiationTerminated> event) {
+        var negotiationId = event.getPayload().getContractNegotiationId();
+        monitor.debug(String.format("Negotiation %s has been terminated.", negotiationId));
+        var negotiation = Json.createObjectBuilder()
+                .add("@id", negotiationId)
+                .add("https://w3id.org/edc/v0.0.1/ns/state", TERMINATED_STATE)
+                .build();
+        complete(negotiationEvents, negotiationId, new ContractNegotiation(negotiation));
+    }
+
+    /**
+     * this is called by the control plane when a transfer process has been terminated
+     *
+     * @param event contains the transfer process
+     */
+    @POST
+    @Path(TRANSFER_TERMINATED_PATH)
+    public void receiveTransferTerminated(EventEnvelope<TransferProcessTerminated> event) {
+        var processId = event.getPayload().getTransferProcessId();
+        var assetId = event.getPayload().getAssetId();
+        monitor.debug(String.format("Transfer process %s for asset %s has been terminated because of %s.", processId, assetId, event.getPayload().getReason()));
+        if (assetId != null) {
+            ActiveEndpoint endpoint = endpointStore.get(assetId);
+            if (endpoint != null && processId.equals(endpoint.getReference().getId())) {
+                endpointStore.remove(assetId, endpoint);
+            }
+            if (persistence instanceof SharedAgreementPersistence) {
+                ((SharedAgreementPersistence) persistence).update(assetId, current -> {
+                    if (current == null || current.getReference() == null || !processId.equals(current.getReference().getId())) {
+                        return current;
+                    }
+                    return merge(new AgreementPersistence.AgreementRecord(assetId, current.getRemoteUrl(), current.getAgreement(), current.getAssetProperties(), null), null);
+                });
+            }
+        }
+        complete(transferEvents, processId, createTransferProcess(processId, TERMINATED_STATE));
+    }
+
+    /**
+     * derives the connector url from its protocol address
+     *
+     * @param counterPartyAddress dataspace protocol address of the connector
+     * @return connector url, null if unknown
+     */
+    protected static String getRemoteUrl(String counterPartyAddress) {
+        String suffix = String.format(DataManagement.DSP_PATH, "");
+        if (counterPartyAddress != null && counterPartyAddress.endsWith(suffix)) {
+            return counterPartyAddress.substring(0, counterPartyAddress.length() - suffix.length());
+        }
+        return counterPartyAddress;
+    }
+
+    /**
+     * completes a pending event if some thread waits for it
+     *
+     * @param events pending events
+     * @param id     id of the negotiation or transfer
+     * @param status status reported by the callback
+     * @param <T>    type of the status object
+     */
+    protected <T> void complete(Map<String, CompletableFuture<T>> events, String id, T status) {
+        CompletableFuture<T> event = events.get(id);
+        if (event != null) {
+            event.complete(status);
+        } else {
+            monitor.debug(String.format("No thread is waiting for %s. Ignoring the callback.", id));
         }
     }
 
+    /**
+     * creates a transfer process status object
+     *
+     * @param processId id of the process
+     * @param state     state of the process
+     * @return transfer process
+     */
+    protected static TransferProcess createTransferProcess(String processId, String state) {
+        return new TransferProcess(Json.createObjectBuilder().add("@id", processId).add("https://w3id.org/edc/v0.0.1/ns/state", state).build());
+    }
+
+    /**
+     * creates a callback address for the given events
+     *
+     * @param subPath sub-path of the callback endpoint, null for the transfer started callback
+     * @param events  to subscribe to
+     * @return callback address
+     */
+    protected CallbackAddress createCallbackAddress(String subPath, String... events) {
+        String uri = config.getCallbackEndpoint();
+        if (subPath != null) {
+            uri = uri.endsWith("/") ? uri + subPath : uri + "/" + subPath;
+        }
+        return CallbackAddress.Builder.newInstance().uri(uri).events(Set.of(events)).transactional(false).build();
+    }
+
+    /**
+     * waits for an event of the control plane. If no event arrives
+     * within the fallback interval, the status is checked through the management api.
+     * The poll also covers callbacks which arrived before the event has been registered.
+     *
+     * @param event   future which is completed by the callback
+     * @param check   fallback status check
+     * @param isFinal predicate to determine whether a status is final
+     * @param <T>     type of the status object
+     * @return final status, or the last known status if the negotiation timeout was hit
+     * @throws InterruptedException if waiting was interrupted
+     * @throws IOException          if the status check failed
+     */
+    protected <T> T awaitEvent(CompletableFuture<T> event, StatusCheck<T> check, Predicate<T> isFinal) throws InterruptedException, IOException {
+        long startTime = System.currentTimeMillis();
+        T current = null;
+        long remaining = config.getNegotiationTimeout();
+        while (remaining > 0) {
+            try {
+                return event.get(Math.min(remaining, config.getNegotiationFallbackPollInterval()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                current = check.check();
+                if (current != null && isFinal.test(current)) {
+                    return current;
+                }
+            } catch (ExecutionException e) {
+                return current;
+            }
+            remaining = config.getNegotiationTimeout() - (System.currentTimeMillis() - startTime);
+        }
+        return current;
+    }
+
     /**
      * accesses an active endpoint for the given asset
      *
@@ -143,88 +622,165 @@ public class AgreementControllerImpl implements AgreementController {
      */
     @Override
     public EndpointDataReference get(String assetId) {
-        synchronized (activeAssets) {
-            if (!activeAssets.contains(assetId)) {
-                monitor.debug(String.format("Asset %s is not active", assetId));
-                return null;
-            }
-            synchronized (endpointStore) {
-                EndpointDataReference result = endpointStore.get(assetId);
-                if (result != null) {
-                    String token = result.getAuthCode();
-                    if (token != null) {
-                        try {
-                            JWSObject jwt = JWSObject.parse(token);
-                            Object expiryObject = jwt.getPayload().toJSONObject().get("exp");
-                            if (expiryObject instanceof Long) {
-                                // token times are in seconds
-                                if (!new Date((Long) expiryObject * 1000).before(new Date(System.currentTimeMillis() + 30 * 1000))) {
-                                    return result;
-                                }
-                            }
-                        } catch (ParseException | NumberFormatException e) {
-                            monitor.debug(String.format("Active asset %s has invalid agreement token.", assetId));
-                        }
-                    }
-                    endpointStore.remove(assetId);
+        CompletableFuture<EndpointDataReference> negotiation = negotiations.get(assetId);
+        if (negotiation == null || !negotiation.isDone()) {
+            monitor.debug(String.format("Asset %s is not active", assetId));
+            return null;
+        }
+        ActiveEndpoint result = negotiation.isCompletedExceptionally() ? null : endpointStore.get(assetId);
+        long now = System.currentTimeMillis();
+        if (result != null && result.isValid(now)) {
+            lastUse.put(assetId, now);
+            return result.getReference();
+        }
+        monitor.debug(String.format("Active asset %s has timed out or was not installed.", assetId));
+        if (negotiations.remove(assetId, negotiation)) {
+            if (result != null) {
+                endpointStore.remove(assetId, result);
+            }
+            processStore.remove(assetId);
+            lastUse.remove(assetId);
+            ContractAgreement agreement = agreementStore.get(assetId);
+            if (agreement != null && !isReusable(agreement)) {
+                agreementStore.remove(assetId, agreement);
+            }
+            persist(assetId);
+        }
+        return null;
+    }
+
+    /**
+     * wraps an endpoint reference with the expiry of its token
+     *
+     * @param assetId   id of the agreed asset
+     * @param reference endpoint reference
+     * @return active endpoint
+     */
+    protected ActiveEndpoint activate(String assetId, EndpointDataReference reference) {
+        return new ActiveEndpoint(reference, getExpiry(assetId, reference));
+    }
+
+    /**
+     * determines the expiry of the token of an endpoint reference
+     *
+     * @param assetId   id of the agreed asset
+     * @param reference endpoint reference
+     * @return expiry in milliseconds since epoch, -1 if the token is missing or invalid
+     */
+    protected long getExpiry(String assetId, EndpointDataReference reference) {
+        String token = reference.getAuthCode();
+        if (token != null) {
+            try {
+                JWSObject jwt = JWSObject.parse(token);
+                Object expiryObject = jwt.getPayload().toJSONObject().get("exp");
+                if (expiryObject instanceof Long) {
+                    // token times are in seconds
+                    return (Long) expiryObject * 1000;
                 }
-                monitor.debug(String.format("Active asset %s has timed out or was not installed.", assetId));
-                synchronized (processStore) {
-                    processStore.remove(assetId);
-                    synchronized (agreementStore) {
-                        ContractAgreement agreement = agreementStore.get(assetId);
-                        if (agreement != null && agreement.getContractSigningDate() + 600000L <= System.currentTimeMillis()) {
-                            agreementStore.remove(assetId);
+            } catch (ParseException | NumberFormatException e) {
+                monitor.debug(String.format("Active asset %s has invalid agreement token.", assetId));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * access
+     *
+     * @param remoteUrl protocol url of a remote connector
+     * @return time of the last use of an asset of the connector in milliseconds, 0 if never
+     */
+    public long getLastUse(String remoteUrl) {
+        long last = 0;
+        for (Map.Entry<String, String> remote : remoteUrls.entrySet()) {
+            if (remote.getValue().equals(remoteUrl)) {
+                last = Math.max(last, lastUse.getOrDefault(remote.getKey(), 0L));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * checks all recently used endpoint references and
+     * refreshes those which are about to expire
+     */
+    protected void refresh() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ActiveEndpoint> entry : endpointStore.entrySet()) {
+            String asset = entry.getKey();
+            Long used = lastUse.get(asset);
+            if (used == null || now - used > config.getEdrRefreshIdle()) {
+                continue;
+            }
+            long expiry = entry.getValue().getExpiry();
+            if (expiry < 0 || expiry - now > config.getEdrRefreshAhead()) {
+                continue;
+            }
+            if (refreshing.add(asset)) {
+                try {
+                    refreshService.execute(() -> {
+                        try {
+                            refresh(asset);
+                        } finally {
+                            refreshing.remove(asset);
                         }
-                        activeAssets.remove(assetId);
-                    }
+                    });
+                } catch (RejectedExecutionException e) {
+                    refreshing.remove(asset);
                 }
             }
         }
-        return null;
     }
 
     /**
-     * sets active
+     * refreshes the endpoint reference of an asset by a new transfer
+     * under the existing agreement. The new reference replaces the old one
+     * when it arrives, so that queries never wait on the refresh.
      *
-     * @param asset name
+     * @param asset name of the agreed asset
      */
-    protected void activate(String asset) {
-        synchronized (activeAssets) {
-            if (activeAssets.contains(asset)) {
-                throw new ClientErrorException("Cannot agree on an already active asset.", Response.Status.CONFLICT);
+    protected void refresh(String asset) {
+        CompletableFuture<EndpointDataReference> negotiation = negotiations.get(asset);
+        String remoteUrl = remoteUrls.get(asset);
+        ContractAgreement agreement = agreementStore.get(asset);
+        if (negotiation == null || !negotiation.isDone() || remoteUrl == null || agreement == null || !isReusable(agreement)) {
+            return;
+        }
+        monitor.debug(String.format("About to refresh the endpoint reference for asset %s under agreement %s", asset, agreement.getId()));
+        try {
+            EndpointDataReference reference = startTransfer(remoteUrl, asset, agreement, Map.of());
+            if (reference != null) {
+                persist(asset);
+                monitor.debug(String.format("Refreshed the endpoint reference for asset %s", asset));
+            } else {
+                monitor.warning(String.format("Refresh for asset %s did not result in a valid endpoint reference.", asset));
             }
-            activeAssets.add(asset);
+        } catch (WebApplicationException e) {
+            monitor.warning(String.format("Could not refresh the endpoint reference for asset %s because of %s", asset, e.getMessage()));
         }
     }
 
     /**
-     * sets active
+     * cleans up the state of a failed negotiation
      *
      * @param asset name
      */
     protected void deactivate(String asset) {
-        synchronized (activeAssets) {
-            activeAssets.remove(asset);
-        }
-        synchronized (agreementStore) {
-            agreementStore.remove(asset);
-        }
-        synchronized (processStore) {
-            processStore.remove(asset);
-        }
+        remoteUrls.remove(asset);
+        agreementStore.remove(asset);
+        propertiesStore.remove(asset);
+        processStore.remove(asset);
+        endpointStore.remove(asset);
     }
 
     /**
      * register an agreement
      *
-     * @param asset name
+     * @param asset     name
      * @param agreement object
      */
     protected void registerAgreement(String asset, ContractAgreement agreement) {
-        synchronized (agreementStore) {
-            agreementStore.put(asset, agreement);
-        }
+        agreementStore.put(asset, agreement);
     }
 
     /**
@@ -234,24 +790,187 @@ public class AgreementControllerImpl implements AgreementController {
      * @param process object
      */
     protected void registerProcess(String asset, TransferProcess process) {
-        synchronized (processStore) {
-            processStore.put(asset, process);
-        }
+        processStore.put(asset, process);
     }
 
     /**
      * creates a new agreement (asynchronously)
-     * and waits for the result
-     * TODO make this federation aware: multiple assets, different policies
+     * and waits for the result. Concurrent calls for the same
+     * asset join the negotiation which is already in flight.
      *
      * @param remoteUrl ids endpoint url of the remote connector
      * @param asset name of the asset to agree upon
      */
     @Override
     public EndpointDataReference createAgreement(String remoteUrl, String asset) throws WebApplicationException {
+        CompletableFuture<EndpointDataReference> promise = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<EndpointDataReference> current = negotiations.putIfAbsent(asset, promise);
+            if (current == null) {
+                break;
+            }
+            if (!current.isDone()) {
+                monitor.debug(String.format("Joining the pending negotiation for asset %s", asset));
+                return await(asset, current);
+            }
+            EndpointDataReference reference = get(asset);
+            if (reference != null) {
+                return reference;
+            }
+        }
+
+        EndpointDataReference reference;
+        try {
+            reference = negotiateOnce(remoteUrl, asset);
+        } catch (RuntimeException e) {
+            negotiations.remove(asset, promise);
+            promise.completeExceptionally(e);
+            throw e;
+        }
+        if (reference == null) {
+            negotiations.remove(asset, promise);
+        } else {
+            lastUse.put(asset, System.currentTimeMillis());
+        }
+        promise.complete(reference);
+        return reference;
+    }
+
+    /**
+     * runs the negotiation and persists its outcome. With a shared persistence, the
+     * negotiation is serialized across replicas and the result of another replica is adopted.
+     *
+     * @param remoteUrl ids endpoint url of the remote connector
+     * @param asset name of the asset to agree upon
+     * @return endpoint data reference, null if no valid reference could be obtained
+     * @throws WebApplicationException in case agreement could not be made (in time)
+     */
+    protected EndpointDataReference negotiateOnce(String remoteUrl, String asset) throws WebApplicationException {
+        if (!(persistence instanceof SharedAgreementPersistence)) {
+            try {
+                return negotiate(remoteUrl, asset);
+            } finally {
+                persist(asset);
+            }
+        }
+        SharedAgreementPersistence shared = (SharedAgreementPersistence) persistence;
+        EndpointDataReference reference = adoptShared(shared, asset);
+        if (reference != null) {
+            return reference;
+        }
+        SharedAgreementPersistence.AssetLock lock;
+        try {
+            lock = shared.lock(asset, config.getNegotiationTimeout() * 3);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException(String.format("Waiting for the shared negotiation lock of asset %s has been interrupted.", asset), e);
+        }
+        if (lock == null) {
+            monitor.warning(String.format("Could not acquire the shared negotiation lock of asset %s in time. Negotiating without it.", asset));
+            try {
+                return negotiate(remoteUrl, asset);
+            } finally {
+                persist(asset);
+            }
+        }
+        try (lock) {
+            // another replica may have finished while we were waiting
+            reference = adoptShared(shared, asset);
+            if (reference != null) {
+                return reference;
+            }
+            try {
+                return negotiate(remoteUrl, asset);
+            } finally {
+                persist(asset);
+            }
+        }
+    }
+
+    /**
+     * adopts the endpoint reference of an asset which has been obtained by another replica
+     *
+     * @param shared the shared persistence
+     * @param asset  name of the asset
+     * @return endpoint data reference, null if there is no valid one
+     */
+    protected EndpointDataReference adoptShared(SharedAgreementPersistence shared, String asset) {
+        AgreementPersistence.AgreementRecord record = shared.lookup(asset);
+        if (record != null && adopt(record)) {
+            monitor.debug(String.format("Adopted the endpoint reference for asset %s from the shared agreement store", asset));
+            return endpointStore.get(asset).getReference();
+        }
+        return null;
+    }
+
+    /**
+     * installs the endpoint reference of a transfer whose callback has been received by another replica
+     *
+     * @param asset      name of the asset
+     * @param transferId id of the transfer process
+     * @return whether the reference has been installed
+     */
+    protected boolean adoptPublished(String asset, String transferId) {
+        if (!(persistence instanceof SharedAgreementPersistence)) {
+            return false;
+        }
+        AgreementPersistence.AgreementRecord record = ((SharedAgreementPersistence) persistence).lookup(asset);
+        if (record == null || record.getReference() == null || !transferId.equals(record.getReference().getId())) {
+            return false;
+        }
+        monitor.debug(String.format("Adopted the endpoint reference of transfer %s for asset %s from another replica", transferId, asset));
+        endpointStore.put(asset, activate(asset, record.getReference()));
+        return true;
+    }
+
+    /**
+     * waits for a negotiation which is run by another caller
+     *
+     * @param asset       name of the asset to agree upon
+     * @param negotiation pending negotiation
+     * @return endpoint data reference, null if the negotiation did not result in an endpoint
+     * @throws WebApplicationException in case the negotiation failed
+     */
+    protected EndpointDataReference await(String asset, CompletableFuture<EndpointDataReference> negotiation) throws WebApplicationException {
+        try {
+            return negotiation.get(config.getNegotiationTimeout() * 3, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WebApplicationException) {
+                throw (WebApplicationException) e.getCause();
+            }
+            throw new InternalServerErrorException(String.format("Pending negotiation for asset %s failed.", asset), e.getCause());
+        } catch (TimeoutException e) {
+            throw new InternalServerErrorException(String.format("Pending negotiation for asset %s did not finish in time.", asset), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException(String.format("Waiting for the pending negotiation for asset %s has been interrupted.", asset), e);
+        }
+    }
+
+    /**
+     * runs the actual negotiation and transfer
+     * TODO make this federation aware: multiple assets, different policies
+     *
+     * @param remoteUrl ids endpoint url of the remote connector
+     * @param asset name of the asset to agree upon
+     * @return endpoint data reference, null if no valid reference could be obtained
+     * @throws WebApplicationException in case agreement could not be made (in time)
+     */
+    protected EndpointDataReference negotiate(String remoteUrl, String asset) throws WebApplicationException {
         monitor.debug(String.format("About to create an agreement for asset %s at connector %s", asset, remoteUrl));
 
-        activate(asset);
+        // forget about outdated references
+        endpointStore.remove(asset);
+
+        // an agreement which we made before (with the same connector) only needs a new transfer
+        ContractAgreement existingAgreement = remoteUrl.equals(remoteUrls.get(asset)) ? agreementStore.get(asset) : null;
+        Map<String, JsonValue> existingProperties = propertiesStore.get(asset);
+        if (existingAgreement != null && existingProperties != null && isReusable(existingAgreement)) {
+            EndpointDataReference reference = reuseAgreement(remoteUrl, asset, existingAgreement, existingProperties);
+            if (reference != null) {
+                return reference;
+            }
+        }
 
         DcatCatalog contractOffers;
 
@@ -267,12 +986,28 @@ public class AgreementControllerImpl implements AgreementController {
             throw new BadRequestException(String.format("There is no contract offer in remote connector %s related to asset %s.", remoteUrl, asset));
         }
 
-        // TODO implement a cost-based offer choice
-        DcatDataset contractOffer = contractOffers.getDatasets().get(0);
+        OfferRanking.Selection selection = offerRanking.select(contractOffers.getDatasets(), contractOffers.getParticipantId());
+        if (selection == null) {
+            deactivate(asset);
+            throw new BadRequestException(String.format("There is no contract policy in remote connector %s related to asset %s.", remoteUrl, asset));
+        }
+        DcatDataset contractOffer = selection.getOffer().getDataset();
         Map<String, JsonValue> assetProperties = DataspaceSynchronizer.getProperties(contractOffer);
-        OdrlPolicy policy = contractOffer.hasPolicy();
+        OdrlPolicy policy = selection.getOffer().getPolicy();
         String offerId = policy.getId();
+        monitor.debug(String.format("Strategy %s selected contract offer %s among %d offers for asset %s at connector %s", selection.getStrategy(), offerId,
+                selection.getCandidates(), asset, remoteUrl));
         JsonValue offerType = assetProperties.get("http://www.w3.org/1999/02/22-rdf-syntax-ns#type");
+
+        // an agreement which has been made by the control plane (e.g. before a restart) only needs a new transfer
+        existingAgreement = findAgreement(asset, contractOffers.getParticipantId());
+        if (existingAgreement != null) {
+            EndpointDataReference reference = reuseAgreement(remoteUrl, asset, existingAgreement, assetProperties);
+            if (reference != null) {
+                return reference;
+            }
+        }
+
         monitor.debug(String.format("About to create an agreement for contract offer %s (for asset %s of type %s at connector %s)", offerId, asset,
                 offerType, remoteUrl));
 
@@ -288,6 +1023,9 @@ public class AgreementControllerImpl implements AgreementController {
                 .protocol("dataspace-protocol-http")
                 .localBusinessPartnerNumber(config.getBusinessPartnerNumber())
                 .remoteBusinessPartnerNumber(contractOffers.getParticipantId())
+                .callbackAddresses(List.of(
+                        createCallbackAddress(NEGOTIATION_FINALIZED_PATH, "contract.negotiation.finalized"),
+                        createCallbackAddress(NEGOTIATION_TERMINATED_PATH, "contract.negotiation.terminated")))
                 .build();
         String negotiationId;
 
@@ -303,25 +1041,25 @@ public class AgreementControllerImpl implements AgreementController {
         // Check negotiation state
         ContractNegotiation negotiation = null;
 
-        long startTime = System.currentTimeMillis();
+        CompletableFuture<ContractNegotiation> negotiationEvent = new CompletableFuture<>();
+        negotiationEvents.put(negotiationId, negotiationEvent);
 
         try {
-            while ((System.currentTimeMillis() - startTime < config.getNegotiationTimeout()) &&
-                    (negotiation == null ||
-                    (!negotiation.getState().equals("FINALIZED") && !negotiation.getState().equals("TERMINATED")))) {
-                Thread.sleep(config.getNegotiationPollInterval());
-                negotiation = dataManagement.getNegotiation(
-                        negotiationId
-                );
-            }
+            negotiation = awaitEvent(negotiationEvent,
+                    () -> dataManagement.getNegotiation(negotiationId),
+                    status -> status.getState().equals(FINALIZED_STATE) || status.getState().equals(TERMINATED_STATE));
         } catch (InterruptedException e) {
             monitor.info(String.format("Negotiation thread for asset %s negotiation %s has been interrupted. Giving up.", asset, negotiationId), e);
         } catch (IOException e) {
             monitor.warning(String.format("Negotiation thread for asset %s negotiation %s run into problem. Giving up.", asset, negotiationId), e);
+        } finally {
+            negotiationEvents.remove(negotiationId);
         }
 
-        if (negotiation == null || !negotiation.getState().equals("FINALIZED")) {
+        if (negotiation == null || !negotiation.getState().equals(FINALIZED_STATE)) {
             deactivate(asset);
+            // the offer may have been outdated
+            dataManagement.invalidateContractOffers(remoteUrl, asset);
             if (negotiation != null) {
                 String errorDetail = negotiation.getErrorDetail();
                 if (errorDetail != null) {
@@ -342,19 +1080,104 @@ public class AgreementControllerImpl implements AgreementController {
             throw new InternalServerErrorException(String.format("Error when retrieving agreement %s for negotiation %s.", negotiation.getContractAgreementId(), negotiationId), ioe);
         }
 
-        if (agreement == null || !agreement.getAssetId().endsWith(asset)) {
+        if (agreement == null || !asset.equals(agreement.getAssetId())) {
             deactivate(asset);
             throw new InternalServerErrorException(String.format("Agreement %s does not refer to asset %s.", negotiation.getContractAgreementId(), asset));
         }
 
         registerAgreement(asset, agreement);
+        propertiesStore.put(asset, assetProperties);
+        remoteUrls.put(asset, remoteUrl);
+
+        EndpointDataReference reference;
+        try {
+            reference = startTransfer(remoteUrl, asset, agreement, assetProperties);
+        } catch (WebApplicationException e) {
+            deactivate(asset);
+            throw e;
+        }
+        if (reference == null) {
+            deactivate(asset);
+        }
+        return reference;
+    }
+
+    /**
+     * checks whether an agreement is recent enough to be reused for new transfers
+     *
+     * @param agreement contract agreement
+     * @return whether the agreement is still valid
+     */
+    protected boolean isReusable(ContractAgreement agreement) {
+        // signing dates are in seconds
+        return agreement.getContractSigningDate() * 1000 + config.getAgreementValidity() > System.currentTimeMillis();
+    }
+
+    /**
+     * looks up the most recent reusable agreement for an asset at the control plane
+     *
+     * @param asset       name of the asset
+     * @param participant id of the providing connector
+     * @return agreement, null if there is none
+     */
+    protected ContractAgreement findAgreement(String asset, String participant) {
+        try {
+            return dataManagement.findAgreements(asset, participant).stream()
+                    .filter(agreement -> asset.equals(agreement.getAssetId()))
+                    .filter(agreement -> participant.equals(agreement.getProviderId()))
+                    .filter(this::isReusable)
+                    .max(Comparator.comparingLong(ContractAgreement::getContractSigningDate))
+                    .orElse(null);
+        } catch (IOException | RuntimeException e) {
+            monitor.warning(String.format("Could not lookup existing agreements for asset %s because of %s. Negotiating a new one.", asset, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * tries to obtain an endpoint reference under an existing agreement
+     *
+     * @param remoteUrl       ids endpoint url of the remote connector
+     * @param asset           name of the agreed asset
+     * @param agreement       the existing contract agreement
+     * @param assetProperties properties of the asset to mark in the endpoint reference
+     * @return endpoint data reference, null if the agreement could not be used
+     */
+    protected EndpointDataReference reuseAgreement(String remoteUrl, String asset, ContractAgreement agreement, Map<String, JsonValue> assetProperties) {
+        monitor.debug(String.format("About to reuse agreement %s for asset %s at connector %s", agreement.getId(), asset, remoteUrl));
+        registerAgreement(asset, agreement);
+        propertiesStore.put(asset, assetProperties);
+        remoteUrls.put(asset, remoteUrl);
+        try {
+            EndpointDataReference reference = startTransfer(remoteUrl, asset, agreement, assetProperties);
+            if (reference != null) {
+                return reference;
+            }
+        } catch (WebApplicationException e) {
+            monitor.warning(String.format("Transfer under existing agreement %s for asset %s failed because of %s. Negotiating a new one.", agreement.getId(), asset, e.getMessage()));
+        }
+        deactivate(asset);
+        return null;
+    }
 
+    /**
+     * starts a transfer under an existing agreement and waits for the resulting endpoint reference
+     *
+     * @param remoteUrl       ids endpoint url of the remote connector
+     * @param asset           name of the agreed asset
+     * @param agreement       the contract agreement for the asset
+     * @param assetProperties properties of the asset to mark in the endpoint reference
+     * @return endpoint data reference, null if no valid reference could be obtained
+     * @throws WebApplicationException in case the transfer could not be started (in time)
+     */
+    protected EndpointDataReference startTransfer(String remoteUrl, String asset, ContractAgreement agreement, Map<String, JsonValue> assetProperties) throws WebApplicationException {
         DataAddress dataDestination = DataAddress.Builder.newInstance()
                 .type(TRANSFER_TYPE)
                 .build();
 
-        CallbackAddress address =
-                CallbackAddress.Builder.newInstance().uri(config.getCallbackEndpoint()).build();
+        List<CallbackAddress> addresses = List.of(
+                createCallbackAddress(null, "transfer.process.started"),
+                createCallbackAddress(TRANSFER_TERMINATED_PATH, "transfer.process.terminated"));
 
         TransferRequest transferRequest = TransferRequest.Builder.newInstance()
                 .assetId(asset)
@@ -364,78 +1187,74 @@ public class AgreementControllerImpl implements AgreementController {
                 .protocol("dataspace-protocol-http")
                 .dataDestination(dataDestination)
                 .managedResources(false)
-                .callbackAddresses(List.of(address))
+                .callbackAddresses(addresses)
                 .build();
 
-        monitor.debug(String.format("About to initiate transfer for agreement %s (for asset %s at connector %s)", negotiation.getContractAgreementId(), asset, remoteUrl));
+        monitor.debug(String.format("About to initiate transfer for agreement %s (for asset %s at connector %s)", agreement.getId(), asset, remoteUrl));
 
+        // the reference which is going to be replaced by this transfer
+        ActiveEndpoint previous = endpointStore.get(asset);
         String transferId;
         TransferProcess process;
 
         try {
-            synchronized (processStore) {
-                transferId = dataManagement.initiateHttpProxyTransferProcess(transferRequest);
-                process = new TransferProcess(Json.createObjectBuilder().add("@id", transferId).add("https://w3id.org/edc/v0.0.1/ns/state", "UNINITIALIZED").build());
-                registerProcess(asset, process);
-            }
+            transferId = dataManagement.initiateHttpProxyTransferProcess(transferRequest);
+            process = createTransferProcess(transferId, "UNINITIALIZED");
         } catch (IOException ioe) {
-            deactivate(asset);
             throw new InternalServerErrorException(String.format("HttpProxy transfer for agreement %s could not be initiated.", agreement.getId()), ioe);
         }
 
         monitor.debug(String.format("About to check transfer %s (for asset %s at connector %s)", transferId, asset, remoteUrl));
 
-        // Check negotiation state
-        startTime = System.currentTimeMillis();
-
-        // EDC 0.5.1 has a problem with the checker configuration and wont process to COMPLETED
-        String expectedTransferState = "STARTED";
+        CompletableFuture<TransferProcess> transferEvent = new CompletableFuture<>();
+        transferEvents.put(transferId, transferEvent);
+        ActiveEndpoint endpoint = null;
 
         try {
-            while ((System.currentTimeMillis() - startTime < config.getNegotiationTimeout()) && (process == null || !process.getState().equals(expectedTransferState))) {
-                Thread.sleep(config.getNegotiationPollInterval());
-                process = dataManagement.getTransfer(
-                        transferId
-                );
-                registerProcess(asset, process);
+            // Check transfer state
+            TransferProcess status = awaitEvent(transferEvent,
+                    () -> dataManagement.getTransfer(transferId),
+                    current -> current.getState().equals(STARTED_STATE) || current.getState().equals(TERMINATED_STATE));
+            if (status != null) {
+                process = status;
+            }
+
+            if (process.getState().equals(STARTED_STATE)) {
+                // finally wait a bit for the endpoint data reference in case
+                // that the process was signalled earlier than the callbacks
+                endpoint = endpointStore.get(asset);
+                if (endpoint == null || endpoint == previous) {
+                    final TransferProcess startedProcess = process;
+                    awaitEvent(transferEvent, () -> endpointStore.get(asset) != previous || adoptPublished(asset, transferId) ? startedProcess : null, current -> true);
+                    endpoint = endpointStore.get(asset);
+                }
             }
         } catch (InterruptedException e) {
             monitor.info(String.format("Process thread for asset %s transfer %s has been interrupted. Giving up.", asset, transferId), e);
         } catch (IOException e) {
             monitor.warning(String.format("Process thread for asset %s transfer %s run into problem. Giving up.", asset, transferId), e);
+        } finally {
+            transferEvents.remove(transferId);
         }
 
-        if (process == null || !process.getState().equals(expectedTransferState)) {
-            deactivate(asset);
+        if (!process.getState().equals(STARTED_STATE)) {
             throw new InternalServerErrorException(String.format("Transfer process %s for agreement %s and asset %s could not be provisioned.", transferId, agreement.getId(), asset));
         }
 
-        // finally wait a bit for the endpoint data reference in case
-        // that the process was signalled earlier than the callbacks
-        startTime = System.currentTimeMillis();
-
-        EndpointDataReference reference = null;
-
-        try {
-            while ((System.currentTimeMillis() - startTime < config.getNegotiationTimeout()) && (reference == null)) {
-                Thread.sleep(config.getNegotiationPollInterval());
-                synchronized (endpointStore) {
-                    reference = endpointStore.get(asset);
-                }
-            }
-        } catch (InterruptedException e) {
-            monitor.info(String.format("Wait thread for reference to asset %s has been interrupted. Giving up.", asset), e);
-        }
+        registerProcess(asset, process);
 
         // mark the type in the endpoint
-        if (reference != null) {
+        if (endpoint != null && endpoint != previous) {
             for (Map.Entry<String, JsonValue> prop : assetProperties.entrySet()) {
-                reference.getProperties().put(prop.getKey(), JsonLd.asString(prop.getValue()));
+                endpoint.getReference().getProperties().put(prop.getKey(), JsonLd.asString(prop.getValue()));
+            }
+            if (endpoint.isValid(System.currentTimeMillis())) {
+                return endpoint.getReference();
             }
         }
 
-        // now delegate to the original getter
-        return get(asset);
+        monitor.debug(String.format("Transfer %s for asset %s did not result in a valid endpoint reference.", transferId, asset));
+        return null;
     }
 
 }
@@ -0,0 +1,100 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc;
+
+import jakarta.json.JsonValue;
+import org.eclipse.edc.spi.types.domain.edr.EndpointDataReference;
+import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * interface to a persistence layer for agreements and endpoint references
+ * which allows the agreement controller to survive restarts
+ */
+public interface AgreementPersistence {
+
+    /**
+     * the persisted state of an agreed asset
+     */
+    class AgreementRecord {
+        protected final String asset;
+        protected final String remoteUrl;
+        protected final ContractAgreement agreement;
+        protected final Map<String, JsonValue> assetProperties;
+        protected final EndpointDataReference reference;
+
+        /**
+         * creates a new record
+         *
+         * @param asset           name of the agreed asset
+         * @param remoteUrl       ids endpoint url of the remote connector, null if unknown
+         * @param agreement       contract agreement, null if only an endpoint reference is known so far
+         * @param assetProperties offered asset properties
+         * @param reference       endpoint reference, null if there is no active transfer
+         */
+        public AgreementRecord(String asset, String remoteUrl, ContractAgreement agreement, Map<String, JsonValue> assetProperties, EndpointDataReference reference) {
+            this.asset = asset;
+            this.remoteUrl = remoteUrl;
+            this.agreement = agreement;
+            this.assetProperties = assetProperties;
+            this.reference = reference;
+        }
+
+        public String getAsset() {
+            return asset;
+        }
+
+        public String getRemoteUrl() {
+            return remoteUrl;
+        }
+
+        public ContractAgreement getAgreement() {
+            return agreement;
+        }
+
+        public Map<String, JsonValue> getAssetProperties() {
+            return assetProperties;
+        }
+
+        public EndpointDataReference getReference() {
+            return reference;
+        }
+    }
+
+    /**
+     * stores (or replaces) the state of an agreed asset
+     *
+     * @param record state of the asset
+     */
+    void store(AgreementRecord record);
+
+    /**
+     * forgets about an asset
+     *
+     * @param asset name of the asset
+     */
+    void remove(String asset);
+
+    /**
+     * loads all persisted records
+     *
+     * @return collection of records
+     */
+    Collection<AgreementRecord> load();
+}
@@ -0,0 +1,68 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * interface to an agreement persistence which is shared
+ * between several replicas of the agent plane, such that
+ * agreements and endpoint references are negotiated only once
+ */
+public interface SharedAgreementPersistence extends AgreementPersistence {
+
+    /**
+     * a lock on an asset which is held across replicas
+     */
+    interface AssetLock extends AutoCloseable {
+        /**
+         * releases the lock
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * reads the current state of an asset as stored by any replica
+     *
+     * @param asset name of the asset
+     * @return record, null if the asset is unknown
+     */
+    AgreementRecord lookup(String asset);
+
+    /**
+     * merges a change into the state of an asset as stored by any replica.
+     * Updates are serialized across replicas by a short-lived per-asset record lock,
+     * which is independent of the negotiation lock such that callbacks
+     * can be recorded while a negotiation is running.
+     *
+     * @param asset name of the asset
+     * @param merge computes the new state from the stored one (null if unknown), returns null to forget the asset
+     * @return the new state, null if the asset has been forgotten or the update failed
+     */
+    AgreementRecord update(String asset, UnaryOperator<AgreementRecord> merge);
+
+    /**
+     * acquires the lock of an asset, waiting for other replicas to release it
+     *
+     * @param asset   name of the asset
+     * @param timeout maximal number of milliseconds to wait
+     * @return the lock, null if it could not be acquired in time
+     * @throws InterruptedException if waiting was interrupted
+     */
+    AssetLock lock(String asset, long timeout) throws InterruptedException;
+}
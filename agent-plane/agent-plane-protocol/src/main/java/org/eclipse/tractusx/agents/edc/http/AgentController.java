@@ -16,27 +16,44 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.eclipse.tractusx.agents.edc.http;
 
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObjectBuilder;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import org.apache.http.HttpStatus;
+import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.sparql.core.Quad;
 import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.tractusx.agents.edc.AgentConfig;
 import org.eclipse.tractusx.agents.edc.AgreementController;
 import org.eclipse.tractusx.agents.edc.SkillDistribution;
 import org.eclipse.tractusx.agents.edc.SkillStore;
+import org.eclipse.tractusx.agents.edc.rdf.ExternalFormat;
+import org.eclipse.tractusx.agents.edc.rdf.GraphStatistics;
+import org.eclipse.tractusx.agents.edc.rdf.RdfStore;
+import org.eclipse.tractusx.agents.edc.service.DataspaceSynchronizer;
 import org.eclipse.tractusx.agents.edc.sparql.SparqlQueryProcessor;
 
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 
@@ -61,7 +78,10 @@ public class AgentController {
     // the actual Matchmaking Agent is a Fuseki engine
     protected final SparqlQueryProcessor processor;
     protected final DelegationService delegationService;
-
+    // the local graph assets, maybe null
+    protected final RdfStore rdfStore;
+    // the dataspace synchronization, maybe null
+    protected final DataspaceSynchronizer synchronizer;
 
     /**
      * creates a new agent controller
@@ -72,12 +92,47 @@ public class AgentController {
      * @param processor           sparql processor
      */
     public AgentController(Monitor monitor, AgreementController agreementController, AgentConfig config, SparqlQueryProcessor processor, SkillStore skillStore, DelegationService delegationService) {
+        this(monitor, agreementController, config, processor, skillStore, delegationService, null);
+    }
+
+    /**
+     * creates a new agent controller which also manages graph assets
+     *
+     * @param monitor             logging subsystem
+     * @param agreementController agreement controller for remote skill/queries
+     * @param config              configuration
+     * @param processor           sparql processor
+     * @param skillStore          store for skills
+     * @param delegationService   delegation to remote agents
+     * @param rdfStore            store for graph assets, maybe null
+     */
+    public AgentController(Monitor monitor, AgreementController agreementController, AgentConfig config, SparqlQueryProcessor processor, SkillStore skillStore,
+                           DelegationService delegationService, RdfStore rdfStore) {
+        this(monitor, agreementController, config, processor, skillStore, delegationService, rdfStore, null);
+    }
+
+    /**
+     * creates a new agent controller which also manages graph assets and reports the dataspace synchronization
+     *
+     * @param monitor             logging subsystem
+     * @param agreementController agreement controller for remote skill/queries
+     * @param config              configuration
+     * @param processor           sparql processor
+     * @param skillStore          store for skills
+     * @param delegationService   delegation to remote agents
+     * @param rdfStore            store for graph assets, maybe null
+     * @param synchronizer        dataspace synchronization, maybe null
+     */
+    public AgentController(Monitor monitor, AgreementController agreementController, AgentConfig config, SparqlQueryProcessor processor, SkillStore skillStore,
+                           DelegationService delegationService, RdfStore rdfStore, DataspaceSynchronizer synchronizer) {
         this.monitor = monitor;
         this.agreementController = agreementController;
         this.config = config;
         this.processor = processor;
         this.skillStore = skillStore;
         this.delegationService = delegationService;
+        this.rdfStore = rdfStore;
+        this.synchronizer = synchronizer;
     }
 
     /**
@@ -210,14 +265,16 @@ public class AgentController {
     @GET
     @Path("/rest/repositories/AGENT/size")
     public Response getRestRepositorySizeQuery(
-            @Context HttpServletRequest request
+            @Context HttpServletRequest request,
+            @QueryParam("context") List<String> contexts
     ) {
         monitor.debug(String.format("Received a GET rest repository size request %s", request));
-        return Response.ok("{\n" +
-                "    \"inferred\": 70,\n" +
-                "    \"total\": 70,\n" +
-                "    \"explicit\": 0\n" +
-                "}").type(jakarta.ws.rs.core.MediaType.APPLICATION_JSON_TYPE).build();
+        long size = getRepositorySize(contexts);
+        return Response.ok(Json.createObjectBuilder()
+                .add("inferred", 0)
+                .add("total", size)
+                .add("explicit", size)
+                .build().toString()).type(jakarta.ws.rs.core.MediaType.APPLICATION_JSON_TYPE).build();
     }
 
     /**
@@ -228,10 +285,36 @@ public class AgentController {
     @GET
     @Path("/repositories/AGENT/size")
     public Response getRepositorySizeQuery(
-            @Context HttpServletRequest request
+            @Context HttpServletRequest request,
+            @QueryParam("context") List<String> contexts
     ) {
         monitor.debug(String.format("Received a GET repository size request %s", request));
-        return Response.ok("0").type(jakarta.ws.rs.core.MediaType.APPLICATION_JSON_TYPE).build();
+        return Response.ok(String.valueOf(getRepositorySize(contexts))).type(jakarta.ws.rs.core.MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * looks up the size of the repository in the statistics of the store
+     *
+     * @param contexts graphs to count (encoded as iris in angle brackets or null for the default graph), all graphs if empty
+     * @return number of triples
+     */
+    protected long getRepositorySize(List<String> contexts) {
+        if (rdfStore == null) {
+            return 0;
+        }
+        GraphStatistics statistics = rdfStore.getStatistics();
+        if (contexts == null || contexts.isEmpty()) {
+            return statistics.getTotal();
+        }
+        long size = 0;
+        for (String context : contexts) {
+            if ("null".equals(context)) {
+                size += statistics.getTriples(Quad.defaultGraphIRI);
+            } else {
+                size += statistics.getTriples(NodeFactory.createURI(context.replaceAll("^<|>$", "")));
+            }
+        }
+        return size;
     }
 
     /**
@@ -419,7 +502,12 @@ public class AgentController {
             // kind of redundant, but javax.ws.rs likes it this way
             return Response.status(response.getStatus()).build();
         } catch (WebApplicationException e) {
-            return HttpUtils.respond(monitor, headers, e.getResponse().getStatus(), e.getMessage(), e.getCause());
+            Response failure = HttpUtils.respond(monitor, headers, e.getResponse().getStatus(), e.getMessage(), e.getCause());
+            String retryAfter = e.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                return Response.fromResponse(failure).header(HttpHeaders.RETRY_AFTER, retryAfter).build();
+            }
+            return failure;
         }
     }
 
@@ -482,4 +570,194 @@ public class AgentController {
         }
         return rb.build();
     }
+
+    /**
+     * endpoint for replacing a graph asset. The body is streamed into the store
+     * and the old content is swapped for the new one atomically.
+     *
+     * @param asset   graph asset
+     * @param headers request headers (determining the format)
+     * @param content body stream in turtle, n-triples or csv
+     * @return json with triple count and load time
+     */
+    @PUT
+    @Path("/graph")
+    @Consumes({ "text/turtle", "application/n-triples", "text/csv" })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public Response putGraph(@QueryParam("asset") String asset, @Context HttpHeaders headers, InputStream content) {
+        monitor.debug(String.format("Received a PUT graph request %s", asset));
+        return loadGraph(asset, headers, content, true);
+    }
+
+    /**
+     * endpoint for extending a graph asset. The body is streamed into the store.
+     *
+     * @param asset   graph asset
+     * @param headers request headers (determining the format)
+     * @param content body stream in turtle, n-triples or csv
+     * @return json with triple count and load time
+     */
+    @POST
+    @Path("/graph")
+    @Consumes({ "text/turtle", "application/n-triples", "text/csv" })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public Response postGraph(@QueryParam("asset") String asset, @Context HttpHeaders headers, InputStream content) {
+        monitor.debug(String.format("Received a POST graph request %s", asset));
+        return loadGraph(asset, headers, content, false);
+    }
+
+    /**
+     * endpoint for deleting a graph asset
+     *
+     * @param asset graph asset
+     * @return json with triple count and delete time
+     */
+    @DELETE
+    @Path("/graph")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public Response deleteGraph(@QueryParam("asset") String asset) {
+        monitor.debug(String.format("Received a DELETE graph request %s", asset));
+        Response failure = checkGraphStore(asset);
+        if (failure != null) {
+            return failure;
+        }
+        long start = System.currentTimeMillis();
+        long triples = rdfStore.deleteAsset(asset);
+        return graphResponse(asset, triples, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * readiness probe reporting the loading progress of the graph store
+     *
+     * @return 200 if ready, 503 (with retry hint) while loading or if loading has failed
+     */
+    @GET
+    @Path("/readiness")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public Response getReadiness() {
+        if (rdfStore == null) {
+            return Response.status(HttpStatus.SC_NOT_IMPLEMENTED).build();
+        }
+        String[] assetFiles = config.getAssetFiles();
+        JsonObjectBuilder readiness = Json.createObjectBuilder()
+                .add("state", rdfStore.getLoadingState().name())
+                .add("filesParsed", rdfStore.getFilesParsed())
+                .add("files", assetFiles != null ? assetFiles.length : 0)
+                .add("tuplesParsed", rdfStore.getTuplesParsed())
+                .add("millis", rdfStore.getLoadingMillis());
+        if (rdfStore.getLoadingFailure() != null) {
+            readiness.add("failure", rdfStore.getLoadingFailure());
+        }
+        Response.ResponseBuilder response = Response.status(rdfStore.isReady() ? HttpStatus.SC_OK : HttpStatus.SC_SERVICE_UNAVAILABLE)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(readiness.build().toString());
+        if (rdfStore.getLoadingState() == RdfStore.LoadingState.LOADING) {
+            response.header(HttpHeaders.RETRY_AFTER, RdfStore.RETRY_AFTER_SECONDS);
+        }
+        return response.build();
+    }
+
+    /**
+     * reports the freshness of the synchronized catalogues
+     *
+     * @return json document with a record per connector
+     */
+    @GET
+    @Path("/synchronization")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public Response getFreshness() {
+        if (synchronizer == null) {
+            return Response.status(HttpStatus.SC_NOT_IMPLEMENTED).build();
+        }
+        long now = System.currentTimeMillis();
+        JsonArrayBuilder connectors = Json.createArrayBuilder();
+        synchronizer.getConnectorStates().values().forEach(state -> {
+            DataspaceSynchronizer.Freshness freshness = state.getFreshness();
+            JsonObjectBuilder connector = Json.createObjectBuilder()
+                    .add("partnerId", freshness.getPartnerId())
+                    .add("url", freshness.getUrl())
+                    .add("lastSuccess", freshness.getLastSuccess())
+                    .add("age", freshness.getLastSuccess() > 0 ? now - freshness.getLastSuccess() : -1)
+                    .add("lastError", freshness.getLastError())
+                    .add("failures", freshness.getFailures())
+                    .add("offers", freshness.getOfferCount())
+                    .add("facts", freshness.getFactCount())
+                    .add("nextRun", freshness.getNextRun());
+            if (freshness.getLastErrorMessage() != null) {
+                connector.add("lastErrorMessage", freshness.getLastErrorMessage());
+            }
+            connectors.add(connector);
+        });
+        return Response.ok(Json.createObjectBuilder().add("connectors", connectors).build().toString()).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * streams a graph asset into the store
+     *
+     * @param asset   graph asset
+     * @param headers request headers
+     * @param content body stream
+     * @param replace whether the existing graph is replaced
+     * @return response
+     */
+    protected Response loadGraph(String asset, HttpHeaders headers, InputStream content, boolean replace) {
+        Response failure = checkGraphStore(asset);
+        if (failure != null) {
+            return failure;
+        }
+        MediaType mediaType = headers.getMediaType();
+        ExternalFormat format = mediaType != null ? ExternalFormat.valueOfFormat(mediaType.getType() + "/" + mediaType.getSubtype()) : null;
+        if (format == null) {
+            return Response.status(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long triples = replace ? rdfStore.replaceAsset(asset, content, format) : rdfStore.registerAsset(asset, content, format);
+            return graphResponse(asset, triples, System.currentTimeMillis() - start);
+        } catch (RiotException e) {
+            monitor.warning(String.format("Could not parse graph asset %s.", asset), e);
+            return Response.status(HttpStatus.SC_BAD_REQUEST).type(MediaType.TEXT_PLAIN).entity(e.getMessage()).build();
+        } catch (UncheckedIOException | RuntimeIOException e) {
+            monitor.warning(String.format("Could not read graph asset %s.", asset), e);
+            return Response.status(HttpStatus.SC_BAD_REQUEST).type(MediaType.TEXT_PLAIN).entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * checks whether a graph request can be served
+     *
+     * @param asset graph asset
+     * @return failure response, null if the request can be served
+     */
+    protected Response checkGraphStore(String asset) {
+        if (rdfStore == null) {
+            return Response.status(HttpStatus.SC_NOT_IMPLEMENTED).build();
+        }
+        if (asset == null || asset.isBlank()) {
+            return Response.status(HttpStatus.SC_BAD_REQUEST).type(MediaType.TEXT_PLAIN).entity("The asset parameter is required.").build();
+        }
+        if (rdfStore.isReservedAsset(asset)) {
+            return Response.status(HttpStatus.SC_CONFLICT).type(MediaType.TEXT_PLAIN).entity(String.format("The graph %s is maintained by the agent and cannot be changed.", asset)).build();
+        }
+        if (!rdfStore.isReady()) {
+            return Response.status(HttpStatus.SC_SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RdfStore.RETRY_AFTER_SECONDS).build();
+        }
+        return null;
+    }
+
+    /**
+     * renders the result of a graph request
+     *
+     * @param asset   graph asset
+     * @param triples number of affected triples
+     * @param millis  duration of the operation
+     * @return response
+     */
+    protected Response graphResponse(String asset, long triples, long millis) {
+        return Response.ok(Json.createObjectBuilder()
+                .add("asset", asset)
+                .add("triples", triples)
+                .add("millis", millis)
+                .build().toString()).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
 }
@@ -229,10 +229,9 @@ public class HttpServletResponseAdapter implements HttpServletResponse {
     }
 
     public Response toResponse() {
-        if (contentType != null) {
-            ResponseBody body = ResponseBody.create(bos.toByteArray(), MediaType.parse(contentType));
-            builder.body(body);
-        }
+        // responses without content (such as errors) still get an empty body, so that callers may close them
+        ResponseBody body = ResponseBody.create(bos.toByteArray(), contentType != null ? MediaType.parse(contentType) : null);
+        builder.body(body);
         return builder.build();
     }
 }
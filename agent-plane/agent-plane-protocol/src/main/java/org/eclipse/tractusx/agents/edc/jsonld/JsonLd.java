@@ -75,6 +75,16 @@ public class JsonLd {
         return new ContractAgreement(processJsonLd(response, null));
     }
 
+    public static List<ContractAgreement> processContractAgreementList(String response) {
+        return processContractAgreementList(Json.createReader(new StringReader(response)).readArray());
+    }
+
+    public static List<ContractAgreement> processContractAgreementList(JsonArray response) {
+        return response.stream().map(responseObject ->
+                new ContractAgreement(processJsonLd(responseObject.asJsonObject(), null))
+        ).collect(Collectors.toList());
+    }
+
     public static TransferProcess processTransferProcess(String response) {
         return processTransferProcess(Json.createReader(new StringReader(response)).readObject());
     }
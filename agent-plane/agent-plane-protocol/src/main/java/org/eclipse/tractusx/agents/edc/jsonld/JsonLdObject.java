@@ -33,6 +33,10 @@ public class JsonLdObject {
         return object;
     }
 
+    public JsonObject asJsonObject() {
+        return object;
+    }
+
     public String getId() {
         return object.getString("@id");
     }
@@ -29,7 +29,11 @@ public class ContractAgreement extends JsonLdObject {
         return object.getString("https://w3id.org/edc/v0.0.1/ns/assetId");
     }
 
+    public String getProviderId() {
+        return object.getString("https://w3id.org/edc/v0.0.1/ns/providerId", null);
+    }
+
     public long getContractSigningDate() {
-        return object.getInt("https://w3id.org/edc/v0.0.1/ns/contractSigningDate");
+        return object.getJsonNumber("https://w3id.org/edc/v0.0.1/ns/contractSigningDate").longValue();
     }
 }
\ No newline at end of file
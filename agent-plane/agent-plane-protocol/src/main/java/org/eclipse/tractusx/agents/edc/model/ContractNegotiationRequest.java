@@ -16,6 +16,11 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.eclipse.tractusx.agents.edc.model;
 
+import org.eclipse.edc.spi.types.domain.callback.CallbackAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+
 public class ContractNegotiationRequest {
 
     private String connectorAddress;
@@ -25,6 +30,7 @@ public class ContractNegotiationRequest {
     private String localBusinessPartnerNumber;
     private String remoteBusinessPartnerNumber;
     private ContractOfferDescription offer;
+    private List<CallbackAddress> callbackAddresses = new ArrayList<>();
 
     private ContractNegotiationRequest() {
     }
@@ -54,6 +60,10 @@ public class ContractNegotiationRequest {
         return offer;
     }
 
+    public List<CallbackAddress> getCallbackAddresses() {
+        return callbackAddresses;
+    }
+
 
     public static final class Builder {
         private final ContractNegotiationRequest dto;
@@ -96,6 +106,11 @@ public class ContractNegotiationRequest {
             return this;
         }
 
+        public Builder callbackAddresses(List<CallbackAddress> callbackAddresses) {
+            dto.callbackAddresses = callbackAddresses;
+            return this;
+        }
+
         public ContractNegotiationRequest build() {
             return dto;
         }
@@ -44,6 +44,15 @@ public class DcatDataset extends JsonLdObject {
         }
     }
 
+    /**
+     * access all policies
+     *
+     * @return list of offered policies, maybe empty
+     */
+    public List<OdrlPolicy> getPolicies() {
+        return policies;
+    }
+
     /**
      * access default policy
      *
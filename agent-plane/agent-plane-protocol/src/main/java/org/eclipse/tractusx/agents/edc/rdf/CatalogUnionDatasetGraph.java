@@ -0,0 +1,306 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.compose.MultiUnion;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.core.DatasetGraphWrapperView;
+import org.apache.jena.sparql.core.Quad;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * a dataset graph which keeps the synchronized catalogue of each
+ * connector in a graph (partition) of its own and exposes the default
+ * graph as a union view of the actual default graph and all partitions.
+ * Writes to the default graph go into the actual default graph.
+ * Partitions are immutable once published and are replaced as a whole
+ * (copy-on-write), so publishing needs no write transaction and each
+ * transaction sees the partitions that were current when it began.
+ * Graph assets may also live in partitions of their own (each backed by
+ * a transactional dataset, so that writes to independent assets do not
+ * serialize on a single lock). These asset partitions are live named graphs
+ * which are not part of the default graph.
+ * As a view, query engines will not bypass it by unwrapping.
+ */
+public class CatalogUnionDatasetGraph extends DatasetGraphWrapper implements DatasetGraphWrapperView {
+
+    /**
+     * the currently published partitions (an immutable map which is replaced on publish)
+     */
+    protected volatile Map<Node, Graph> partitions = Map.of();
+
+    /**
+     * the partitions pinned by the transaction of the current thread
+     */
+    protected final ThreadLocal<Map<Node, Graph>> pinned = new ThreadLocal<>();
+
+    /**
+     * the asset partitions (live graphs which manage their own transactions)
+     */
+    protected final Map<Node, Graph> assetPartitions = new ConcurrentHashMap<>();
+
+    /**
+     * creates a new union view
+     *
+     * @param dataset the underlying dataset graph
+     */
+    public CatalogUnionDatasetGraph(DatasetGraph dataset) {
+        super(dataset);
+    }
+
+    /**
+     * atomically publishes (replaces) a partition
+     *
+     * @param partition name of the graph
+     * @param graph     the new content of the partition which must not be changed afterwards, null to drop the partition
+     */
+    public synchronized void publishPartition(Node partition, Graph graph) {
+        Map<Node, Graph> next = new HashMap<>(partitions);
+        if (graph == null) {
+            next.remove(partition);
+        } else {
+            next.put(partition, graph);
+        }
+        partitions = Map.copyOf(next);
+    }
+
+    /**
+     * atomically publishes (replaces) a partition if it still has the expected content
+     *
+     * @param partition name of the graph
+     * @param expected  the content which is replaced, null if the partition must not be published yet
+     * @param graph     the new content of the partition which must not be changed afterwards, null to drop the partition
+     * @return whether the partition has been published
+     */
+    public synchronized boolean publishPartition(Node partition, Graph expected, Graph graph) {
+        if (partitions.get(partition) != expected) {
+            return false;
+        }
+        publishPartition(partition, graph);
+        return true;
+    }
+
+    /**
+     * publishes the graph of an asset partition
+     *
+     * @param asset name of the graph
+     * @param graph live view of the partition
+     */
+    public void publishAssetPartition(Node asset, Graph graph) {
+        assetPartitions.put(asset, graph);
+    }
+
+    /**
+     * access
+     *
+     * @return the asset partitions
+     */
+    public Map<Node, Graph> getAssetPartitions() {
+        return assetPartitions;
+    }
+
+    /**
+     * access
+     *
+     * @return the partitions visible to the current thread
+     */
+    public Map<Node, Graph> getPartitions() {
+        Map<Node, Graph> current = pinned.get();
+        if (current == null) {
+            return partitions;
+        }
+        return current;
+    }
+
+    /**
+     * access
+     *
+     * @return the actual default graph without the partitions
+     */
+    public Graph getBaseGraph() {
+        return getW().getDefaultGraph();
+    }
+
+    @Override
+    public Graph getDefaultGraph() {
+        Graph base = getBaseGraph();
+        Map<Node, Graph> current = getPartitions();
+        if (current.isEmpty()) {
+            return base;
+        }
+        MultiUnion union = new MultiUnion(new Graph[]{ base });
+        union.setBaseGraph(base);
+        current.values().forEach(union::addGraph);
+        return union;
+    }
+
+    /**
+     * finds the partition (catalogue or asset) hosting a graph
+     *
+     * @param current   the catalogue partitions
+     * @param graphNode name of the graph
+     * @return partition, null if the graph is not partitioned
+     */
+    protected Graph getPartition(Map<Node, Graph> current, Node graphNode) {
+        Graph partition = current.get(graphNode);
+        if (partition != null) {
+            return partition;
+        }
+        return assetPartitions.get(graphNode);
+    }
+
+    @Override
+    public Graph getGraph(Node graphNode) {
+        Graph partition = getPartition(getPartitions(), graphNode);
+        if (partition != null) {
+            return partition;
+        }
+        return super.getGraph(graphNode);
+    }
+
+    @Override
+    public boolean containsGraph(Node graphNode) {
+        return getPartition(getPartitions(), graphNode) != null || super.containsGraph(graphNode);
+    }
+
+    @Override
+    public Iterator<Node> listGraphNodes() {
+        Iterator<Node> assets = Iter.map(Iter.filter(assetPartitions.entrySet().iterator(), entry -> !entry.getValue().isEmpty()), Map.Entry::getKey);
+        return Iter.concat(Iter.concat(getPartitions().keySet().iterator(), assets), super.listGraphNodes());
+    }
+
+    @Override
+    public Iterator<Quad> find(Node g, Node s, Node p, Node o) {
+        Map<Node, Graph> current = getPartitions();
+        if (current.isEmpty() && assetPartitions.isEmpty()) {
+            return super.find(g, s, p, o);
+        }
+        if (g != null && Quad.isDefaultGraph(g)) {
+            return getDefaultGraph().find(s, p, o).mapWith(triple -> Quad.create(Quad.defaultGraphIRI, triple));
+        }
+        if (g == null || g == Node.ANY) {
+            return Iter.concat(super.find(g, s, p, o), Iter.concat(findPartitions(current, s, p, o), findPartitions(assetPartitions, s, p, o)));
+        }
+        Graph partition = getPartition(current, g);
+        if (partition != null) {
+            return findPartition(g, partition, s, p, o);
+        }
+        return super.find(g, s, p, o);
+    }
+
+    @Override
+    public Iterator<Quad> findNG(Node g, Node s, Node p, Node o) {
+        Map<Node, Graph> current = getPartitions();
+        if (current.isEmpty() && assetPartitions.isEmpty()) {
+            return super.findNG(g, s, p, o);
+        }
+        if (g == null || g == Node.ANY) {
+            return Iter.concat(super.findNG(g, s, p, o), Iter.concat(findPartitions(current, s, p, o), findPartitions(assetPartitions, s, p, o)));
+        }
+        Graph partition = getPartition(current, g);
+        if (partition != null) {
+            return findPartition(g, partition, s, p, o);
+        }
+        return super.findNG(g, s, p, o);
+    }
+
+    @Override
+    public Iterator<Quad> find(Quad quad) {
+        return find(quad.getGraph(), quad.getSubject(), quad.getPredicate(), quad.getObject());
+    }
+
+    @Override
+    public boolean contains(Node g, Node s, Node p, Node o) {
+        return find(g, s, p, o).hasNext();
+    }
+
+    @Override
+    public boolean contains(Quad quad) {
+        return contains(quad.getGraph(), quad.getSubject(), quad.getPredicate(), quad.getObject());
+    }
+
+    /**
+     * finds quads in all partitions
+     *
+     * @param current the partitions to search
+     * @param s       subject pattern
+     * @param p       predicate pattern
+     * @param o       object pattern
+     * @return quads found
+     */
+    protected Iterator<Quad> findPartitions(Map<Node, Graph> current, Node s, Node p, Node o) {
+        List<Iterator<Quad>> results = new ArrayList<>();
+        current.forEach((partition, graph) -> results.add(findPartition(partition, graph, s, p, o)));
+        return Iter.flatMap(results.iterator(), iterator -> iterator);
+    }
+
+    /**
+     * finds quads in a single partition
+     *
+     * @param partition name of the partition
+     * @param graph     content of the partition
+     * @param s         subject pattern
+     * @param p         predicate pattern
+     * @param o         object pattern
+     * @return quads found
+     */
+    protected Iterator<Quad> findPartition(Node partition, Graph graph, Node s, Node p, Node o) {
+        return graph.find(s, p, o).mapWith(triple -> Quad.create(partition, triple));
+    }
+
+    @Override
+    public void begin(TxnType type) {
+        super.begin(type);
+        pinned.set(partitions);
+    }
+
+    @Override
+    public void begin(ReadWrite readWrite) {
+        super.begin(readWrite);
+        pinned.set(partitions);
+    }
+
+    @Override
+    public void commit() {
+        super.commit();
+        pinned.remove();
+    }
+
+    @Override
+    public void abort() {
+        super.abort();
+        pinned.remove();
+    }
+
+    @Override
+    public void end() {
+        super.end();
+        pinned.remove();
+    }
+}
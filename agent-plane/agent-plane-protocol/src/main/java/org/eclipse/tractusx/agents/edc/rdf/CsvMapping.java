@@ -0,0 +1,182 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * maps the records of a csv source to triples. the mapping is declared
+ * once by the header: the first column holds the subject iris, the header
+ * cells of all other columns hold predicate iris, optionally followed
+ * by ^^ and a datatype iri which applies to all unquoted cells of the column.
+ * Cells may be iris (in angle brackets), quoted literals with optional
+ * datatype (^^) or language (@) or plain values. Empty cells are skipped.
+ */
+public class CsvMapping {
+
+    public static final String XSD_PREFIX = "xsd:";
+    public static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema#";
+
+    protected final Node[] predicates;
+    protected final RDFDatatype[] datatypes;
+
+    /**
+     * creates a mapping
+     *
+     * @param header raw cells of the header record
+     */
+    public CsvMapping(List<String> header) {
+        predicates = new Node[header.size()];
+        datatypes = new RDFDatatype[header.size()];
+        for (int column = 1; column < header.size(); column++) {
+            String declaration = unquote(header.get(column).trim());
+            int typeIndex = declaration.lastIndexOf("^^");
+            if (typeIndex > 0) {
+                datatypes[column] = getDatatype(declaration.substring(typeIndex + 2));
+                declaration = declaration.substring(0, typeIndex);
+            }
+            predicates[column] = NodeFactory.createURI(stripBrackets(declaration.trim()));
+        }
+    }
+
+    /**
+     * converts a chunk of records
+     *
+     * @param records raw cells of the records
+     * @return triples
+     */
+    public List<Triple> convert(List<List<String>> records) {
+        List<Triple> triples = new ArrayList<>(records.size() * Math.max(1, predicates.length - 1));
+        for (List<String> record : records) {
+            String subjectCell = unquote(record.get(0).trim());
+            if (subjectCell.isEmpty()) {
+                continue;
+            }
+            Node subject = NodeFactory.createURI(stripBrackets(subjectCell));
+            for (int column = 1; column < record.size() && column < predicates.length; column++) {
+                Node object = parseObject(record.get(column).trim(), datatypes[column]);
+                if (object != null) {
+                    triples.add(Triple.create(subject, predicates[column], object));
+                }
+            }
+        }
+        return triples;
+    }
+
+    /**
+     * parses a cell into a node
+     *
+     * @param cell       raw cell
+     * @param columnType datatype declared for the column, may be null
+     * @return node, null if the cell is empty
+     */
+    protected Node parseObject(String cell, RDFDatatype columnType) {
+        if (cell.isEmpty()) {
+            return null;
+        }
+        if (cell.startsWith("<") && cell.endsWith(">")) {
+            return NodeFactory.createURI(stripBrackets(cell));
+        }
+        if (cell.startsWith("\"")) {
+            int end = findClosingQuote(cell);
+            String lexical = cell.substring(1, end).replace("\"\"", "\"");
+            String suffix = end + 1 < cell.length() ? cell.substring(end + 1).trim() : "";
+            if (suffix.startsWith("^^")) {
+                return NodeFactory.createLiteral(lexical, getDatatype(suffix.substring(2)));
+            }
+            if (suffix.startsWith("@") && suffix.length() > 1) {
+                return NodeFactory.createLiteral(lexical, suffix.substring(1));
+            }
+            if (columnType != null) {
+                return NodeFactory.createLiteral(lexical, columnType);
+            }
+            return NodeFactory.createLiteral(lexical);
+        }
+        if (columnType != null) {
+            return NodeFactory.createLiteral(cell, columnType);
+        }
+        return NodeFactory.createLiteral(cell);
+    }
+
+    /**
+     * finds the quote closing a quoted cell
+     *
+     * @param cell raw cell starting with a quote
+     * @return index of the closing quote (the cell length if it is missing)
+     */
+    protected static int findClosingQuote(String cell) {
+        int position = 1;
+        while (position < cell.length()) {
+            if (cell.charAt(position) == '"') {
+                if (position + 1 < cell.length() && cell.charAt(position + 1) == '"') {
+                    position += 2;
+                    continue;
+                }
+                return position;
+            }
+            position++;
+        }
+        return cell.length();
+    }
+
+    /**
+     * resolves a datatype reference
+     *
+     * @param reference iri (optionally in angle brackets) or xsd-prefixed name
+     * @return datatype
+     */
+    protected static RDFDatatype getDatatype(String reference) {
+        String iri = stripBrackets(reference.trim());
+        if (iri.startsWith(XSD_PREFIX)) {
+            iri = XSD_NAMESPACE + iri.substring(XSD_PREFIX.length());
+        }
+        return TypeMapper.getInstance().getSafeTypeByName(iri);
+    }
+
+    /**
+     * removes surrounding quotes (of a plain quoted cell)
+     *
+     * @param cell raw cell
+     * @return unquoted text
+     */
+    protected static String unquote(String cell) {
+        if (cell.length() > 1 && cell.startsWith("\"") && cell.endsWith("\"")) {
+            return cell.substring(1, cell.length() - 1).replace("\"\"", "\"");
+        }
+        return cell;
+    }
+
+    /**
+     * removes surrounding angle brackets
+     *
+     * @param iri text
+     * @return iri text without brackets
+     */
+    protected static String stripBrackets(String iri) {
+        if (iri.startsWith("<") && iri.endsWith(">")) {
+            return iri.substring(1, iri.length() - 1);
+        }
+        return iri;
+    }
+}
@@ -0,0 +1,120 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a streaming tokenizer for comma-separated values.
+ * cells starting with a double quote may contain separators, line breaks
+ * and doubled quotes. the raw text of each cell (including its quotes and
+ * any suffix behind the closing quote, such as a datatype) is returned.
+ * a quoted cell which is not closed before the end of the input is an error.
+ */
+public class CsvTokenizer {
+
+    protected static final int NONE = -2;
+
+    protected final Reader reader;
+    protected final char separator;
+    protected int pending = NONE;
+
+    /**
+     * creates a new tokenizer
+     *
+     * @param reader    source of the text
+     * @param separator cell separator
+     */
+    public CsvTokenizer(Reader reader, char separator) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader, 1 << 16);
+        this.separator = separator;
+    }
+
+    /**
+     * reads a character
+     *
+     * @return the next character, -1 at the end of the input
+     * @throws IOException if the source cannot be read
+     */
+    protected int read() throws IOException {
+        if (pending != NONE) {
+            int character = pending;
+            pending = NONE;
+            return character;
+        }
+        return reader.read();
+    }
+
+    /**
+     * reads the next record
+     *
+     * @return raw cells of the record, null at the end of the input
+     * @throws IOException if the source cannot be read or ends inside a quoted cell
+     */
+    public List<String> next() throws IOException {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int character = read();
+        while (character != -1) {
+            any = true;
+            if (quoted) {
+                cell.append((char) character);
+                if (character == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        cell.append('"');
+                    } else {
+                        quoted = false;
+                        pending = following;
+                    }
+                }
+            } else if (character == '"' && cell.length() == 0) {
+                quoted = true;
+                cell.append('"');
+            } else if (character == separator) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (character == '\n') {
+                break;
+            } else if (character == '\r') {
+                int following = read();
+                if (following != '\n') {
+                    pending = following;
+                }
+                break;
+            } else {
+                cell.append((char) character);
+            }
+            character = read();
+        }
+        if (!any) {
+            return null;
+        }
+        if (quoted) {
+            throw new EOFException("The input ends inside a quoted cell.");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
@@ -21,6 +21,7 @@ package org.eclipse.tractusx.agents.edc.rdf;
  */
 public enum ExternalFormat {
     TURTLE("text/turtle"),
+    N_TRIPLES("application/n-triples"),
     CSV("text/csv");
 
     private final String contentType;
@@ -57,6 +58,9 @@ public enum ExternalFormat {
             if (contentType.endsWith("turtle")) {
                 return TURTLE;
             }
+            if (contentType.endsWith("n-triples")) {
+                return N_TRIPLES;
+            }
             if (contentType.endsWith("csv")) {
                 return CSV;
             }
@@ -0,0 +1,283 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import jakarta.json.Json;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.apache.jena.vocabulary.RDF;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * exact statistics of the rdf store (triples per graph, triples per predicate
+ * and instances per class) which are maintained incrementally by applying
+ * the changes of committed writes, so that reading them is O(1).
+ */
+public class GraphStatistics {
+
+    /**
+     * the (uncommitted) changes of a writer
+     */
+    public static class Delta {
+        protected final Map<Node, Long> graphs = new HashMap<>();
+        protected final Map<Node, Long> predicates = new HashMap<>();
+        protected final Map<Node, Long> classes = new HashMap<>();
+        protected long total = 0;
+
+        /**
+         * records an added triple
+         *
+         * @param graph  graph of the triple
+         * @param triple the triple
+         */
+        public void add(Node graph, Triple triple) {
+            record(graph, triple.getPredicate(), triple.getObject(), 1);
+        }
+
+        /**
+         * records a deleted triple
+         *
+         * @param graph  graph of the triple
+         * @param triple the triple
+         */
+        public void delete(Node graph, Triple triple) {
+            record(graph, triple.getPredicate(), triple.getObject(), -1);
+        }
+
+        /**
+         * records a change
+         *
+         * @param graph     graph of the triple
+         * @param predicate predicate of the triple
+         * @param object    object of the triple
+         * @param change    1 for an addition, -1 for a deletion
+         */
+        protected void record(Node graph, Node predicate, Node object, long change) {
+            graphs.merge(normalize(graph), change, Long::sum);
+            predicates.merge(predicate, change, Long::sum);
+            if (RDF.type.asNode().equals(predicate)) {
+                classes.merge(object, change, Long::sum);
+            }
+            total += change;
+        }
+
+        /**
+         * access
+         *
+         * @return whether no change has been recorded
+         */
+        public boolean isEmpty() {
+            return graphs.isEmpty();
+        }
+
+        /**
+         * renders the changes
+         *
+         * @return json object with the counters keyed by n-triples nodes
+         */
+        public JsonObject toJson() {
+            return Json.createObjectBuilder()
+                    .add("total", total)
+                    .add("graphs", toJson(graphs))
+                    .add("predicates", toJson(predicates))
+                    .add("classes", toJson(classes))
+                    .build();
+        }
+
+        /**
+         * parses rendered changes
+         *
+         * @param json json object as rendered by {@link #toJson()}
+         * @return changes
+         */
+        public static Delta fromJson(JsonObject json) {
+            Delta delta = new Delta();
+            delta.total = json.getJsonNumber("total").longValue();
+            fromJson(json.getJsonObject("graphs"), delta.graphs);
+            fromJson(json.getJsonObject("predicates"), delta.predicates);
+            fromJson(json.getJsonObject("classes"), delta.classes);
+            return delta;
+        }
+
+        /**
+         * renders counters
+         *
+         * @param counters the counters
+         * @return json object keyed by n-triples nodes
+         */
+        protected static JsonObjectBuilder toJson(Map<Node, Long> counters) {
+            JsonObjectBuilder json = Json.createObjectBuilder();
+            counters.forEach((node, count) -> json.add(NodeFmtLib.strNT(node), count));
+            return json;
+        }
+
+        /**
+         * parses counters
+         *
+         * @param json     json object keyed by n-triples nodes
+         * @param counters the counters to fill
+         */
+        protected static void fromJson(JsonObject json, Map<Node, Long> counters) {
+            json.forEach((node, count) -> counters.put(NodeFactoryExtra.parseNode(node), ((JsonNumber) count).longValue()));
+        }
+
+        /**
+         * forgets all recorded changes
+         */
+        public void reset() {
+            graphs.clear();
+            predicates.clear();
+            classes.clear();
+            total = 0;
+        }
+    }
+
+    protected final AtomicLong total = new AtomicLong();
+    protected final Map<Node, Long> graphs = new ConcurrentHashMap<>();
+    protected final Map<Node, Long> predicates = new ConcurrentHashMap<>();
+    protected final Map<Node, Long> classes = new ConcurrentHashMap<>();
+
+    /**
+     * maps the various names of the default graph to a single one
+     *
+     * @param graph name of a graph
+     * @return normalized name
+     */
+    protected static Node normalize(Node graph) {
+        if (graph == null || Quad.isDefaultGraph(graph)) {
+            return Quad.defaultGraphIRI;
+        }
+        return graph;
+    }
+
+    /**
+     * applies committed changes
+     *
+     * @param delta the changes
+     */
+    public void apply(Delta delta) {
+        delta.graphs.forEach((graph, change) -> merge(graphs, graph, change));
+        delta.predicates.forEach((predicate, change) -> merge(predicates, predicate, change));
+        delta.classes.forEach((clazz, change) -> merge(classes, clazz, change));
+        total.addAndGet(delta.total);
+    }
+
+    /**
+     * access
+     *
+     * @return the current counters as changes against empty statistics
+     */
+    public Delta snapshot() {
+        Delta delta = new Delta();
+        delta.graphs.putAll(graphs);
+        delta.predicates.putAll(predicates);
+        delta.classes.putAll(classes);
+        delta.total = total.get();
+        return delta;
+    }
+
+    /**
+     * applies a change to a counter (dropping counters which reach zero)
+     *
+     * @param counters the counters
+     * @param key      key of the counter
+     * @param change   change of the counter
+     */
+    protected static void merge(Map<Node, Long> counters, Node key, long change) {
+        if (change != 0) {
+            counters.merge(key, change, (count, delta) -> count + delta > 0 ? count + delta : null);
+        }
+    }
+
+    /**
+     * counts the complete content of a dataset (which must be in a transaction)
+     *
+     * @param dataset dataset whose content is not counted yet
+     * @return number of counted tuples
+     */
+    public long count(DatasetGraph dataset) {
+        Delta delta = new Delta();
+        Iterator<Quad> quads = dataset.find(Node.ANY, Node.ANY, Node.ANY, Node.ANY);
+        while (quads.hasNext()) {
+            Quad quad = quads.next();
+            delta.record(quad.getGraph(), quad.getPredicate(), quad.getObject(), 1);
+        }
+        apply(delta);
+        return delta.total;
+    }
+
+    /**
+     * access
+     *
+     * @return number of triples in all graphs
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * access
+     *
+     * @param graph name of the graph
+     * @return number of triples in the graph
+     */
+    public long getTriples(Node graph) {
+        return graphs.getOrDefault(normalize(graph), 0L);
+    }
+
+    /**
+     * access
+     *
+     * @param predicate the predicate
+     * @return number of triples with the predicate
+     */
+    public long getPredicateCount(Node predicate) {
+        return predicates.getOrDefault(predicate, 0L);
+    }
+
+    /**
+     * access
+     *
+     * @param clazz the class
+     * @return number of rdf:type triples with the class
+     */
+    public long getClassCount(Node clazz) {
+        return classes.getOrDefault(clazz, 0L);
+    }
+
+    /**
+     * access
+     *
+     * @return triples by graph
+     */
+    public Map<Node, Long> getGraphs() {
+        return Collections.unmodifiableMap(graphs);
+    }
+}
@@ -16,44 +16,127 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.eclipse.tractusx.agents.edc.rdf;
 
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.fuseki.server.DataAccessPoint;
 import org.apache.jena.fuseki.server.DataService;
+import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.TxnType;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.RDFLanguages;
 import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.CollectorStreamQuads;
 import org.apache.jena.riot.lang.StreamRDFCounting;
 import org.apache.jena.riot.system.ErrorHandler;
 import org.apache.jena.riot.system.ErrorHandlerFactory;
 import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
 import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWriter;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.DatasetGraphFactory;
 import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.engine.main.StageBuilder;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
 import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.tractusx.agents.edc.AgentConfig;
 import org.eclipse.tractusx.agents.edc.MonitorWrapper;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * a service sitting on a local RDF store/graph
  * (which hosts the ontology and the federated dataspace
- * representation)
+ * representation). the initial content may be loaded
+ * in the background, the loading progress can be inspected.
  */
 public class RdfStore {
 
-    // we need a single data access point (with its default graph)
-    protected final DatasetGraph dataset;
+    /**
+     * the state of loading the initial content
+     */
+    public enum LoadingState {
+        LOADING,
+        READY,
+        FAILED
+    }
+
+    /**
+     * number of seconds after which clients should retry while loading
+     */
+    public static final long RETRY_AFTER_SECONDS = 5;
+
+    // we need a single data access point (with its default graph being a union of the catalogue partitions)
+    protected final CatalogUnionDatasetGraph dataset;
+
+    /**
+     * the underlying store (bypassing the recording of statistics for bulk loads)
+     */
+    protected final DatasetGraph store;
+
+    /**
+     * the transactional partitions of the in-memory graph assets
+     */
+    protected final Map<Node, AssetPartition> assetPartitions = new ConcurrentHashMap<>();
+
+    /**
+     * converts the chunks of csv sources (shared by all loads)
+     */
+    protected final int csvParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    protected final ExecutorService csvConverters = Executors.newFixedThreadPool(csvParallelism, runnable -> {
+        Thread thread = new Thread(runnable, "rdf-store-csv-converter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * exact statistics which are maintained by all writes
+     */
+    protected final GraphStatistics statistics = new GraphStatistics();
     protected final DataAccessPoint api;
     protected final DataService service;
     protected final Monitor monitor;
@@ -61,6 +144,36 @@ public class RdfStore {
 
     protected final MonitorWrapper monitorWrapper;
 
+    /**
+     * fingerprint of the configured asset files
+     */
+    protected final String assetFingerprint;
+
+    /**
+     * loading progress
+     */
+    protected volatile LoadingState loadingState = LoadingState.LOADING;
+    protected volatile long loadingStarted;
+    protected volatile long loadingFinished;
+    protected volatile String loadingFailure;
+    protected final AtomicInteger filesParsed = new AtomicInteger();
+    protected final AtomicLong tuplesParsed = new AtomicLong();
+
+    /**
+     * name of the file which records the asset files loaded into a persistent store
+     */
+    public static final String ASSET_FINGERPRINT_FILE = "assets.fingerprint";
+
+    /**
+     * name of the file which records the statistics of a persistent store between clean restarts
+     */
+    public static final String ASSET_STATISTICS_FILE = "assets.statistics";
+
+    /**
+     * suffix of the manifest which accompanies a snapshot
+     */
+    public static final String SNAPSHOT_MANIFEST_SUFFIX = ".manifest";
+
     /**
      * create a new RDF store (and initialise with a given ttl file)
      *
@@ -68,8 +181,22 @@ public class RdfStore {
      * @param monitor logging subsystem
      */
     public RdfStore(AgentConfig config, Monitor monitor) {
+        this(config, monitor, null);
+    }
+
+    /**
+     * create a new RDF store and initialise it in the background
+     *
+     * @param config  EDC config
+     * @param monitor logging subsystem
+     * @param loader  executor to load the initial content with, null if the content should be loaded immediately
+     */
+    public RdfStore(AgentConfig config, Monitor monitor, Executor loader) {
         this.config = config;
-        this.dataset = DatasetGraphFactory.createTxnMem();
+        this.store = createDataset(config, monitor);
+        this.dataset = new CatalogUnionDatasetGraph(new StatisticsDatasetGraph(store, statistics));
+        // the wrappers hide the persistent store from its own optimizer, so both modes use the statistics
+        StageBuilder.setGenerator(dataset.getContext(), new StatisticsStageGenerator(statistics));
 
         DataService.Builder dataService = DataService.newBuilder(dataset);
         this.service = dataService.build();
@@ -78,111 +205,740 @@ public class RdfStore {
         this.monitorWrapper = new MonitorWrapper(getClass().getName(), monitor);
         monitor.debug(String.format("Activating data service %s under access point %s", service, api));
         service.goActive();
+        this.assetFingerprint = getAssetFingerprint(config.getAssetFiles());
+        if (loader == null) {
+            load();
+            if (loadingState == LoadingState.FAILED) {
+                throw new IllegalStateException(loadingFailure);
+            }
+        } else {
+            monitor.info(String.format("Loading asset %s in the background.", config.getDefaultAsset()));
+            loader.execute(this::load);
+        }
+    }
+
+    /**
+     * loads the initial content (from the persistent store, a snapshot or the asset files)
+     * and tracks the loading state
+     */
+    protected void load() {
+        loadingStarted = System.currentTimeMillis();
+        try {
+            loadContent();
+            countContent();
+            loadingState = LoadingState.READY;
+        } catch (RuntimeException e) {
+            loadingFailure = String.valueOf(e.getMessage());
+            loadingState = LoadingState.FAILED;
+            monitor.severe(String.format("Could not load asset %s.", config.getDefaultAsset()), e);
+        } finally {
+            loadingFinished = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * loads the initial content
+     */
+    protected void loadContent() {
         // read file with ontology, share this dataset with the catalogue sync procedure
-        if (config.getAssetFiles() != null) {
-            startTx();
-            StreamRDF dest = StreamRDFLib.dataset(dataset);
-            StreamRDF graphDest = StreamRDFLib.extendTriplesToQuads(getDefaultGraph(), dest);
-            StreamRDFCounting countingDest = StreamRDFLib.count(graphDest);
-            ErrorHandler errorHandler = ErrorHandlerFactory.errorHandlerStd(monitorWrapper);
-            for (String assetFile : config.getAssetFiles()) {
-                RDFParser.create()
-                        .errorHandler(errorHandler)
-                        .source(assetFile)
-                        .lang(Lang.TTL)
-                        .parse(countingDest);
-                monitor.debug(String.format("Initialised asset %s with file %s resulted in %d triples", config.getDefaultAsset(), assetFile, countingDest.countTriples()));
+        Path fingerprintFile = isPersistent() ? Path.of(config.getRdfStoreDirectory(), ASSET_FINGERPRINT_FILE) : null;
+        if (fingerprintFile != null && assetFingerprint.equals(readFingerprint(fingerprintFile))) {
+            monitor.info(String.format("Reusing asset %s from persistent store %s as the asset files are unchanged.", config.getDefaultAsset(), config.getRdfStoreDirectory()));
+        } else if (!isPersistent() && restoreSnapshot()) {
+            monitor.info(String.format("Initialised asset %s from snapshot %s", config.getDefaultAsset(), config.getRdfSnapshotFile()));
+        } else if (config.getAssetFiles() != null) {
+            long numberOfTriples = loadAssetFiles(config.getAssetFiles(), fingerprintFile != null);
+            writeFingerprint(fingerprintFile, assetFingerprint);
+            monitor.info(String.format("Initialised asset %s with %d triples from %d files", config.getDefaultAsset(), numberOfTriples, config.getAssetFiles().length));
+        } else {
+            monitor.info(String.format("Initialised asset %s with 0 triples.", config.getDefaultAsset()));
+        }
+    }
+
+    /**
+     * counts the initial content (which bypassed the statistics) of the store
+     */
+    protected void countContent() {
+        if (isPersistent() && restoreStatistics(Path.of(config.getRdfStoreDirectory(), ASSET_STATISTICS_FILE))) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        dataset.begin(TxnType.READ);
+        try {
+            long numberOfTuples = statistics.count(store);
+            monitor.debug(String.format("Counted %d tuples in %d graphs in %d milliseconds", numberOfTuples, statistics.getGraphs().size(), System.currentTimeMillis() - start));
+        } finally {
+            dataset.end();
+        }
+    }
+
+    /**
+     * restores the statistics which have been recorded when the persistent store was closed.
+     * the record is consumed, so the store is counted again after a crash.
+     *
+     * @param file holding the statistics
+     * @return whether the statistics have been restored
+     */
+    protected boolean restoreStatistics(Path file) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8); JsonReader jsonReader = Json.createReader(reader)) {
+            JsonObject record = jsonReader.readObject();
+            if (!assetFingerprint.equals(record.getString("assetFingerprint", null))) {
+                monitor.info(String.format("Ignoring statistics %s as the asset files have changed.", file));
+                return false;
+            }
+            statistics.apply(GraphStatistics.Delta.fromJson(record.getJsonObject("statistics")));
+            monitor.debug(String.format("Restored statistics of %d tuples in %d graphs from %s", statistics.getTotal(), statistics.getGraphs().size(), file));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            monitor.warning(String.format("Could not read statistics %s. Counting the store.", file), e);
+            return false;
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                monitor.warning(String.format("Could not consume statistics %s.", file), e);
+            }
+        }
+    }
+
+    /**
+     * records the statistics of the persistent store (without the in-memory catalogues)
+     * so that the next start does not need to count the store
+     *
+     * @param file to hold the statistics
+     */
+    protected void recordStatistics(Path file) {
+        GraphStatistics.Delta content = statistics.snapshot();
+        dataset.getPartitions().forEach((connector, graph) -> graph.find().forEachRemaining(triple -> content.delete(connector, triple)));
+        JsonObject record = Json.createObjectBuilder()
+                .add("assetFingerprint", assetFingerprint)
+                .add("statistics", content.toJson())
+                .build();
+        try {
+            Files.writeString(file, record.toString(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not record statistics %s. The store will be counted on the next start.", file), e);
+        }
+    }
+
+    /**
+     * the parsed content of an asset file
+     */
+    protected static class ParsedFile {
+        protected final String file;
+        protected final List<Quad> quads;
+
+        /**
+         * creates a new parsed file
+         *
+         * @param file  name of the file
+         * @param quads content
+         */
+        protected ParsedFile(String file, List<Quad> quads) {
+            this.file = file;
+            this.quads = quads;
+        }
+    }
+
+    /**
+     * loads the asset files into the default graph. the files are parsed
+     * concurrently into buffers of their own (the syntax is derived from the
+     * file extension, e.g., .ttl, .nt, .nq, .trig or .rt for RDF Thrift,
+     * each optionally compressed as .gz) which are then bulk loaded.
+     *
+     * @param assetFiles    files or urls to load
+     * @param clearExisting whether the previous content of the default graph should be removed
+     * @return number of loaded tuples
+     */
+    protected long loadAssetFiles(String[] assetFiles, boolean clearExisting) {
+        long start = System.currentTimeMillis();
+        ErrorHandler errorHandler = ErrorHandlerFactory.errorHandlerStd(monitorWrapper);
+        ExecutorService parsers = Executors.newFixedThreadPool(Math.max(1, Math.min(assetFiles.length, Runtime.getRuntime().availableProcessors())));
+        List<ParsedFile> parsedFiles = new ArrayList<>();
+        try {
+            List<Future<ParsedFile>> parsing = new ArrayList<>();
+            for (String assetFile : assetFiles) {
+                parsing.add(parsers.submit(() -> parseAssetFile(assetFile, errorHandler)));
+            }
+            for (Future<ParsedFile> parsed : parsing) {
+                parsedFiles.add(parsed.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Loading the asset files has been interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new IllegalStateException("Could not load the asset files.", e.getCause());
+        } finally {
+            parsers.shutdownNow();
+        }
+        long parsed = System.currentTimeMillis();
+        if (clearExisting) {
+            // the asset files have changed, forget about their previous content
+            startTx();
+            store.deleteAny(getDefaultGraph(), Node.ANY, Node.ANY, Node.ANY);
             commit();
-            monitor.info(String.format("Initialised asset %s with %d triples from %d files", config.getDefaultAsset(), countingDest.countTriples(), config.getAssetFiles().length));
+        }
+        long numberOfTuples = 0;
+        if (isPersistent()) {
+            // the bulk loader of the persistent store manages its own transactions
+            DataLoader loader = LoaderFactory.createLoader(store, (format, args) -> monitor.debug(String.format(format, args)));
+            loader.startBulk();
+            try {
+                StreamRDF bulk = loader.stream();
+                for (ParsedFile parsedFile : parsedFiles) {
+                    parsedFile.quads.forEach(bulk::quad);
+                    numberOfTuples += parsedFile.quads.size();
+                }
+                loader.finishBulk();
+            } catch (RuntimeException e) {
+                loader.finishException(e);
+                throw e;
+            }
         } else {
-            monitor.info(String.format("Initialised asset %s with 0 triples.", config.getDefaultAsset()));
+            startTx();
+            try {
+                for (ParsedFile parsedFile : parsedFiles) {
+                    parsedFile.quads.forEach(store::add);
+                    numberOfTuples += parsedFile.quads.size();
+                }
+                commit();
+            } catch (RuntimeException e) {
+                abort();
+                throw e;
+            }
+        }
+        long loaded = System.currentTimeMillis();
+        monitor.debug(String.format("Parsed %d asset files in %d milliseconds and loaded %d tuples in %d milliseconds (%d tuples per second)",
+                assetFiles.length, parsed - start, numberOfTuples, loaded - parsed, numberOfTuples * 1000 / Math.max(1, loaded - parsed)));
+        return numberOfTuples;
+    }
+
+    /**
+     * parses a single asset file into a buffer
+     *
+     * @param assetFile    file or url to parse
+     * @param errorHandler handling syntax errors
+     * @return parsed file
+     */
+    protected ParsedFile parseAssetFile(String assetFile, ErrorHandler errorHandler) {
+        long start = System.currentTimeMillis();
+        CollectorStreamQuads collector = new CollectorStreamQuads();
+        RDFParser.create()
+                .errorHandler(errorHandler)
+                .source(assetFile)
+                .lang(RDFLanguages.filenameToLang(assetFile, Lang.TTL))
+                .parse(StreamRDFLib.extendTriplesToQuads(getDefaultGraph(), collector));
+        long millis = System.currentTimeMillis() - start;
+        List<Quad> quads = collector.getCollected();
+        filesParsed.incrementAndGet();
+        tuplesParsed.addAndGet(quads.size());
+        monitor.debug(String.format("Parsed asset file %s into %d tuples in %d milliseconds (%d tuples per second)",
+                assetFile, quads.size(), millis, quads.size() * 1000L / Math.max(1, millis)));
+        return new ParsedFile(assetFile, quads);
+    }
+
+    /**
+     * creates the configured dataset graph
+     *
+     * @param config  EDC config
+     * @param monitor logging subsystem
+     * @return a transactional dataset graph
+     */
+    protected static DatasetGraph createDataset(AgentConfig config, Monitor monitor) {
+        String storeType = config.getRdfStoreType();
+        switch (storeType) {
+            case "tdb2":
+                Path directory = Path.of(config.getRdfStoreDirectory());
+                try {
+                    Files.createDirectories(directory);
+                } catch (IOException e) {
+                    throw new IllegalStateException(String.format("Could not create the directory %s of the persistent rdf store.", directory), e);
+                }
+                monitor.info(String.format("Connecting to persistent TDB2 rdf store in %s", directory));
+                return DatabaseMgr.connectDatasetGraph(directory.toString());
+            default:
+                return DatasetGraphFactory.createTxnMem();
         }
     }
 
-    public static final String CSV_REGEX = "(\"[^\"]*\")?([^%s]*)";
- 
+    /**
+     * access
+     *
+     * @return whether the initial content has been loaded
+     */
+    public boolean isReady() {
+        return loadingState == LoadingState.READY;
+    }
+
+    /**
+     * access
+     *
+     * @return the state of loading the initial content
+     */
+    public LoadingState getLoadingState() {
+        return loadingState;
+    }
+
+    /**
+     * access
+     *
+     * @return number of asset files parsed so far
+     */
+    public int getFilesParsed() {
+        return filesParsed.get();
+    }
+
+    /**
+     * access
+     *
+     * @return number of tuples parsed so far
+     */
+    public long getTuplesParsed() {
+        return tuplesParsed.get();
+    }
+
+    /**
+     * access
+     *
+     * @return number of milliseconds spent on loading the initial content so far
+     */
+    public long getLoadingMillis() {
+        long end = loadingState == LoadingState.LOADING ? System.currentTimeMillis() : loadingFinished;
+        return loadingStarted > 0 ? end - loadingStarted : 0;
+    }
+
+    /**
+     * access
+     *
+     * @return reason why loading the initial content has failed, null if it did not fail
+     */
+    public String getLoadingFailure() {
+        return loadingFailure;
+    }
+
+    /**
+     * access
+     *
+     * @return whether the store survives restarts
+     */
+    public boolean isPersistent() {
+        return "tdb2".equals(config.getRdfStoreType());
+    }
+
+    /**
+     * computes a fingerprint of the configured asset files
+     * (remote files are identified by their name, local files also by their size and modification time)
+     *
+     * @param assetFiles files to load, may be null
+     * @return fingerprint
+     */
+    protected static String getAssetFingerprint(String[] assetFiles) {
+        StringBuilder fingerprint = new StringBuilder();
+        if (assetFiles != null) {
+            for (String assetFile : assetFiles) {
+                fingerprint.append(assetFile);
+                try {
+                    Path path = Path.of(assetFile);
+                    if (Files.isRegularFile(path)) {
+                        fingerprint.append(':').append(Files.size(path)).append(':').append(Files.getLastModifiedTime(path).toMillis());
+                    }
+                } catch (IOException | InvalidPathException e) {
+                    // not a local file
+                }
+                fingerprint.append('\n');
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * reads a recorded fingerprint
+     *
+     * @param file holding the fingerprint
+     * @return fingerprint, null if not recorded
+     */
+    protected String readFingerprint(Path file) {
+        try {
+            if (Files.exists(file)) {
+                return Files.readString(file, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not read the asset fingerprint %s. Reloading the asset files.", file), e);
+        }
+        return null;
+    }
+
+    /**
+     * records a fingerprint
+     *
+     * @param file        to hold the fingerprint, null if nothing should be recorded
+     * @param fingerprint to record
+     */
+    protected void writeFingerprint(Path file, String fingerprint) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.writeString(file, fingerprint, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not record the asset fingerprint %s. The asset files will be reloaded on the next start.", file), e);
+        }
+    }
+
+    /**
+     * access
+     *
+     * @return whether the in-memory store is snapshotted
+     */
+    public boolean isSnapshotEnabled() {
+        return !isPersistent() && config.getRdfSnapshotFile() != null;
+    }
+
+    /**
+     * writes a snapshot of the in-memory store (including the synchronized catalogues)
+     * as RDF Thrift together with a manifest. The previous snapshot is replaced atomically.
+     *
+     * @return whether a snapshot has been written
+     */
+    public synchronized boolean snapshot() {
+        if (!isSnapshotEnabled() || !isReady()) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        Path file = Path.of(config.getRdfSnapshotFile());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Path manifest = file.resolveSibling(file.getFileName() + SNAPSHOT_MANIFEST_SUFFIX);
+        Path temporaryManifest = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+        long numberOfTuples = 0;
+        Set<Node> partitions;
+        dataset.begin(TxnType.READ);
+        try {
+            partitions = dataset.getPartitions().keySet();
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream out = openSnapshotStream(temporary, file)) {
+                StreamRDF writer = StreamRDFWriter.getWriterStream(out, RDFFormat.RDF_THRIFT);
+                writer.start();
+                Iterator<Quad> quads = dataset.find(Node.ANY, Node.ANY, Node.ANY, Node.ANY);
+                while (quads.hasNext()) {
+                    writer.quad(quads.next());
+                    numberOfTuples++;
+                }
+                writer.finish();
+            }
+            JsonArrayBuilder partitionNames = Json.createArrayBuilder();
+            partitions.forEach(partition -> partitionNames.add(partition.getURI()));
+            JsonObject manifestObject = Json.createObjectBuilder()
+                    .add("created", System.currentTimeMillis())
+                    .add("tuples", numberOfTuples)
+                    .add("assetFingerprint", assetFingerprint)
+                    .add("partitions", partitionNames)
+                    .build();
+            Files.writeString(temporaryManifest, manifestObject.toString(), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(temporaryManifest, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not write snapshot %s. Keeping the previous snapshot.", file), e);
+            return false;
+        } finally {
+            dataset.end();
+        }
+        monitor.debug(String.format("Wrote snapshot %s with %d tuples (%d catalogue partitions) in %d milliseconds", file, numberOfTuples, partitions.size(), System.currentTimeMillis() - start));
+        return true;
+    }
+
+    /**
+     * opens the stream to write a snapshot to
+     *
+     * @param temporary the file to write
+     * @param file      the final name of the file (which determines compression)
+     * @return output stream
+     * @throws IOException in case the file cannot be written
+     */
+    protected OutputStream openSnapshotStream(Path temporary, Path file) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary));
+        if (file.getFileName().toString().endsWith(".gz")) {
+            out = new GZIPOutputStream(out);
+        }
+        return out;
+    }
+
+    /**
+     * opens the stream to read a snapshot from
+     *
+     * @param file the snapshot (whose name determines compression)
+     * @return input stream
+     * @throws IOException in case the file cannot be read
+     */
+    protected InputStream openSnapshotStream(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        if (file.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        return in;
+    }
+
+    /**
+     * restores the in-memory store from a snapshot if it matches the asset files
+     *
+     * @return whether a snapshot has been restored
+     */
+    protected boolean restoreSnapshot() {
+        if (!isSnapshotEnabled()) {
+            return false;
+        }
+        Path file = Path.of(config.getRdfSnapshotFile());
+        Path manifest = file.resolveSibling(file.getFileName() + SNAPSHOT_MANIFEST_SUFFIX);
+        if (!Files.exists(file) || !Files.exists(manifest)) {
+            monitor.info(String.format("There is no snapshot %s yet.", file));
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        Set<Node> partitionNames = new HashSet<>();
+        try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8); JsonReader jsonReader = Json.createReader(reader)) {
+            JsonObject manifestObject = jsonReader.readObject();
+            if (!assetFingerprint.equals(manifestObject.getString("assetFingerprint", null))) {
+                monitor.info(String.format("Ignoring snapshot %s as the asset files have changed.", file));
+                return false;
+            }
+            manifestObject.getJsonArray("partitions").getValuesAs(JsonString.class).forEach(name -> partitionNames.add(NodeFactory.createURI(name.getString())));
+        } catch (IOException | RuntimeException e) {
+            monitor.warning(String.format("Could not read snapshot manifest %s. Ignoring the snapshot.", manifest), e);
+            return false;
+        }
+        Map<Node, Graph> partitions = new HashMap<>();
+        startTx();
+        try (InputStream in = openSnapshotStream(file)) {
+            RDFParser.create()
+                    .errorHandler(ErrorHandlerFactory.errorHandlerStd(monitorWrapper))
+                    .source(in)
+                    .lang(Lang.RDFTHRIFT)
+                    .parse(new StreamRDFBase() {
+                        @Override
+                        public void triple(Triple triple) {
+                            store.add(Quad.create(Quad.defaultGraphIRI, triple));
+                        }
+
+                        @Override
+                        public void quad(Quad quad) {
+                            if (partitionNames.contains(quad.getGraph())) {
+                                partitions.computeIfAbsent(quad.getGraph(), name -> GraphFactory.createDefaultGraph()).add(quad.asTriple());
+                            } else {
+                                store.add(quad);
+                            }
+                        }
+                    });
+            commit();
+        } catch (IOException | RuntimeException e) {
+            abort();
+            monitor.warning(String.format("Could not read snapshot %s. Ignoring the snapshot.", file), e);
+            return false;
+        }
+        // the synchronization may already run, so a fresher catalogue is never replaced by the snapshot
+        long restored = partitions.entrySet().stream()
+                .filter(partition -> publishRestoredCatalogGraph(partition.getKey(), partition.getValue()))
+                .count();
+        monitor.debug(String.format("Restored snapshot %s (%d of %d catalogue partitions) in %d milliseconds", file, restored, partitions.size(), System.currentTimeMillis() - start));
+        return true;
+    }
+
+    /**
+     * publishes a restored catalogue unless the connector has been synchronized already
+     *
+     * @param connector node representing the connector
+     * @param graph     restored catalogue
+     * @return whether the catalogue has been published
+     */
+    protected boolean publishRestoredCatalogGraph(Node connector, Graph graph) {
+        GraphStatistics.Delta delta = new GraphStatistics.Delta();
+        graph.find().forEachRemaining(triple -> delta.add(connector, triple));
+        return publishCatalogGraph(connector, null, graph, delta);
+    }
+
+    /**
+     * records the statistics of a persistent store and releases the underlying store
+     * (shutting down the data service closes the dataset)
+     */
+    public void close() {
+        csvConverters.shutdownNow();
+        if (isPersistent() && isReady()) {
+            recordStatistics(Path.of(config.getRdfStoreDirectory(), ASSET_STATISTICS_FILE));
+        }
+        service.shutdown();
+    }
+
+    /**
+     * number of csv records which are converted by a single task
+     */
+    public static final int CSV_CHUNK_SIZE = 10000;
+
     /**
      * registers (overwrites/extends) an asset
      *
      * @param asset asset iri
+     * @param content rdf data
+     * @param format the format of the data
+     * @return number of resulting triples
+     */
+    public long registerAsset(String asset, String content, ExternalFormat format) {
+        return registerAsset(asset, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    /**
+     * registers (overwrites/extends) an asset from a stream
+     * such that large sources never have to be held in memory
+     *
+     * @param asset asset iri
      * @param content stream for rdf data
      * @param format the format of the stream
      * @return number of resulting triples
      */
-    public long registerAsset(String asset, String content, ExternalFormat format) {
-        if (!asset.contains("/")) {
-            asset = "http://server/unset-base/" + asset;
+    public long registerAsset(String asset, InputStream content, ExternalFormat format) {
+        return loadAsset(asset, content, format, false);
+    }
+
+    /**
+     * replaces an asset from a stream. Removing the old content and
+     * loading the new content happen in a single write transaction, so
+     * readers either see the old or the complete new graph.
+     *
+     * @param asset asset iri
+     * @param content stream for rdf data
+     * @param format the format of the stream
+     * @return number of resulting triples
+     */
+    public long replaceAsset(String asset, InputStream content, ExternalFormat format) {
+        return loadAsset(asset, content, format, true);
+    }
+
+    /**
+     * loads an asset from a stream inside a write transaction
+     *
+     * @param asset asset iri
+     * @param content stream for rdf data
+     * @param format the format of the stream
+     * @param replace whether existing content of the asset should be removed
+     * @return number of resulting triples
+     */
+    protected long loadAsset(String asset, InputStream content, ExternalFormat format, boolean replace) {
+        Node graph = getAssetGraph(asset);
+        asset = graph.getURI();
+        monitor.info(String.format("%s asset %s with %s source.", replace ? "Replacing" : "Upserting", asset, format.getContentType()));
+        long start = System.currentTimeMillis();
+        long numberOfTriples;
+        DatasetGraph target = getAssetDataset(graph);
+        target.begin(TxnType.WRITE);
+        try {
+            if (replace) {
+                target.deleteAny(graph, Node.ANY, Node.ANY, Node.ANY);
+            }
+            switch (format) {
+                case CSV:
+                    numberOfTriples = loadCsv(target, graph, content);
+                    break;
+                default:
+                    StreamRDF graphDest = StreamRDFLib.extendTriplesToQuads(graph, StreamRDFLib.dataset(target));
+                    StreamRDFCounting countingDest = StreamRDFLib.count(graphDest);
+                    RDFParser.create()
+                            .errorHandler(ErrorHandlerFactory.errorHandlerStd(monitorWrapper))
+                            .source(content)
+                            .lang(format == ExternalFormat.N_TRIPLES ? Lang.NTRIPLES : Lang.TTL)
+                            .parse(countingDest);
+                    numberOfTriples = countingDest.countTriples();
+                    break;
+            }
+            target.commit();
+        } catch (RuntimeException e) {
+            target.abort();
+            throw e;
+        } finally {
+            target.end();
         }
-        monitor.info(String.format("Upserting asset %s with turtle source.", asset));
-        startTx();
-        StreamRDF dest = StreamRDFLib.dataset(dataset);
-        StreamRDF graphDest = StreamRDFLib.extendTriplesToQuads(NodeFactory.createURI(asset), dest);
-        StreamRDFCounting countingDest = StreamRDFLib.count(graphDest);
-        ErrorHandler errorHandler = ErrorHandlerFactory.errorHandlerStd(monitorWrapper);
-        switch (format) {
-            default:
-                RDFParser.create()
-                        .errorHandler(errorHandler)
-                        .source(new ByteArrayInputStream(content.getBytes()))
-                        .lang(Lang.TTL)
-                        .parse(countingDest);
-                break;
-            case CSV:
-                countingDest.start();
-                Pattern csvCell = Pattern.compile(String.format(CSV_REGEX, ","));
-                try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
-                    String header = reader.readLine();
-                    List<Node> predicates = new ArrayList<>();
-                    if (header != null) {
-                        int position = 0;
-                        Matcher headerMatcher = csvCell.matcher(header);
-                        while (position <= header.length() && headerMatcher.find(position)) {
-                            predicates.add(NodeFactory.createURI(headerMatcher.group()));
-                            position = headerMatcher.end() + 1;
-                        }
-                        reader.lines().forEach(factLine -> {
-                            int fposition = 0;
-                            Matcher factMatcher = csvCell.matcher(factLine);
-                            if (factMatcher.find(fposition)) {
-                                Node subject = NodeFactory.createURI(factMatcher.group());
-                                fposition = factMatcher.end() + 1;
-                                for (int fact = 1; fact < predicates.size() && fposition <= factLine.length() && factMatcher.find(fposition); fact++) {
-                                    Node object = parseObject(factMatcher.group());
-                                    countingDest.triple(NodeFactory.createTripleNode(subject, predicates.get(fact), object).getTriple());
-                                    fposition = factMatcher.end() + 1;
-                                }
-                            }
-                        });
+        monitor.debug(String.format("Upserting asset %s resulted in %d triples in %d milliseconds", asset, numberOfTriples, System.currentTimeMillis() - start));
+        return numberOfTriples;
+    }
+
+    /**
+     * streams a csv source into a graph. Records are tokenized and cut into chunks
+     * which are converted to triples in parallel (using the column mapping declared by the header),
+     * while the calling thread (which holds the write transaction) adds the converted chunks in order.
+     * The number of chunks in flight is bounded, so memory stays flat for arbitrarily large sources.
+     *
+     * @param target dataset in a write transaction
+     * @param graph target graph
+     * @param content csv stream
+     * @return number of added triples
+     * @throws UncheckedIOException if the stream cannot be read completely
+     */
+    protected long loadCsv(DatasetGraph target, Node graph, InputStream content) {
+        CsvTokenizer tokenizer = new CsvTokenizer(new InputStreamReader(content, StandardCharsets.UTF_8), ',');
+        Deque<Future<List<Triple>>> inFlight = new ArrayDeque<>();
+        long numberOfTriples = 0;
+        try {
+            List<String> header = tokenizer.next();
+            if (header == null) {
+                return 0;
+            }
+            CsvMapping mapping = new CsvMapping(header);
+            List<List<String>> chunk = new ArrayList<>(CSV_CHUNK_SIZE);
+            List<String> record = tokenizer.next();
+            while (record != null) {
+                if (record.size() > 1 || !record.get(0).isBlank()) {
+                    chunk.add(record);
+                }
+                if (chunk.size() == CSV_CHUNK_SIZE) {
+                    List<List<String>> records = chunk;
+                    inFlight.add(csvConverters.submit(() -> mapping.convert(records)));
+                    chunk = new ArrayList<>(CSV_CHUNK_SIZE);
+                    while (inFlight.size() > 2 * csvParallelism) {
+                        numberOfTriples += addTriples(target, graph, inFlight.poll().get());
                     }
-                } catch (IOException e) {
-                    monitor.warning("An exception has occurred while parsing a CSV stream. Ignoring some/all data.", e);
                 }
-                countingDest.finish();
-                break;
+                record = tokenizer.next();
+            }
+            if (!chunk.isEmpty()) {
+                List<List<String>> records = chunk;
+                inFlight.add(csvConverters.submit(() -> mapping.convert(records)));
+            }
+            while (!inFlight.isEmpty()) {
+                numberOfTriples += addTriples(target, graph, inFlight.poll().get());
+            }
+            return numberOfTriples;
+        } catch (IOException e) {
+            // a truncated or unreadable stream must abort the transaction instead of committing partial content
+            throw new UncheckedIOException("Could not read a CSV stream.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while converting a CSV stream.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not convert a CSV stream.", e.getCause());
+        } finally {
+            // the pool is shared, so a failed load only gives up its own conversions
+            inFlight.forEach(conversion -> conversion.cancel(true));
         }
-        long numberOfTriples = countingDest.countTriples();
-        monitor.debug(String.format("Upserting asset %s resulted in %d triples", asset, numberOfTriples));
-        commit();
-        return numberOfTriples;
     }
 
     /**
-     * parses a given rdf snippet into a node
+     * adds converted triples to a graph
      *
-     * @param group rdf snippet node
-     * @return a parsed node
+     * @param target dataset in a write transaction
+     * @param graph target graph
+     * @param triples converted triples
+     * @return number of triples
      */
-    private Node parseObject(String group) {
-        if (group.startsWith("<")) {
-            group = group.replaceAll("[\\<\\>]", "");
-            return NodeFactory.createURI(group);
-        } else if (group.contains("^^")) {
-            int index = group.lastIndexOf("^^");
-            String type = group.substring(index + 2);
-            group = group.substring(0, index - 1);
+    protected long addTriples(DatasetGraph target, Node graph, List<Triple> triples) {
+        for (Triple triple : triples) {
+            target.add(graph, triple.getSubject(), triple.getPredicate(), triple.getObject());
         }
-        return NodeFactory.createLiteral(group);
+        return triples.size();
     }
 
     /**
@@ -192,23 +948,116 @@ public class RdfStore {
      * @return number of deleted triples
      */
     public long deleteAsset(String asset) {
-        if (!asset.contains("/")) {
-            asset = "http://server/unset-base/" + asset;
-        }
+        Node graph = getAssetGraph(asset);
+        asset = graph.getURI();
         monitor.info(String.format("Deleting asset %s.", asset));
-        startTx();
-        Quad findAssets = Quad.create(NodeFactory.createURI(asset), Node.ANY, Node.ANY, Node.ANY);
-        Iterator<Quad> assetQuads = getDataSet().find(findAssets);
-        int tupleCount = 0;
-        while (assetQuads.hasNext()) {
-            getDataSet().delete(assetQuads.next());
-            tupleCount++;
+        DatasetGraph target = dataset;
+        if (!isPersistent()) {
+            // an asset which has neither a partition nor content in the shared dataset is not created for deletion,
+            // otherwise we wait for its partition, so a concurrent creation cannot resurrect the deleted content
+            if (!assetPartitions.containsKey(graph) && !Txn.calculateRead(store, () -> store.contains(graph, Node.ANY, Node.ANY, Node.ANY))) {
+                monitor.debug(String.format("Asset %s does not exist", asset));
+                return 0;
+            }
+            target = getAssetDataset(graph);
+        }
+        target.begin(TxnType.WRITE);
+        long tupleCount;
+        try {
+            tupleCount = Iter.count(target.find(graph, Node.ANY, Node.ANY, Node.ANY));
+            target.deleteAny(graph, Node.ANY, Node.ANY, Node.ANY);
+            target.commit();
+        } catch (RuntimeException e) {
+            target.abort();
+            throw e;
+        } finally {
+            target.end();
         }
         monitor.debug(String.format("Deleting asset %s resulted in %d triples", asset, tupleCount));
-        commit();
         return tupleCount;
     }
 
+    /**
+     * the partition of an in-memory asset which is created and published at most once.
+     * The holder is registered before the partition exists, so all users of the
+     * asset wait until the partition has been published.
+     */
+    protected class AssetPartition {
+        protected final Node graph;
+        protected DatasetGraph partition;
+
+        protected AssetPartition(Node graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * access
+         *
+         * @return the published partition, created on first access
+         */
+        protected synchronized DatasetGraph get() {
+            if (partition == null) {
+                DatasetGraph created = createAssetPartition(graph);
+                publishAssetPartition(graph, created);
+                partition = created;
+            }
+            return partition;
+        }
+    }
+
+    /**
+     * determines the dataset which hosts a graph asset. In memory, each asset gets
+     * a transactional partition of its own, so writes to independent assets proceed
+     * in parallel. The persistent store hosts all assets itself.
+     *
+     * @param graph asset graph
+     * @return dataset to write the asset into
+     */
+    protected DatasetGraph getAssetDataset(Node graph) {
+        if (isPersistent()) {
+            return dataset;
+        }
+        // the partition is created outside of the map, so concurrent lookups of other assets are not blocked
+        return assetPartitions.computeIfAbsent(graph, AssetPartition::new).get();
+    }
+
+    /**
+     * creates the partition of an asset with a copy of any content which
+     * the asset already has in the shared dataset
+     *
+     * @param graph asset graph
+     * @return transactional dataset hosting the asset
+     */
+    protected DatasetGraph createAssetPartition(Node graph) {
+        DatasetGraph partition = DatasetGraphFactory.createTxnMem();
+        List<Quad> existing = Txn.calculateRead(store, () -> Iter.toList(store.find(graph, Node.ANY, Node.ANY, Node.ANY)));
+        if (!existing.isEmpty()) {
+            // the content only moves, so it is neither recorded here nor when it is deleted from the shared dataset
+            Txn.executeWrite(partition, () -> existing.forEach(partition::add));
+        }
+        return new StatisticsDatasetGraph(partition, statistics);
+    }
+
+    /**
+     * publishes the partition of an asset and removes the
+     * content it took over from the shared dataset
+     *
+     * @param graph     asset graph
+     * @param partition transactional dataset hosting the asset
+     */
+    protected void publishAssetPartition(Node graph, DatasetGraph partition) {
+        startTx();
+        try {
+            store.deleteAny(graph, Node.ANY, Node.ANY, Node.ANY);
+            dataset.publishAssetPartition(graph, partition.getGraph(graph));
+            commit();
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+        monitor.debug(String.format("Created partition for asset %s", graph));
+    }
+
     /**
      * access
      *
@@ -218,6 +1067,99 @@ public class RdfStore {
         return NodeFactory.createURI(config.getDefaultAsset());
     }
 
+    /**
+     * resolves the graph which hosts an asset
+     *
+     * @param asset asset iri, relative names are resolved against an unset base
+     * @return graph of the asset
+     */
+    public Node getAssetGraph(String asset) {
+        if (!asset.contains("/")) {
+            asset = "http://server/unset-base/" + asset;
+        }
+        return NodeFactory.createURI(asset);
+    }
+
+    /**
+     * checks whether an asset is maintained by the agent itself, i.e., the default (ontology)
+     * asset or the catalogue of a connector, which must not be changed through the graph api
+     *
+     * @param asset asset iri
+     * @return whether the asset is reserved
+     */
+    public boolean isReservedAsset(String asset) {
+        Node graph = getAssetGraph(asset);
+        if (asset.equals(config.getDefaultAsset()) || graph.equals(getDefaultGraph())) {
+            return true;
+        }
+        String uri = graph.getURI();
+        return uri.startsWith("edc:") || uri.startsWith("edcs:");
+    }
+
+    /**
+     * access
+     *
+     * @param connector node representing the connector
+     * @return the currently published graph hosting the catalogue of the connector, null if none
+     */
+    public Graph getCatalogGraph(Node connector) {
+        return dataset.getPartitions().get(connector);
+    }
+
+    /**
+     * atomically publishes the graph hosting the catalogue of a connector
+     * such that it (and not its predecessor) becomes part of the default graph.
+     * does not need a transaction.
+     *
+     * @param connector node representing the connector
+     * @param graph     complete catalogue which must not be changed afterwards, null to drop the catalogue
+     */
+    public void publishCatalogGraph(Node connector, Graph graph) {
+        Graph previous;
+        GraphStatistics.Delta delta;
+        do {
+            previous = dataset.getPartitions().get(connector);
+            delta = new GraphStatistics.Delta();
+            if (previous != null) {
+                for (Triple triple : previous.find().toList()) {
+                    delta.delete(connector, triple);
+                }
+            }
+            if (graph != null) {
+                for (Triple triple : graph.find().toList()) {
+                    delta.add(connector, triple);
+                }
+            }
+        } while (!publishCatalogGraph(connector, previous, graph, delta));
+    }
+
+    /**
+     * atomically publishes the graph hosting the catalogue of a connector
+     * which has been derived from the given predecessor by the given changes
+     *
+     * @param connector node representing the connector
+     * @param previous  the catalogue which is replaced, null if there must not be a catalogue yet
+     * @param graph     complete catalogue which must not be changed afterwards, null to drop the catalogue
+     * @param delta     the actual changes against the predecessor
+     * @return whether the catalogue has been published (false if the predecessor has been replaced in the meantime)
+     */
+    public boolean publishCatalogGraph(Node connector, Graph previous, Graph graph, GraphStatistics.Delta delta) {
+        if (!dataset.publishPartition(connector, previous, graph)) {
+            return false;
+        }
+        statistics.apply(delta);
+        return true;
+    }
+
+    /**
+     * access
+     *
+     * @return exact statistics of the store
+     */
+    public GraphStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * access
      *
@@ -0,0 +1,170 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.core.GraphView;
+import org.apache.jena.sparql.core.Quad;
+
+import java.util.Iterator;
+
+/**
+ * a dataset graph which records the actual changes of its writer
+ * and applies them to the store statistics when the writer commits
+ * (and forgets them when the writer aborts)
+ */
+public class StatisticsDatasetGraph extends DatasetGraphWrapper {
+
+    protected final GraphStatistics statistics;
+    protected final GraphStatistics.Delta delta = new GraphStatistics.Delta();
+
+    /**
+     * creates a new recording dataset graph
+     *
+     * @param dataset    the underlying transactional dataset graph
+     * @param statistics statistics to maintain
+     */
+    public StatisticsDatasetGraph(DatasetGraph dataset, GraphStatistics statistics) {
+        super(dataset);
+        this.statistics = statistics;
+    }
+
+    /**
+     * access
+     *
+     * @return the changes recorded since the last commit
+     */
+    protected GraphStatistics.Delta getDelta() {
+        return delta;
+    }
+
+    /**
+     * access
+     *
+     * @return whether the current thread is the writer
+     */
+    protected boolean isWriting() {
+        return isInTransaction() && transactionMode() == ReadWrite.WRITE;
+    }
+
+    @Override
+    public void add(Quad quad) {
+        add(quad.getGraph(), quad.getSubject(), quad.getPredicate(), quad.getObject());
+    }
+
+    @Override
+    public void add(Node g, Node s, Node p, Node o) {
+        if (!get().contains(g, s, p, o)) {
+            get().add(g, s, p, o);
+            delta.record(g, p, o, 1);
+        }
+    }
+
+    @Override
+    public void delete(Quad quad) {
+        delete(quad.getGraph(), quad.getSubject(), quad.getPredicate(), quad.getObject());
+    }
+
+    @Override
+    public void delete(Node g, Node s, Node p, Node o) {
+        if (get().contains(g, s, p, o)) {
+            get().delete(g, s, p, o);
+            delta.record(g, p, o, -1);
+        }
+    }
+
+    @Override
+    public void deleteAny(Node g, Node s, Node p, Node o) {
+        recordDeletes(g, s, p, o);
+        get().deleteAny(g, s, p, o);
+    }
+
+    @Override
+    public void clear() {
+        recordDeletes(Node.ANY, Node.ANY, Node.ANY, Node.ANY);
+        get().clear();
+    }
+
+    @Override
+    public void addGraph(Node graphName, Graph graph) {
+        graph.find().forEachRemaining(triple -> add(graphName, triple.getSubject(), triple.getPredicate(), triple.getObject()));
+    }
+
+    @Override
+    public void removeGraph(Node graphName) {
+        deleteAny(graphName, Node.ANY, Node.ANY, Node.ANY);
+    }
+
+    @Override
+    public Graph getDefaultGraph() {
+        // graph views route their writes through this dataset, so they are recorded, too
+        return GraphView.createDefaultGraph(this);
+    }
+
+    @Override
+    public Graph getGraph(Node graphNode) {
+        return GraphView.createNamedGraph(this, graphNode);
+    }
+
+    /**
+     * records the deletion of all matching quads
+     *
+     * @param g graph pattern
+     * @param s subject pattern
+     * @param p predicate pattern
+     * @param o object pattern
+     */
+    protected void recordDeletes(Node g, Node s, Node p, Node o) {
+        Iterator<Quad> quads = get().find(g, s, p, o);
+        while (quads.hasNext()) {
+            Quad quad = quads.next();
+            delta.record(quad.getGraph(), quad.getPredicate(), quad.getObject(), -1);
+        }
+    }
+
+    @Override
+    public void commit() {
+        boolean writing = isWriting();
+        super.commit();
+        if (writing) {
+            statistics.apply(delta);
+            delta.reset();
+        }
+    }
+
+    @Override
+    public void abort() {
+        boolean writing = isWriting();
+        super.abort();
+        if (writing) {
+            delta.reset();
+        }
+    }
+
+    @Override
+    public void end() {
+        boolean writing = isWriting();
+        super.end();
+        if (writing) {
+            delta.reset();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.engine.optimizer.reorder.PatternTriple;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformationSubstitution;
+import org.apache.jena.sparql.sse.Item;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * orders the triple patterns of a basic graph pattern by their
+ * estimated cardinality which is derived from the store statistics
+ */
+public class StatisticsReorder extends ReorderTransformationSubstitution {
+
+    /**
+     * estimated number of triples per subject and predicate
+     */
+    public static final double SUBJECT_FANOUT = 10;
+
+    /**
+     * estimated number of triples per object and predicate
+     */
+    public static final double OBJECT_FANOUT = 100;
+
+    protected final GraphStatistics statistics;
+
+    /**
+     * creates a new reorder transformation
+     *
+     * @param statistics store statistics
+     */
+    public StatisticsReorder(GraphStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected double weight(PatternTriple pattern) {
+        Node predicate = getConstant(pattern.predicate);
+        Node object = getConstant(pattern.object);
+        double estimate;
+        boolean objectUsed = false;
+        if (predicate == null) {
+            estimate = statistics.getTotal();
+        } else if (object != null && RDF.type.asNode().equals(predicate)) {
+            estimate = statistics.getClassCount(object);
+            objectUsed = true;
+        } else {
+            estimate = statistics.getPredicateCount(predicate);
+        }
+        if (isBound(pattern.subject)) {
+            estimate = Math.min(estimate, SUBJECT_FANOUT);
+        }
+        if (!objectUsed && isBound(pattern.object)) {
+            estimate = Math.min(estimate, OBJECT_FANOUT);
+        }
+        return estimate;
+    }
+
+    /**
+     * access
+     *
+     * @param item pattern item
+     * @return the constant node of the item, null if the item is not a constant
+     */
+    protected static Node getConstant(Item item) {
+        if (item.isNode() && item.getNode().isConcrete()) {
+            return item.getNode();
+        }
+        return null;
+    }
+
+    /**
+     * checks whether an item is bound (a constant or a variable bound by a previous pattern)
+     *
+     * @param item pattern item
+     * @return whether the item is bound
+     */
+    protected static boolean isBound(Item item) {
+        return getConstant(item) != null || item.isSymbol();
+    }
+}
@@ -0,0 +1,46 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.main.StageGeneratorGeneric;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
+
+/**
+ * executes basic graph patterns in the order of their
+ * estimated cardinality (instead of the fixed heuristic)
+ */
+public class StatisticsStageGenerator extends StageGeneratorGeneric {
+
+    protected final ReorderTransformation reorder;
+
+    /**
+     * creates a new stage generator
+     *
+     * @param statistics store statistics
+     */
+    public StatisticsStageGenerator(GraphStatistics statistics) {
+        this.reorder = new StatisticsReorder(statistics);
+    }
+
+    @Override
+    public QueryIterator execute(BasicPattern pattern, QueryIterator input, ExecutionContext execCxt) {
+        return execute(pattern, reorder, input, execCxt);
+    }
+}
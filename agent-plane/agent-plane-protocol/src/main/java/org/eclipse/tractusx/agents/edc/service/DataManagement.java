@@ -19,6 +19,7 @@ package org.eclipse.tractusx.agents.edc.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
 import jakarta.ws.rs.InternalServerErrorException;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -28,7 +29,9 @@ import okhttp3.ResponseBody;
 import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.query.Criterion;
 import org.eclipse.edc.spi.query.QuerySpec;
+import org.eclipse.edc.spi.query.SortOrder;
 import org.eclipse.edc.spi.types.TypeManager;
+import org.eclipse.edc.spi.types.domain.callback.CallbackAddress;
 import org.eclipse.tractusx.agents.edc.AgentConfig;
 import org.eclipse.tractusx.agents.edc.jsonld.JsonLd;
 import org.eclipse.tractusx.agents.edc.model.Asset;
@@ -36,6 +39,7 @@ import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
 import org.eclipse.tractusx.agents.edc.model.ContractNegotiation;
 import org.eclipse.tractusx.agents.edc.model.ContractNegotiationRequest;
 import org.eclipse.tractusx.agents.edc.model.DcatCatalog;
+import org.eclipse.tractusx.agents.edc.model.DcatDataset;
 import org.eclipse.tractusx.agents.edc.model.IdResponse;
 import org.eclipse.tractusx.agents.edc.model.TransferProcess;
 import org.eclipse.tractusx.agents.edc.model.TransferRequest;
@@ -44,7 +48,10 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
 
@@ -133,7 +140,8 @@ public class DataManagement {
                     "        \"odrl:permission\": %6$s,\n" +
                     "        \"odrl:prohibition\": %7$s,\n" +
                     "        \"odrl:obligation\": %8$s\n" +
-                    "    }\n" +
+                    "    },\n" +
+                    "    \"callbackAddresses\": %9$s\n" +
                     "}";
 
     public static final String NEGOTIATION_INITIATE_CALL = "%s/v2/contractnegotiations";
@@ -154,18 +162,11 @@ public class DataManagement {
             "    \"protocol\": \"dataspace-protocol-http\",\n" +
             "    \"transferType\": \"HttpData-PULL\",\n" +
             "    \"privateProperties\": {},\n" +
-            "    \"callbackAddresses\": [\n" +
-            "      {\n" +
-            "        \"transactional\": false,\n" +
-            "        \"uri\": \"%4$s\",\n" +
-            "        \"events\": [\n" +
-            "          \"transfer.process.started\"\n" +
-            "        ]\n" +
-            "      }\n" +
-            "    ] \n" +
+            "    \"callbackAddresses\": %4$s\n" +
             "}";
     public static final String TRANSFER_CHECK_CALL = "%s/v2/transferprocesses/%s";
     public static final String AGREEMENT_CHECK_CALL = "%s/v2/contractagreements/%s";
+    public static final String AGREEMENT_QUERY_CALL = "%s/v2/contractagreements/request";
 
     /**
      * references to EDC services
@@ -175,6 +176,30 @@ public class DataManagement {
     private final OkHttpClient httpClient;
     private final AgentConfig config;
 
+    /**
+     * an offered dataset of a remote connector
+     */
+    protected static class CachedOffer {
+        protected final String participantId;
+        protected final DcatDataset dataset;
+        protected final long timestamp;
+
+        protected CachedOffer(String participantId, DcatDataset dataset, long timestamp) {
+            this.participantId = participantId;
+            this.dataset = dataset;
+            this.timestamp = timestamp;
+        }
+
+        protected boolean isValid(long ttl) {
+            return System.currentTimeMillis() - timestamp < ttl;
+        }
+    }
+
+    /**
+     * offered datasets by remote connector and asset id, fed by all catalog requests
+     */
+    protected final Map<String, Map<String, CachedOffer>> catalogCache = new ConcurrentHashMap<>();
+
     /**
      * creates a service wrapper
      *
@@ -191,9 +216,7 @@ public class DataManagement {
     }
 
     /**
-     * Search for a dedicated asset
-     * TODO imperformant
-     * TODO replace by accessing the federated data catalogue
+     * Search for a dedicated asset, first in the catalog cache
      *
      * @param remoteControlPlaneIdsUrl url of the remote control plane ids endpoint
      * @param assetId                  (connector-unique) identifier of the asset
@@ -201,15 +224,67 @@ public class DataManagement {
      * @throws IOException in case that the remote call did not succeed
      */
     public DcatCatalog findContractOffers(String remoteControlPlaneIdsUrl, String assetId) throws IOException {
+        CachedOffer offer = catalogCache.getOrDefault(remoteControlPlaneIdsUrl, Map.of()).get(assetId);
+        if (offer != null && offer.isValid(config.getCatalogCacheTtl())) {
+            monitor.debug(format("Found contract offers for asset %s of connector %s in the catalog cache", assetId, remoteControlPlaneIdsUrl));
+            return createCatalog(offer.participantId, List.of(offer.dataset));
+        }
         QuerySpec findAsset = QuerySpec.Builder.newInstance().filter(
-                List.of(new Criterion("https://w3id.org/edc/v0.0.1/ns/id", "=", assetId))
-        ).build();
+                List.of(new Criterion("https://w3id.org/edc/v0.0.1/ns/id", "=", assetId))).build();
         String partnerId = config.getDataspaceSynchronizationConnectors().entrySet()
                 .stream().filter(entry -> entry.getValue().equals(remoteControlPlaneIdsUrl))
                 .findFirst().map(entry -> entry.getKey()).orElse(UUID.randomUUID().toString());
         return getCatalog(partnerId, remoteControlPlaneIdsUrl, findAsset);
     }
 
+    /**
+     * creates a catalog from cached datasets
+     *
+     * @param participantId id of the remote participant
+     * @param datasets      offered datasets
+     * @return catalog object
+     */
+    protected static DcatCatalog createCatalog(String participantId, List<DcatDataset> datasets) {
+        JsonArrayBuilder datasetArray = Json.createArrayBuilder();
+        datasets.forEach(dataset -> datasetArray.add(dataset.asJsonObject()));
+        return new DcatCatalog(Json.createObjectBuilder()
+                .add("https://w3id.org/dspace/v0.8/participantId", participantId)
+                .add("http://www.w3.org/ns/dcat#dataset", datasetArray)
+                .build());
+    }
+
+    /**
+     * puts the datasets of a catalog into the cache and evicts
+     * the expired datasets of the connector
+     *
+     * @param remoteControlPlaneIdsUrl url of the remote control plane ids endpoint
+     * @param catalog                  retrieved catalog
+     */
+    protected void cacheCatalog(String remoteControlPlaneIdsUrl, DcatCatalog catalog) {
+        long now = System.currentTimeMillis();
+        long ttl = config.getCatalogCacheTtl();
+        String participantId = catalog.getParticipantId();
+        Map<String, CachedOffer> connectorCache = catalogCache.computeIfAbsent(remoteControlPlaneIdsUrl, url -> new ConcurrentHashMap<>());
+        // offers which have vanished from the connector would otherwise stay forever
+        connectorCache.values().removeIf(offer -> !offer.isValid(ttl));
+        for (DcatDataset dataset : catalog.getDatasets()) {
+            connectorCache.put(dataset.getId(), new CachedOffer(participantId, dataset, now));
+        }
+    }
+
+    /**
+     * removes an asset from the catalog cache, e.g., if its offer has been rejected
+     *
+     * @param remoteControlPlaneIdsUrl url of the remote control plane ids endpoint
+     * @param assetId                  (connector-unique) identifier of the asset
+     */
+    public void invalidateContractOffers(String remoteControlPlaneIdsUrl, String assetId) {
+        Map<String, CachedOffer> connectorCache = catalogCache.get(remoteControlPlaneIdsUrl);
+        if (connectorCache != null) {
+            connectorCache.remove(assetId);
+        }
+    }
+
     /**
      * Access the catalogue
      *
@@ -220,20 +295,41 @@ public class DataManagement {
      * @throws IOException in case something went wrong
      */
     public DcatCatalog getCatalog(String partnerId, String remoteControlPlaneIdsUrl, QuerySpec spec) throws IOException {
+        return getCatalog(partnerId, remoteControlPlaneIdsUrl, spec, 0);
+    }
+
+    /**
+     * Access the catalogue within a given time
+     *
+     * @param partnerId                business partner id
+     * @param remoteControlPlaneIdsUrl url of the remote control plane ids endpoint
+     * @param spec                     query specification
+     * @param timeout                  maximal number of milliseconds for the whole call, 0 for the client defaults
+     * @return catalog object
+     * @throws IOException in case something went wrong (or the call timed out)
+     */
+    public DcatCatalog getCatalog(String partnerId, String remoteControlPlaneIdsUrl, QuerySpec spec, long timeout) throws IOException {
         var url = String.format(CATALOG_CALL, config.getControlPlaneManagementUrl());
         var catalogSpec = String.format(CATALOG_REQUEST_BODY, partnerId, String.format(DSP_PATH, remoteControlPlaneIdsUrl), objectMapper.writeValueAsString(spec));
 
         var request = new Request.Builder().url(url).post(RequestBody.create(catalogSpec, MediaType.parse("application/json")));
         config.getControlPlaneManagementHeaders().forEach(request::addHeader);
 
-        try (var response = httpClient.newCall(request.build()).execute()) {
+        var call = httpClient.newCall(request.build());
+        if (timeout > 0) {
+            call.timeout().timeout(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        try (var response = call.execute()) {
             var body = response.body();
 
             if (!response.isSuccessful() || body == null) {
                 throw new InternalServerErrorException(format("Control plane responded with: %s %s", response.code(), body != null ? body.string() : ""));
             }
 
-            return JsonLd.processCatalog(body.string());
+            DcatCatalog catalog = JsonLd.processCatalog(body.string());
+            cacheCatalog(remoteControlPlaneIdsUrl, catalog);
+            return catalog;
         } catch (Exception e) {
             monitor.severe(format("Error in calling the control plane at %s", url), e);
             throw e;
@@ -382,6 +478,29 @@ public class DataManagement {
         }
     }
 
+    /**
+     * renders callback addresses into a management api json array
+     *
+     * @param callbackAddresses list of callback addresses, maybe null
+     * @return json array text
+     */
+    protected static String renderCallbackAddresses(List<CallbackAddress> callbackAddresses) {
+        JsonArrayBuilder addresses = Json.createArrayBuilder();
+        if (callbackAddresses != null) {
+            for (CallbackAddress callbackAddress : callbackAddresses) {
+                JsonArrayBuilder events = Json.createArrayBuilder();
+                if (callbackAddress.getEvents() != null) {
+                    callbackAddress.getEvents().forEach(events::add);
+                }
+                addresses.add(Json.createObjectBuilder()
+                        .add("transactional", callbackAddress.isTransactional())
+                        .add("uri", callbackAddress.getUri())
+                        .add("events", events));
+            }
+        }
+        return addresses.build().toString();
+    }
+
     /**
      * initiates negotation
      *
@@ -403,7 +522,8 @@ public class DataManagement {
                 negotiationRequest.getOffer().getAssetId(),
                 negotiationRequest.getOffer().getPolicy().getPermissionAsString(),
                 negotiationRequest.getOffer().getPolicy().getObligationAsString(),
-                negotiationRequest.getOffer().getPolicy().getProhibitionAsString()
+                negotiationRequest.getOffer().getPolicy().getProhibitionAsString(),
+                renderCallbackAddresses(negotiationRequest.getCallbackAddresses())
                 );
 
         var requestBody = RequestBody.create(negotiateSpec, MediaType.parse("application/json"));
@@ -462,6 +582,45 @@ public class DataManagement {
         }
     }
 
+    /**
+     * find the contract agreements for an asset with a provider,
+     * the most recently signed agreements come first
+     *
+     * @param assetId    id of the agreed asset
+     * @param providerId id of the providing participant
+     * @return list of contract agreements, maybe empty
+     * @throws IOException in case something went wrong
+     */
+    public List<ContractAgreement> findAgreements(String assetId, String providerId) throws IOException {
+        var url = String.format(AGREEMENT_QUERY_CALL, config.getControlPlaneManagementUrl());
+        // the first page of a descending query holds the agreements worth reusing
+        QuerySpec findAgreement = QuerySpec.Builder.newInstance().filter(
+                List.of(new Criterion("assetId", "=", assetId), new Criterion("providerId", "=", providerId))
+        ).sortField("contractSigningDate").sortOrder(SortOrder.DESC).build();
+        var agreementObject = (ObjectNode) objectMapper.readTree(objectMapper.writeValueAsString(findAgreement));
+        agreementObject.set("@context", objectMapper.createObjectNode());
+        var agreementSpec = objectMapper.writeValueAsString(agreementObject);
+
+        var request = new Request.Builder().url(url).post(RequestBody.create(agreementSpec, MediaType.parse("application/json")));
+        config.getControlPlaneManagementHeaders().forEach(request::addHeader);
+
+        try (var response = httpClient.newCall(request.build()).execute()) {
+            var body = response.body();
+
+            if (!response.isSuccessful() || body == null) {
+                throw new InternalServerErrorException(format("Control plane responded with: %s %s", response.code(), body != null ? body.string() : ""));
+            }
+
+            var agreements = JsonLd.processContractAgreementList(body.string());
+            monitor.debug(format("%d agreements found for asset %s of provider %s", agreements.size(), assetId, providerId));
+
+            return agreements;
+        } catch (Exception e) {
+            monitor.severe(format("Error in calling the Control plane at %s", url), e);
+            throw e;
+        }
+    }
+
     /**
      * get a contract agreement by its id
      *
@@ -506,7 +665,7 @@ public class DataManagement {
                 transferRequest.getAssetId(),
                 transferRequest.getConnectorAddress(),
                 transferRequest.getContractId(),
-                transferRequest.getCallbackAddresses().get(0).getUri());
+                renderCallbackAddresses(transferRequest.getCallbackAddresses()));
 
         var requestBody = RequestBody.create(transferSpec, MediaType.parse("application/json"));
 
@@ -18,17 +18,18 @@ package org.eclipse.tractusx.agents.edc.service;
 
 import jakarta.json.Json;
 import jakarta.json.JsonValue;
-import org.apache.jena.atlas.lib.Sink;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.compose.Delta;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFParser;
-import org.apache.jena.riot.lang.StreamRDFCounting;
-import org.apache.jena.riot.system.ErrorHandler;
+import org.apache.jena.riot.lang.CollectorStreamTriples;
 import org.apache.jena.riot.system.ErrorHandlerFactory;
-import org.apache.jena.riot.system.StreamRDF;
-import org.apache.jena.riot.system.StreamRDFLib;
 import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
 import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.query.Criterion;
 import org.eclipse.edc.spi.query.QuerySpec;
@@ -37,27 +38,198 @@ import org.eclipse.tractusx.agents.edc.MonitorWrapper;
 import org.eclipse.tractusx.agents.edc.jsonld.JsonLd;
 import org.eclipse.tractusx.agents.edc.model.DcatCatalog;
 import org.eclipse.tractusx.agents.edc.model.DcatDataset;
+import org.eclipse.tractusx.agents.edc.rdf.GraphStatistics;
 import org.eclipse.tractusx.agents.edc.rdf.RdfStore;
 
+import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
 
 /**
  * A service which keeps a triple store and
- * the associated dataspace (partner catalogues) in sync
+ * the associated dataspace (partner catalogues) in sync.
+ * Each connector is synchronized on a schedule of its own
+ * whose freshness can be inspected.
  */
 public class DataspaceSynchronizer implements Runnable {
 
+    /**
+     * synchronization schedule and freshness of a single connector.
+     * The freshness is guarded by the state itself, so readers
+     * take a consistent snapshot.
+     */
+    public static class ConnectorState {
+        protected final String partnerId;
+        protected final String url;
+        protected final AtomicBoolean running = new AtomicBoolean(false);
+        protected ScheduledFuture<?> next;
+        protected long nextRun;
+        protected long lastSuccess;
+        protected long lastError;
+        protected String lastErrorMessage;
+        protected int failures;
+        protected long factCount;
+        protected long offerCount;
+
+        /**
+         * creates a new state
+         *
+         * @param partnerId business partner number of the connector
+         * @param url       protocol url of the connector
+         */
+        public ConnectorState(String partnerId, String url) {
+            this.partnerId = partnerId;
+            this.url = url;
+        }
+
+        /**
+         * records a successful synchronization
+         *
+         * @param time       of the synchronization
+         * @param factCount  number of facts published for the connector
+         * @param offerCount number of offers in the catalogue
+         */
+        public synchronized void recordSuccess(long time, long factCount, long offerCount) {
+            this.lastSuccess = time;
+            this.factCount = factCount;
+            this.offerCount = offerCount;
+            this.failures = 0;
+        }
+
+        /**
+         * records a failed synchronization
+         *
+         * @param time    of the synchronization
+         * @param message reason of the failure
+         */
+        public synchronized void recordFailure(long time, String message) {
+            this.lastError = time;
+            this.lastErrorMessage = message;
+            this.failures = failures + 1;
+        }
+
+        /**
+         * access
+         *
+         * @return a consistent copy of the freshness
+         */
+        public synchronized Freshness getFreshness() {
+            return new Freshness(partnerId, url, nextRun, lastSuccess, lastError, lastErrorMessage, failures, factCount, offerCount);
+        }
+
+        public String getPartnerId() {
+            return partnerId;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public synchronized int getFailures() {
+            return failures;
+        }
+    }
+
+    /**
+     * immutable freshness of a single connector
+     */
+    public static class Freshness {
+        protected final String partnerId;
+        protected final String url;
+        protected final long nextRun;
+        protected final long lastSuccess;
+        protected final long lastError;
+        protected final String lastErrorMessage;
+        protected final int failures;
+        protected final long factCount;
+        protected final long offerCount;
+
+        /**
+         * creates a new freshness
+         *
+         * @param partnerId        business partner number of the connector
+         * @param url              protocol url of the connector
+         * @param nextRun          time of the next synchronization
+         * @param lastSuccess      time of the last successful synchronization, 0 if none
+         * @param lastError        time of the last failed synchronization, 0 if none
+         * @param lastErrorMessage reason of the last failure, maybe null
+         * @param failures         number of consecutive failures
+         * @param factCount        number of facts published for the connector
+         * @param offerCount       number of offers in the catalogue
+         */
+        public Freshness(String partnerId, String url, long nextRun, long lastSuccess, long lastError, String lastErrorMessage, int failures, long factCount, long offerCount) {
+            this.partnerId = partnerId;
+            this.url = url;
+            this.nextRun = nextRun;
+            this.lastSuccess = lastSuccess;
+            this.lastError = lastError;
+            this.lastErrorMessage = lastErrorMessage;
+            this.failures = failures;
+            this.factCount = factCount;
+            this.offerCount = offerCount;
+        }
+
+        public String getPartnerId() {
+            return partnerId;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getNextRun() {
+            return nextRun;
+        }
+
+        public long getLastSuccess() {
+            return lastSuccess;
+        }
+
+        public long getLastError() {
+            return lastError;
+        }
+
+        public String getLastErrorMessage() {
+            return lastErrorMessage;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getFactCount() {
+            return factCount;
+        }
+
+        public long getOfferCount() {
+            return offerCount;
+        }
+    }
+
     /**
      * constants
      */
@@ -153,11 +325,41 @@ public class DataspaceSynchronizer implements Runnable {
     protected final Monitor monitor;
     protected final MonitorWrapper monitorWrapper;
 
+    /**
+     * bounded pool for fetching remote catalogs concurrently
+     */
+    protected final ExecutorService fetchService;
+
     /**
      * internal state
      */
     protected boolean isStarted = false;
 
+    /**
+     * synchronization state (schedule and freshness) by connector url
+     */
+    protected final Map<String, ConnectorState> states = new ConcurrentHashMap<>();
+
+    /**
+     * time of the last query against a connector url in milliseconds, 0 if never
+     */
+    protected final ToLongFunction<String> lastQueried;
+
+    /**
+     * fingerprints of the offers which have been applied last, by connector url and offer id
+     */
+    protected final Map<String, Map<String, String>> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * maximal number of distinct shapes descriptions held in the cache
+     */
+    public static final int MAX_CACHED_SHAPES = 1024;
+
+    /**
+     * parsed shapes triples by digest of the shapes description
+     */
+    protected final Map<String, List<Triple>> shapesCache = new ConcurrentHashMap<>();
+
     /**
      * creates the synchronizer
      *
@@ -168,12 +370,29 @@ public class DataspaceSynchronizer implements Runnable {
      * @param monitor        logging subsystem
      */
     public DataspaceSynchronizer(ScheduledExecutorService service, AgentConfig config, DataManagement dataManagement, RdfStore rdfStore, Monitor monitor) {
+        this(service, config, dataManagement, rdfStore, monitor, url -> 0L);
+    }
+
+    /**
+     * creates the synchronizer
+     *
+     * @param service        scheduler
+     * @param config         edc config
+     * @param dataManagement data management service remoting
+     * @param rdfStore       a triple store for persistance
+     * @param monitor        logging subsystem
+     * @param lastQueried    time of the last query against a connector url, used to prioritize synchronization
+     */
+    public DataspaceSynchronizer(ScheduledExecutorService service, AgentConfig config, DataManagement dataManagement, RdfStore rdfStore, Monitor monitor,
+                                 ToLongFunction<String> lastQueried) {
         this.service = service;
+        this.lastQueried = lastQueried;
         this.config = config;
         this.dataManagement = dataManagement;
         this.rdfStore = rdfStore;
         this.monitor = monitor;
         this.monitorWrapper = new MonitorWrapper(getClass().getName(), monitor);
+        this.fetchService = Executors.newFixedThreadPool(Math.max(1, config.getDataspaceSynchronizationParallelism()));
     }
 
     /**
@@ -186,7 +405,13 @@ public class DataspaceSynchronizer implements Runnable {
             Map<String, String> connectors = config.getDataspaceSynchronizationConnectors();
             if (interval > 0 && connectors != null && connectors.size() > 0) {
                 monitor.info(String.format("Starting dataspace synchronization on %d connectors with interval %d milliseconds", connectors.size(), interval));
-                service.schedule(this, interval, TimeUnit.MILLISECONDS);
+                for (Map.Entry<String, String> connector : connectors.entrySet()) {
+                    ConnectorState state = states.computeIfAbsent(connector.getValue(), url -> new ConnectorState(connector.getKey(), url));
+                    long connectorInterval = config.getDataspaceSynchronizationInterval(state.getUrl());
+                    if (connectorInterval > 0) {
+                        schedule(state, connectorInterval + getJitter());
+                    }
+                }
             }
         }
     }
@@ -198,158 +423,317 @@ public class DataspaceSynchronizer implements Runnable {
         if (isStarted) {
             monitor.info("Shutting down dataspace synchronization");
             isStarted = false;
+            fetchService.shutdownNow();
             service.shutdown();
         }
     }
 
     /**
-     * runs the synchronizer when scheduled
+     * synchronizes all connectors immediately, afterwards each of them
+     * continues with its own schedule
      */
     @Override
     public void run() {
-        monitor.debug("Synchronization run has been started");
-        if (isStarted) {
-            for (Map.Entry<String, String> remote : config.getDataspaceSynchronizationConnectors().entrySet()) {
-                if (isStarted) {
-                    monitor.debug(String.format("About to synchronize remote connector %s", remote));
-                    rdfStore.startTx();
-                    try {
-                        DcatCatalog catalog = dataManagement.getCatalog(remote.getKey(), remote.getValue(), FEDERATED_ASSET_QUERY);
-                        Node graph = rdfStore.getDefaultGraph();
-                        Node connector = NodeFactory.createURI(remote.getValue().replace("https", "edcs").replace("http", "edc"));
-                        deleteConnectorFacts(graph, connector);
-                        addConnectorFacts(remote.getValue(), catalog, graph, connector);
-                        rdfStore.commit();
-                    } catch (Throwable io) {
-                        monitor.warning(String.format("Could not synchronize remote connector %s because of %s. Going ahead.", remote, io));
-                        rdfStore.abort();
-                    }
-                } else {
-                    monitor.debug(String.format("Synchronization is no more active. Skipping all connectors starting from %s.", remote));
-                    break;
-                }
-            } // for
-            if (isStarted) {
-                monitor.debug("Schedule next synchronization run");
-                service.schedule(this, config.getDataspaceSynchronizationInterval(), TimeUnit.MILLISECONDS);
-            } else {
-                monitor.debug("Synchronization is no more active. Disable next run.");
+        monitor.debug("Synchronization of all connectors has been triggered");
+        states.values().forEach(state -> schedule(state, 0));
+    }
+
+    /**
+     * (re-)schedules the synchronization of a single connector
+     *
+     * @param state of the connector
+     * @param delay number of milliseconds to wait
+     */
+    protected void schedule(ConnectorState state, long delay) {
+        if (!isStarted) {
+            monitor.debug(String.format("Synchronization is no more active. Disable next run of connector %s.", state.getUrl()));
+            return;
+        }
+        synchronized (state) {
+            if (state.next != null) {
+                state.next.cancel(false);
+            }
+            state.nextRun = System.currentTimeMillis() + delay;
+            try {
+                state.next = service.schedule(() -> submit(state), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                monitor.debug(String.format("Synchronization is no more active. Disable next run of connector %s.", state.getUrl()));
             }
         }
     }
 
     /**
-     * adds new facts about the catalog thats been collected from the given connector
+     * hands the synchronization of a connector over to the bounded fetch pool
      *
-     * @param remote    url of the remote connector
-     * @param catalog   retrieved catalogue
-     * @param graph     to store the facts
-     * @param connector uri node representing the connector
-     * @return number of fact triples/quads added
-     */
-    public int addConnectorFacts(String remote, DcatCatalog catalog, Node graph, Node connector) {
-        int tupleCount;
-        List<DcatDataset> offers = catalog.getDatasets();
-        tupleCount = 0;
-        if (offers != null) {
-            monitor.debug(String.format("Found a catalog with %d entries for remote connector %s", offers.size(), remote));
-            for (DcatDataset offer : catalog.getDatasets()) {
-                tupleCount += addOfferFacts(graph, connector, offer);
+     * @param state of the connector
+     */
+    protected void submit(ConnectorState state) {
+        try {
+            fetchService.submit(() -> synchronize(state));
+        } catch (RejectedExecutionException e) {
+            monitor.debug(String.format("Synchronization is no more active. Skipping connector %s.", state.getUrl()));
+        }
+    }
+
+    /**
+     * fetches and applies the catalog of a single connector, records its freshness
+     * and schedules its next synchronization
+     *
+     * @param state of the connector
+     */
+    protected void synchronize(ConnectorState state) {
+        if (!isStarted || !state.running.compareAndSet(false, true)) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            monitor.debug(String.format("About to fetch the catalog of remote connector %s", state.getUrl()));
+            DcatCatalog catalog = dataManagement.getCatalog(state.getPartnerId(), state.getUrl(), FEDERATED_ASSET_QUERY, config.getDataspaceSynchronizationTimeout());
+            long facts = applyCatalog(state.getUrl(), catalog);
+            state.recordSuccess(System.currentTimeMillis(), facts, catalog.getDatasets().size());
+            monitor.debug(String.format("Synchronized remote connector %s with %d facts in %d milliseconds", state.getUrl(), facts, System.currentTimeMillis() - startTime));
+        } catch (IOException | RuntimeException e) {
+            state.recordFailure(System.currentTimeMillis(), String.valueOf(e.getMessage()));
+            monitor.warning(String.format("Could not synchronize remote connector %s (%d consecutive failures) because of %s. Going ahead.", state.getUrl(), state.getFailures(), e));
+        } finally {
+            state.running.set(false);
+            schedule(state, getNextDelay(state));
+        }
+    }
+
+    /**
+     * computes the delay until the next synchronization of a connector
+     *
+     * @param state of the connector
+     * @return number of milliseconds
+     */
+    protected long getNextDelay(ConnectorState state) {
+        long interval = config.getDataspaceSynchronizationInterval(state.getUrl());
+        if (interval <= 0) {
+            interval = config.getDataspaceSynchronizationInterval();
+        }
+        long delay = interval;
+        if (state.getFailures() > 0) {
+            // exponential backoff
+            delay = Math.min(config.getDataspaceSynchronizationBackoff(), interval << Math.min(state.getFailures(), 16));
+        } else if (lastQueried.applyAsLong(state.getUrl()) > System.currentTimeMillis() - interval) {
+            // prioritize connectors which are actually used
+            delay = interval / Math.max(1, config.getDataspaceSynchronizationPriority());
+        }
+        return Math.max(delay, 0) + getJitter();
+    }
+
+    /**
+     * access
+     *
+     * @return a random number of milliseconds to spread the synchronization load
+     */
+    protected long getJitter() {
+        long jitter = config.getDataspaceSynchronizationJitter();
+        if (jitter <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(jitter + 1);
+    }
+
+    /**
+     * access
+     *
+     * @return the synchronization states by connector url
+     */
+    public Map<String, ConnectorState> getConnectorStates() {
+        return states;
+    }
+
+    /**
+     * replaces the facts of a connector by the facts of its current catalog.
+     * the facts of each connector are kept in a graph of their own
+     * which is part of the default graph union and which is atomically
+     * swapped against an updated version.
+     *
+     * @param remote  url of the remote connector
+     * @param catalog retrieved catalogue
+     * @return number of facts published for the connector
+     */
+    protected long applyCatalog(String remote, DcatCatalog catalog) {
+        Node connector = NodeFactory.createURI(remote.replace("https", "edcs").replace("http", "edc"));
+        Node graph = connector;
+        Map<String, String> previous = fingerprints.get(remote);
+        Map<String, String> current = new HashMap<>();
+        Map<String, DcatDataset> changed = new HashMap<>();
+        for (DcatDataset offer : catalog.getDatasets()) {
+            Map<String, JsonValue> assetProperties = getProperties(offer);
+            String offerId = JsonLd.asString(assetProperties.get("@id"));
+            String fingerprint = getFingerprint(assetProperties);
+            current.put(offerId, fingerprint);
+            if (previous == null || !fingerprint.equals(previous.get(offerId))) {
+                changed.put(offerId, offer);
             }
-        } else {
-            monitor.warning(String.format("Found an empty catalog for remote connector %s", remote));
         }
-        monitor.debug(String.format("About to add %d new tuples.", tupleCount));
-        return tupleCount;
+        Graph published = rdfStore.getCatalogGraph(graph);
+        if (previous != null && published != null && changed.isEmpty() && current.keySet().containsAll(previous.keySet())) {
+            monitor.debug(String.format("Catalogue of remote connector %s with %d offers is unchanged", remote, current.size()));
+            return published.size();
+        }
+        // build the new catalogue off to the side, so readers and writers of the store are not blocked.
+        // the published graph is never changed, so an incremental update only layers its changes over it
+        boolean incremental = previous != null && published != null;
+        Graph catalogGraph = incremental ? createCatalogVersion(published) : GraphFactory.createDefaultGraph();
+        // the actual changes against the published catalogue keep the store statistics exact
+        GraphStatistics.Delta delta = new GraphStatistics.Delta();
+        if (incremental) {
+            for (String offerId : previous.keySet()) {
+                if (!current.containsKey(offerId) || changed.containsKey(offerId)) {
+                    deleteOfferFacts(catalogGraph, connector, NodeFactory.createURI(offerId), delta);
+                }
+            }
+        }
+        for (DcatDataset offer : changed.values()) {
+            for (Quad quad : convertToQuads(graph, connector, offer)) {
+                Triple triple = quad.asTriple();
+                if (!catalogGraph.contains(triple)) {
+                    catalogGraph.add(triple);
+                    delta.add(graph, triple);
+                }
+            }
+        }
+        if (!incremental || !rdfStore.publishCatalogGraph(graph, published, catalogGraph, delta)) {
+            rdfStore.publishCatalogGraph(graph, catalogGraph);
+        }
+        fingerprints.put(remote, current);
+        monitor.debug(String.format("Published catalogue of remote connector %s with %d tuples (%d changed of %d offers)", remote, catalogGraph.size(), changed.size(), current.size()));
+        return catalogGraph.size();
+    }
+
+    /**
+     * a catalogue graph which layers the changes of synchronizations
+     * over an immutable, materialized base graph
+     */
+    protected static class CatalogDelta extends Delta {
+        protected final Graph base;
+
+        protected CatalogDelta(Graph base) {
+            super(base);
+            this.base = base;
+        }
+
+        public Graph getBase() {
+            return base;
+        }
     }
 
     /**
-     * adds new facts about a concrete data offer collected from a given connector
+     * starts the next version of a published catalogue graph. The changes are collected
+     * over the materialized base of the published graph, so the cost is proportional to the
+     * changes since the base has been materialized. The base is only copied (which is
+     * proportional to the catalogue) once the accumulated changes exceed a quarter of its size.
      *
-     * @param graph     to store the facts
-     * @param connector uri node representing the connector
-     * @param offer     to convert into facts
-     * @return number of facts triples/quads added
-     */
-    public int addOfferFacts(Node graph, Node connector, DcatDataset offer) {
-        int tupleCount = 0;
-        var quads = convertToQuads(graph, connector, offer);
-        for (Quad quad : quads) {
-            tupleCount++;
-            rdfStore.getDataSet().add(quad);
-        }
-        return tupleCount;
+     * @param published the published catalogue graph, which is not changed
+     * @return an unpublished graph with the same content
+     */
+    protected static Graph createCatalogVersion(Graph published) {
+        if (!(published instanceof CatalogDelta)) {
+            return new CatalogDelta(published);
+        }
+        CatalogDelta previous = (CatalogDelta) published;
+        Graph base = previous.getBase();
+        if ((long) (previous.getAdditions().size() + previous.getDeletions().size()) * 4 > base.size()) {
+            Graph materialized = GraphFactory.createDefaultGraph();
+            GraphUtil.addInto(materialized, previous);
+            return new CatalogDelta(materialized);
+        }
+        CatalogDelta next = new CatalogDelta(base);
+        previous.getDeletions().find().forEachRemaining(next::delete);
+        previous.getAdditions().find().forEachRemaining(next::add);
+        return next;
     }
 
     /**
-     * deletes existing facts about a connector
+     * deletes the facts about a single offer from an unpublished catalogue graph.
+     * shapes are deleted together with their blank node closure unless they are
+     * still referenced by another offer of the connector. as blank nodes are
+     * relabelled per offer, the links of shared shapes into the closure are deleted, too.
      *
-     * @param graph     to delete the facts from
-     * @param connector to clean up the facts for
-     * @return number of fact triples/quads deleted
-     */
-    public int deleteConnectorFacts(Node graph, Node connector) {
-        // find all offers attached to the connector
-        Quad findAssets = Quad.create(graph, connector, CX_ASSET, Node.ANY);
-        Iterator<Quad> assetQuads = rdfStore.getDataSet().find(findAssets);
-        int tupleCount = 0;
-        while (assetQuads.hasNext()) {
-            Quad quadAsset = assetQuads.next();
-            Node assetNode = quadAsset.getObject();
-            tupleCount += deleteShaclShapes(graph, assetNode);
-            tupleCount += deleteAssetProperties(graph, assetNode);
-            rdfStore.getDataSet().delete(quadAsset);
-            tupleCount++;
-        }
-        monitor.debug(String.format("About to delete %d old tuples.", tupleCount));
-        return tupleCount;
+     * @param catalogGraph graph under construction
+     * @param connector    offering the asset
+     * @param assetNode    offered asset
+     * @param delta        records the deleted facts
+     */
+    protected void deleteOfferFacts(Graph catalogGraph, Node connector, Node assetNode, GraphStatistics.Delta delta) {
+        List<Node> shapes = catalogGraph.find(assetNode, SHAPE_OBJECT, Node.ANY).mapWith(Triple::getObject).toList();
+        List<Triple> facts = catalogGraph.find(assetNode, Node.ANY, Node.ANY).toList();
+        facts.add(Triple.create(connector, CX_ASSET, assetNode));
+        deleteFacts(catalogGraph, connector, facts, delta);
+        // collect the shapes which are no longer referenced and their blank node closure
+        Set<Node> owned = new HashSet<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        for (Node shape : shapes) {
+            if (!catalogGraph.contains(Node.ANY, SHAPE_OBJECT, shape) && owned.add(shape)) {
+                pending.push(shape);
+            }
+        }
+        facts = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            Node shape = pending.pop();
+            for (Triple fact : catalogGraph.find(shape, Node.ANY, Node.ANY).toList()) {
+                facts.add(fact);
+                if (fact.getObject().isBlank() && owned.add(fact.getObject())) {
+                    pending.push(fact.getObject());
+                }
+            }
+            if (shape.isBlank()) {
+                catalogGraph.find(Node.ANY, Node.ANY, shape).forEachRemaining(facts::add);
+            }
+        }
+        deleteFacts(catalogGraph, connector, facts, delta);
     }
 
     /**
-     * deletes properties of a given offer/asset
+     * deletes facts from an unpublished catalogue graph
      *
-     * @param graph     where facts are stored
-     * @param assetNode to delete properties from
-     * @return number of property facts deleted
-     */
-    public int deleteAssetProperties(Node graph, Node assetNode) {
-        int tupleCount = 0;
-        // remove all remaining properties associated to the offer/asset
-        Quad findAssetProps = Quad.create(graph, assetNode, Node.ANY, Node.ANY);
-        Iterator<Quad> propQuads = rdfStore.getDataSet().find(findAssetProps);
-        while (propQuads.hasNext()) {
-            Quad quadProp = propQuads.next();
-            rdfStore.getDataSet().delete(quadProp);
-            tupleCount++;
-        }
-        return tupleCount;
+     * @param catalogGraph graph under construction
+     * @param graph        name of the published graph
+     * @param facts        to delete
+     * @param delta        records the deleted facts
+     */
+    private static void deleteFacts(Graph catalogGraph, Node graph, List<Triple> facts, GraphStatistics.Delta delta) {
+        for (Triple fact : facts) {
+            if (catalogGraph.contains(fact)) {
+                catalogGraph.delete(fact);
+                delta.delete(graph, fact);
+            }
+        }
     }
 
     /**
-     * delete all shacl shapes associated to an asset node
+     * computes a fingerprint of the content of an offer
+     * (the policy is ignored as its id changes with every catalog request)
      *
-     * @param graph     where the shapes are stored
-     * @param assetNode to delete the shapes from
-     * @return number of associated shapes (and their properties)
-     */
-    public int deleteShaclShapes(Node graph, Node assetNode) {
-        int tupleCount = 0;
-        // remove all shacl shapes associated to the offer/asset
-        Quad findAssetShapes = Quad.create(graph, assetNode, SHAPE_OBJECT, Node.ANY);
-        Iterator<Quad> shapesQuad = rdfStore.getDataSet().find(findAssetShapes);
-        while (shapesQuad.hasNext()) {
-            Quad shapeQuad = shapesQuad.next();
-            Node shapesObject = shapeQuad.getObject();
-            Quad findShapesPredicates = Quad.create(graph, shapesObject, Node.ANY, Node.ANY);
-            Iterator<Quad> shapesFacts = rdfStore.getDataSet().find(findShapesPredicates);
-            while (shapesFacts.hasNext()) {
-                rdfStore.getDataSet().delete(shapesFacts.next());
-                tupleCount++;
+     * @param assetProperties properties of the offer
+     * @return fingerprint
+     */
+    protected static String getFingerprint(Map<String, JsonValue> assetProperties) {
+        StringBuilder content = new StringBuilder();
+        new TreeMap<>(assetProperties).forEach((key, value) -> {
+            if (!key.equals("http://www.w3.org/ns/odrl/2/hasPolicy")) {
+                content.append(key).append('=').append(value).append('\n');
             }
-            rdfStore.getDataSet().delete(shapeQuad);
-            tupleCount++;
+        });
+        return getDigest(content.toString());
+    }
+
+    /**
+     * computes a digest of a text
+     *
+     * @param content text
+     * @return base64 encoded sha-256 hash (or the text itself if hashing is not available)
+     */
+    protected static String getDigest(String content) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            return content;
         }
-        return tupleCount;
     }
 
     /**
@@ -479,37 +863,58 @@ public class DataspaceSynchronizer implements Runnable {
      * @param shapesDescription a hopefully valid shacl shape turtle
      */
     private void addShapesFacts(Node graph, List<Quad> quads, Node assetNode, String shapesDescription) {
-        StreamRDF dest = StreamRDFLib.sinkQuads(new Sink<>() {
-
-            protected Set<String> connectedSubjects = new HashSet<>();
-
-            @Override
-            public void close() {
+        List<Triple> shapes = getShapesTriples(shapesDescription);
+        // blank nodes of the cached triples are relabelled per use, so assets never share shape nodes
+        Map<Node, Node> blankNodes = new HashMap<>();
+        Set<Node> connectedSubjects = new HashSet<>();
+        for (Triple shape : shapes) {
+            Node subject = relabel(shape.getSubject(), blankNodes);
+            if (connectedSubjects.add(subject)) {
+                quads.add(new Quad(graph, assetNode, SHAPE_OBJECT, subject));
             }
+            quads.add(Quad.create(graph, subject, shape.getPredicate(), relabel(shape.getObject(), blankNodes)));
+        }
+        monitor.debug(String.format("Added shapes subgraph to asset %s with %d triples", assetNode, shapes.size()));
+    }
 
-            @Override
-            public void send(Quad quad) {
-                String subject = quad.getSubject().toString(false);
-                if (!connectedSubjects.contains(subject)) {
-                    quads.add(new Quad(graph, assetNode, SHAPE_OBJECT, quad.getSubject()));
-                    connectedSubjects.add(subject);
-                }
-                quads.add(quad);
+    /**
+     * parses a shapes description once per distinct text
+     *
+     * @param shapesDescription a hopefully valid shacl shape turtle
+     * @return parsed (shared and immutable) triples
+     */
+    protected List<Triple> getShapesTriples(String shapesDescription) {
+        String key = getDigest(shapesDescription);
+        List<Triple> shapes = shapesCache.get(key);
+        if (shapes == null) {
+            CollectorStreamTriples collector = new CollectorStreamTriples();
+            RDFParser.create()
+                    .errorHandler(ErrorHandlerFactory.errorHandlerStd(monitorWrapper))
+                    .source(new StringReader(shapesDescription))
+                    .lang(Lang.TTL)
+                    .parse(collector);
+            shapes = List.copyOf(collector.getCollected());
+            if (shapesCache.size() >= MAX_CACHED_SHAPES) {
+                shapesCache.clear();
             }
+            shapesCache.put(key, shapes);
+            monitor.debug(String.format("Parsed and cached shapes description %s with %d triples", key, shapes.size()));
+        }
+        return shapes;
+    }
 
-            @Override
-            public void flush() {
-            }
-        });
-        StreamRDF graphDest = StreamRDFLib.extendTriplesToQuads(graph, dest);
-        StreamRDFCounting countingDest = StreamRDFLib.count(graphDest);
-        ErrorHandler errorHandler = ErrorHandlerFactory.errorHandlerStd(monitorWrapper);
-        RDFParser.create()
-                .errorHandler(errorHandler)
-                .source(new StringReader(shapesDescription))
-                .lang(Lang.TTL)
-                .parse(countingDest);
-        monitor.debug(String.format("Added shapes subgraph to asset %s with %d triples", assetNode, countingDest.countTriples()));
+    /**
+     * replaces a blank node by a fresh one (consistently within a mapping)
+     *
+     * @param node       node to relabel
+     * @param blankNodes mapping of blank nodes
+     * @return fresh blank node or the original node if it is not blank
+     */
+    protected static Node relabel(Node node, Map<Node, Node> blankNodes) {
+        if (node.isBlank()) {
+            return blankNodes.computeIfAbsent(node, blankNode -> NodeFactory.createBlankNode());
+        }
+        return node;
     }
 
 }
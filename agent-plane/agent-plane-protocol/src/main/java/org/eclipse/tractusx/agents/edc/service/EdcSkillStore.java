@@ -17,6 +17,7 @@
 package org.eclipse.tractusx.agents.edc.service;
 
 import com.fasterxml.jackson.databind.node.TextNode;
+import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.query.Criterion;
 import org.eclipse.edc.spi.query.QuerySpec;
 import org.eclipse.edc.spi.types.TypeManager;
@@ -28,22 +29,110 @@ import org.eclipse.tractusx.agents.edc.model.Asset;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 
 /**
  * Implements a skill store based on EDC assets
+ * skills resolved from the control plane are cached
+ * (text, distribution and service patterns from a single fetch)
  */
 public class EdcSkillStore implements SkillStore {
 
+    public static final String DISTRIBUTION_MODE_PROPERTY = "https://w3id.org/catenax/ontology/common#distributionMode";
+    public static final String QUERY_PROPERTY = "https://w3id.org/catenax/ontology/common#query";
+    public static final String ALLOW_SERVICE_PROPERTY = "https://w3id.org/catenax/ontology/common#allowServicePattern";
+    public static final String DENY_SERVICE_PROPERTY = "https://w3id.org/catenax/ontology/common#denyServicePattern";
+
     DataManagement management;
     TypeManager typeManager;
     AgentConfig config;
+    Monitor monitor;
+
+    /**
+     * skill cache indexed by asset name
+     */
+    protected final Map<String, SkillEntry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * statistics about control plane interaction
+     */
+    protected final AtomicLong controlPlaneCalls = new AtomicLong();
+    protected final AtomicLong savedCalls = new AtomicLong();
 
     public EdcSkillStore(DataManagement management, TypeManager typeManager, AgentConfig config) {
+        this(management, typeManager, config, null);
+    }
+
+    /**
+     * creates a skill store which reports its control plane interaction
+     *
+     * @param management  control plane access
+     * @param typeManager serialization
+     * @param config      typed config
+     * @param monitor     logging subsystem, maybe null
+     */
+    public EdcSkillStore(DataManagement management, TypeManager typeManager, AgentConfig config, Monitor monitor) {
         this.management = management;
         this.typeManager = typeManager;
         this.config = config;
+        this.monitor = monitor;
+    }
+
+    /**
+     * a cached skill
+     */
+    public static class SkillEntry {
+        protected final String text;
+        protected final SkillDistribution distribution;
+        protected final String allowServicePattern;
+        protected final String denyServicePattern;
+        protected final long timestamp;
+
+        /**
+         * creates a new cache entry
+         *
+         * @param text                query text of the skill
+         * @param distribution        distribution mode of the skill
+         * @param allowServicePattern allowed services, maybe null
+         * @param denyServicePattern  denied services, maybe null
+         */
+        public SkillEntry(String text, SkillDistribution distribution, String allowServicePattern, String denyServicePattern) {
+            this.text = text;
+            this.distribution = distribution;
+            this.allowServicePattern = allowServicePattern;
+            this.denyServicePattern = denyServicePattern;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public SkillDistribution getDistribution() {
+            return distribution;
+        }
+
+        public String getAllowServicePattern() {
+            return allowServicePattern;
+        }
+
+        public String getDenyServicePattern() {
+            return denyServicePattern;
+        }
+
+        /**
+         * check validity
+         *
+         * @param ttl time to live in milliseconds
+         * @return whether this entry is still valid
+         */
+        public boolean isValid(long ttl) {
+            return System.currentTimeMillis() - timestamp < ttl;
+        }
     }
 
     @Override
@@ -71,7 +160,7 @@ public class EdcSkillStore implements SkillStore {
         }
         String ontologiesString = String.join(",", ontologies);
         try {
-            return management.createOrUpdateSkill(
+            String id = management.createOrUpdateSkill(
                     key,
                     name,
                     description,
@@ -84,15 +173,89 @@ public class EdcSkillStore implements SkillStore {
                     allowServicePatern,
                     denyServicePattern
             ).getId();
+            if (config.getSkillCacheTtl() > 0) {
+                cache.put(key, new SkillEntry(skill, dist, allowServicePatern, denyServicePattern));
+            }
+            return id;
         } catch (IOException e) {
+            cache.remove(key);
             return null;
         }
     }
 
     @Override
     public SkillDistribution getDistribution(String key) {
-        return findAsset(key).map(asset -> SkillDistribution.valueOfMode(JsonLd.asString(asset.getPublicProperties()
-                .get("https://w3id.org/catenax/ontology/common#distributionMode")))).orElse(SkillDistribution.ALL);
+        return findSkill(key).map(SkillEntry::getDistribution).orElse(SkillDistribution.ALL);
+    }
+
+    /**
+     * finds a skill, either in the cache or
+     * by a single lookup in the control plane
+     *
+     * @param key asset name
+     * @return optional skill entry
+     */
+    public Optional<SkillEntry> findSkill(String key) {
+        long ttl = config.getSkillCacheTtl();
+        if (ttl > 0) {
+            SkillEntry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.isValid(ttl)) {
+                    long saved = savedCalls.incrementAndGet();
+                    if (monitor != null) {
+                        monitor.debug(String.format("Served skill %s from the cache (%d control plane calls saved, %d issued).", key, saved, controlPlaneCalls.get()));
+                    }
+                    return Optional.of(entry);
+                }
+                cache.remove(key, entry);
+            }
+        }
+        Optional<SkillEntry> result = findAsset(key).map(EdcSkillStore::toSkillEntry);
+        if (ttl > 0) {
+            result.ifPresent(entry -> cache.put(key, entry));
+        }
+        return result;
+    }
+
+    /**
+     * converts a skill asset into a cache entry
+     *
+     * @param asset skill asset from the control plane
+     * @return cache entry
+     */
+    protected static SkillEntry toSkillEntry(Asset asset) {
+        SkillDistribution distribution = SkillDistribution.valueOfMode(JsonLd.asString(asset.getPublicProperties().get(DISTRIBUTION_MODE_PROPERTY)));
+        String text = JsonLd.asString(asset.getPrivateProperties().get(QUERY_PROPERTY));
+        String allowServicePattern = null;
+        String denyServicePattern = null;
+        var dataAddress = asset.getDataAddress();
+        if (dataAddress != null) {
+            if (dataAddress.containsKey(ALLOW_SERVICE_PROPERTY)) {
+                allowServicePattern = JsonLd.asString(dataAddress.get(ALLOW_SERVICE_PROPERTY));
+            }
+            if (dataAddress.containsKey(DENY_SERVICE_PROPERTY)) {
+                denyServicePattern = JsonLd.asString(dataAddress.get(DENY_SERVICE_PROPERTY));
+            }
+        }
+        return new SkillEntry(text, distribution, allowServicePattern, denyServicePattern);
+    }
+
+    /**
+     * access
+     *
+     * @return number of asset lookups issued against the control plane
+     */
+    public long getControlPlaneCalls() {
+        return controlPlaneCalls.get();
+    }
+
+    /**
+     * access
+     *
+     * @return number of asset lookups answered from the cache
+     */
+    public long getSavedCalls() {
+        return savedCalls.get();
     }
 
     /**
@@ -103,6 +266,10 @@ public class EdcSkillStore implements SkillStore {
                 List.of(new Criterion("https://w3id.org/edc/v0.0.1/ns/id", "=", key),
                         new Criterion("http://www.w3.org/1999/02/22-rdf-syntax-ns#type", "=", "cx-common:SkillAsset"))).build();
         try {
+            long calls = controlPlaneCalls.incrementAndGet();
+            if (monitor != null) {
+                monitor.debug(String.format("Looking up skill %s in the control plane (%d control plane calls issued, %d saved).", key, calls, savedCalls.get()));
+            }
             // we need to filter until the criterion really works
             return management
                     .listAssets(findAsset).stream()
@@ -114,8 +281,6 @@ public class EdcSkillStore implements SkillStore {
 
     @Override
     public Optional<String> get(String key) {
-        return findAsset(key).map(asset ->
-                JsonLd.asString(asset.getPrivateProperties().get("https://w3id.org/catenax/ontology/common#query"))
-        );
+        return findSkill(key).map(SkillEntry::getText);
     }
 }
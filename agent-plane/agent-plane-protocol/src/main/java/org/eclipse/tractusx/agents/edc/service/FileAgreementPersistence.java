@@ -0,0 +1,337 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.types.domain.edr.EndpointDataReference;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.AgreementPersistence;
+import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * An agreement persistence that appends each change as a json line
+ * to a journal file which is compacted when it contains mostly superseded entries.
+ * Endpoint tokens are encrypted with AES-GCM using the configured key,
+ * without a key only the agreements are persisted.
+ */
+public class FileAgreementPersistence implements AgreementPersistence {
+
+    public static final String CIPHER = "AES/GCM/NoPadding";
+    public static final int IV_LENGTH = 12;
+    public static final int TAG_LENGTH = 128;
+
+    protected final Monitor monitor;
+    protected final Path file;
+    protected final SecretKey key;
+    protected final SecureRandom random = new SecureRandom();
+
+    /**
+     * serialized records by asset
+     */
+    protected final Map<String, JsonObject> records = new ConcurrentHashMap<>();
+
+    /**
+     * number of lines in the journal, guarded by this
+     */
+    protected long journalEntries = 0;
+
+    /**
+     * create the persistence
+     *
+     * @param config  typed config
+     * @param monitor logging subsystem
+     */
+    public FileAgreementPersistence(AgentConfig config, Monitor monitor) {
+        this.monitor = monitor;
+        this.file = Path.of(config.getAgreementStoreFile());
+        String encodedKey = config.getAgreementStoreKey();
+        SecretKey secretKey = null;
+        if (encodedKey != null) {
+            try {
+                byte[] keyBytes = Base64.getDecoder().decode(encodedKey);
+                if (keyBytes.length == 16 || keyBytes.length == 24 || keyBytes.length == 32) {
+                    secretKey = new SecretKeySpec(keyBytes, "AES");
+                } else {
+                    monitor.warning(String.format("Agreement store key has %d bytes instead of 16, 24 or 32. Endpoint references will not be persisted in %s.", keyBytes.length, file));
+                }
+            } catch (IllegalArgumentException e) {
+                monitor.warning(String.format("Agreement store key is not valid base64. Endpoint references will not be persisted in %s.", file));
+            }
+        } else {
+            monitor.warning(String.format("No agreement store key configured. Endpoint references will not be persisted in %s.", file));
+        }
+        this.key = secretKey;
+    }
+
+    @Override
+    public synchronized Collection<AgreementRecord> load() {
+        List<AgreementRecord> result = new ArrayList<>();
+        if (!Files.exists(file)) {
+            monitor.info(String.format("Agreement store %s does not exist yet. Starting without agreements.", file));
+            return result;
+        }
+        records.clear();
+        journalEntries = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                journalEntries++;
+                try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+                    JsonObject entry = jsonReader.readObject();
+                    String asset = entry.getString("asset");
+                    if (entry.getBoolean("removed", false)) {
+                        records.remove(asset);
+                    } else {
+                        records.put(asset, entry);
+                    }
+                } catch (RuntimeException e) {
+                    monitor.warning(String.format("Skipping corrupt entry in agreement store %s because of %s", file, e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            monitor.severe(String.format("Could not read agreement store %s. Starting without agreements.", file), e);
+            records.clear();
+            return result;
+        }
+        for (Map.Entry<String, JsonObject> entry : Map.copyOf(records).entrySet()) {
+            try {
+                result.add(fromJson(entry.getKey(), entry.getValue()));
+            } catch (RuntimeException e) {
+                monitor.warning(String.format("Skipping corrupt entry for asset %s in agreement store %s because of %s", entry.getKey(), file, e.getMessage()));
+                records.remove(entry.getKey());
+            }
+        }
+        if (journalEntries > records.size()) {
+            compact();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void store(AgreementRecord record) {
+        JsonObject entry = Json.createObjectBuilder(toJson(record)).add("asset", record.getAsset()).build();
+        if (append(entry)) {
+            records.put(record.getAsset(), entry);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String asset) {
+        if (records.containsKey(asset) && append(Json.createObjectBuilder().add("asset", asset).add("removed", true).build())) {
+            records.remove(asset);
+        }
+    }
+
+    /**
+     * appends an entry to the journal and compacts the journal
+     * if the superseded entries outnumber the live ones
+     *
+     * @param entry json line to append
+     * @return whether the entry has been written
+     */
+    protected synchronized boolean append(JsonObject entry) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(file, entry.toString() + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not append asset %s to agreement store %s.", entry.getString("asset"), file), e);
+            return false;
+        }
+        journalEntries++;
+        if (journalEntries > 2L * records.size() + 16) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * rewrites the journal such that only the latest entry of each asset remains
+     */
+    protected synchronized void compact() {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (JsonObject entry : records.values()) {
+                writer.write(entry.toString());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not compact agreement store %s. Going ahead with the uncompacted journal.", file), e);
+            return;
+        }
+        try {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            monitor.debug(String.format("Compacted agreement store %s from %d to %d entries.", file, journalEntries, records.size()));
+            journalEntries = records.size();
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not replace agreement store %s by its compacted version.", file), e);
+        }
+    }
+
+    /**
+     * serializes a record
+     *
+     * @param record agreement record
+     * @return json representation, without the endpoint reference if its token could not be encrypted
+     */
+    protected JsonObject toJson(AgreementRecord record) {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        if (record.getRemoteUrl() != null) {
+            builder.add("remoteUrl", record.getRemoteUrl());
+        }
+        if (record.getAgreement() != null) {
+            builder.add("agreement", record.getAgreement().asJsonObject());
+        }
+        JsonObjectBuilder properties = Json.createObjectBuilder();
+        record.getAssetProperties().forEach(properties::add);
+        builder.add("assetProperties", properties);
+        EndpointDataReference reference = record.getReference();
+        if (reference != null && key != null) {
+            try {
+                JsonObjectBuilder referenceProperties = Json.createObjectBuilder();
+                reference.getProperties().forEach((name, value) -> referenceProperties.add(name, String.valueOf(value)));
+                // references may lack any of their fields, absent fields are skipped
+                JsonObjectBuilder referenceObject = Json.createObjectBuilder();
+                addIfPresent(referenceObject, "id", reference.getId());
+                addIfPresent(referenceObject, "contractId", reference.getContractId());
+                addIfPresent(referenceObject, "endpoint", reference.getEndpoint());
+                addIfPresent(referenceObject, "authKey", reference.getAuthKey());
+                if (reference.getAuthCode() != null) {
+                    referenceObject.add("authCode", encrypt(reference.getAuthCode()));
+                }
+                builder.add("reference", referenceObject.add("properties", referenceProperties));
+            } catch (GeneralSecurityException e) {
+                monitor.warning(String.format("Could not encrypt the endpoint reference of asset %s. Persisting the agreement only.", record.getAsset()), e);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * adds a string field unless it is null
+     *
+     * @param builder json object under construction
+     * @param name    of the field
+     * @param value   of the field, may be null
+     */
+    protected static void addIfPresent(JsonObjectBuilder builder, String name, String value) {
+        if (value != null) {
+            builder.add(name, value);
+        }
+    }
+
+    /**
+     * deserializes a record
+     *
+     * @param asset  name of the asset
+     * @param object json representation
+     * @return agreement record, without the endpoint reference if its token could not be decrypted
+     */
+    protected AgreementRecord fromJson(String asset, JsonObject object) {
+        EndpointDataReference reference = null;
+        JsonObject referenceObject = object.getJsonObject("reference");
+        // a reference cannot be built without its endpoint
+        if (referenceObject != null && referenceObject.containsKey("endpoint") && key != null) {
+            try {
+                String authCode = referenceObject.getString("authCode", null);
+                reference = EndpointDataReference.Builder.newInstance()
+                        .id(referenceObject.getString("id", null))
+                        .contractId(referenceObject.getString("contractId", null))
+                        .endpoint(referenceObject.getString("endpoint", null))
+                        .authKey(referenceObject.getString("authKey", null))
+                        .authCode(authCode != null ? decrypt(authCode) : null)
+                        .build();
+                for (Map.Entry<String, JsonValue> property : referenceObject.getJsonObject("properties").entrySet()) {
+                    reference.getProperties().put(property.getKey(), ((JsonString) property.getValue()).getString());
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                // the agreement remains usable for new transfers
+                monitor.warning(String.format("Could not decrypt the endpoint reference of asset %s because of %s. Restoring the agreement only.", asset, e.getMessage()));
+                reference = null;
+            }
+        }
+        JsonObject agreement = object.getJsonObject("agreement");
+        JsonObject assetProperties = object.getJsonObject("assetProperties");
+        return new AgreementRecord(asset, object.getString("remoteUrl", null), agreement != null ? new ContractAgreement(agreement) : null,
+                assetProperties != null ? assetProperties : JsonValue.EMPTY_JSON_OBJECT, reference);
+    }
+
+    /**
+     * encrypts a token
+     *
+     * @param plain token
+     * @return base64 encoded iv and cipher text
+     * @throws GeneralSecurityException if the token could not be encrypted
+     */
+    protected String encrypt(String plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+        byte[] encrypted = cipher.doFinal(plain.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+    }
+
+    /**
+     * decrypts a token
+     *
+     * @param encoded base64 encoded iv and cipher text
+     * @return token
+     * @throws GeneralSecurityException if the token could not be decrypted
+     */
+    protected String decrypt(String encoded) throws GeneralSecurityException {
+        byte[] data = Base64.getDecoder().decode(encoded);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, data, 0, IV_LENGTH));
+        return new String(cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH), StandardCharsets.UTF_8);
+    }
+}
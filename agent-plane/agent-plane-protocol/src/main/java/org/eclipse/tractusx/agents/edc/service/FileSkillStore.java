@@ -0,0 +1,359 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.types.TypeManager;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.SkillDistribution;
+import org.eclipse.tractusx.agents.edc.SkillStore;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+/**
+ * A skill store for local skills that is backed by
+ * an append-only journal file. All skills are kept in a concurrent
+ * in-memory index (reads do not lock) which is replayed from the
+ * journal at startup, so skills survive restarts and do not depend
+ * on the availability of the control plane.
+ */
+public class FileSkillStore implements SkillStore {
+
+    /**
+     * a versioned skill as stored in the journal
+     */
+    public static class SkillRecord {
+        protected final String key;
+        protected final String skill;
+        protected final String name;
+        protected final String description;
+        protected final String version;
+        protected final String contract;
+        protected final SkillDistribution distribution;
+        protected final boolean isFederated;
+        protected final String allowServicePattern;
+        protected final String denyServicePattern;
+        protected final String[] ontologies;
+        protected final long revision;
+
+        /**
+         * creates a new skill record
+         *
+         * @param key                 asset name
+         * @param skill               query text
+         * @param name                of skill
+         * @param description         of skill
+         * @param version             of skill
+         * @param contract            of skill
+         * @param distribution        of skill
+         * @param isFederated         whether skill maybe synchronized in catalogue
+         * @param allowServicePattern regex for service to call in skill
+         * @param denyServicePattern  regex for services denied in skill
+         * @param ontologies          a set of ontologies
+         * @param revision            monotonic revision inside the journal
+         */
+        public SkillRecord(String key, String skill, String name, String description, String version, String contract, SkillDistribution distribution,
+                           boolean isFederated, String allowServicePattern, String denyServicePattern, String[] ontologies, long revision) {
+            this.key = key;
+            this.skill = skill;
+            this.name = name;
+            this.description = description;
+            this.version = version;
+            this.contract = contract;
+            this.distribution = distribution;
+            this.isFederated = isFederated;
+            this.allowServicePattern = allowServicePattern;
+            this.denyServicePattern = denyServicePattern;
+            this.ontologies = ontologies;
+            this.revision = revision;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getSkill() {
+            return skill;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public SkillDistribution getDistribution() {
+            return distribution;
+        }
+
+        public long getRevision() {
+            return revision;
+        }
+    }
+
+    protected final AgentConfig config;
+    protected final ObjectMapper objectMapper;
+    protected final Monitor monitor;
+    protected final Path journal;
+
+    /**
+     * lock-free index of the latest skill revision by asset name
+     */
+    protected final Map<String, SkillRecord> skills = new ConcurrentHashMap<>();
+
+    /**
+     * all known versions of a skill by asset name
+     */
+    protected final Map<String, Map<String, SkillRecord>> versions = new ConcurrentHashMap<>();
+
+    /**
+     * journal state, guarded by this
+     */
+    protected long revision = 0;
+    protected long journalEntries = 0;
+
+    /**
+     * create the store and replay the journal
+     *
+     * @param config      typed config
+     * @param typeManager serialization
+     * @param monitor     logging subsystem
+     */
+    public FileSkillStore(AgentConfig config, TypeManager typeManager, Monitor monitor) {
+        this.config = config;
+        this.objectMapper = typeManager.getMapper();
+        this.monitor = monitor;
+        this.journal = Path.of(config.getSkillStoreFile());
+        load();
+    }
+
+    /**
+     * replays the journal into the index and compacts
+     * the journal if it contains superseded entries
+     */
+    protected synchronized void load() {
+        if (!Files.exists(journal)) {
+            monitor.info(String.format("Skill journal %s does not exist yet. Starting with an empty skill store.", journal));
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    index(fromJson(objectMapper.readTree(line)));
+                    journalEntries++;
+                } catch (IOException | RuntimeException e) {
+                    monitor.warning(String.format("Skipping corrupt entry in skill journal %s because of %s", journal, e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            monitor.severe(String.format("Could not read skill journal %s. Starting with an empty skill store.", journal), e);
+            return;
+        }
+        monitor.info(String.format("Loaded %d skills (%d versions) from journal %s in %d milliseconds.", skills.size(),
+                versions.values().stream().mapToInt(Map::size).sum(), journal, System.currentTimeMillis() - start));
+        long liveEntries = versions.values().stream().mapToInt(Map::size).sum();
+        if (journalEntries > liveEntries) {
+            compact();
+        }
+    }
+
+    /**
+     * rewrites the journal such that only the latest revision of each skill version remains
+     */
+    protected synchronized void compact() {
+        Path compacted = journal.resolveSibling(journal.getFileName() + ".compact");
+        List<SkillRecord> records = new ArrayList<>();
+        versions.values().forEach(skillVersions -> records.addAll(skillVersions.values()));
+        records.sort((first, second) -> Long.compare(first.getRevision(), second.getRevision()));
+        try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (SkillRecord record : records) {
+                writer.write(objectMapper.writeValueAsString(toJson(record)));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not compact skill journal %s. Going ahead with the uncompacted journal.", journal), e);
+            return;
+        }
+        try {
+            Files.move(compacted, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            monitor.debug(String.format("Compacted skill journal %s from %d to %d entries.", journal, journalEntries, records.size()));
+            journalEntries = records.size();
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not replace skill journal %s by its compacted version.", journal), e);
+        }
+    }
+
+    /**
+     * puts a record into the index
+     *
+     * @param record to index
+     */
+    protected void index(SkillRecord record) {
+        revision = Math.max(revision, record.getRevision());
+        versions.computeIfAbsent(record.getKey(), key -> new ConcurrentHashMap<>()).put(record.getVersion(), record);
+        skills.merge(record.getKey(), record, (existing, update) -> existing.getRevision() > update.getRevision() ? existing : update);
+    }
+
+    @Override
+    public boolean isSkill(String key) {
+        Matcher matcher = config.getAssetReferencePattern().matcher(key);
+        return matcher.matches() && matcher.group("asset").contains("Skill");
+    }
+
+    @Override
+    public synchronized String put(String key, String skill, String name, String description, String version, String contract, SkillDistribution dist,
+                                   boolean isFederated, String allowServicePattern, String denyServicePattern, String... ontologies) {
+        if (version == null) {
+            version = "unknown version";
+        }
+        if (contract == null) {
+            contract = config.getDefaultSkillContract();
+        }
+        if (dist == null) {
+            dist = SkillDistribution.ALL;
+        }
+        SkillRecord record = new SkillRecord(key, skill, name, description, version, contract, dist, isFederated,
+                allowServicePattern, denyServicePattern, ontologies, revision + 1);
+        try {
+            Path parent = journal.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(journal, objectMapper.writeValueAsString(toJson(record)) + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            monitor.severe(String.format("Could not append skill %s to journal %s.", key, journal), e);
+            return null;
+        }
+        journalEntries++;
+        index(record);
+        return key;
+    }
+
+    @Override
+    public SkillDistribution getDistribution(String key) {
+        SkillRecord record = skills.get(key);
+        if (record == null) {
+            return SkillDistribution.ALL;
+        }
+        return record.getDistribution();
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        return Optional.ofNullable(skills.get(key)).map(SkillRecord::getSkill);
+    }
+
+    /**
+     * return a particular version of the stored skill text
+     *
+     * @param key     asset name
+     * @param version of the skill
+     * @return optional skill text if registered
+     */
+    public Optional<String> get(String key, String version) {
+        return Optional.ofNullable(versions.get(key)).map(skillVersions -> skillVersions.get(version)).map(SkillRecord::getSkill);
+    }
+
+    /**
+     * serializes a record
+     *
+     * @param record skill record
+     * @return json representation
+     */
+    protected ObjectNode toJson(SkillRecord record) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("key", record.key);
+        node.put("skill", record.skill);
+        node.put("name", record.name);
+        node.put("description", record.description);
+        node.put("version", record.version);
+        node.put("contract", record.contract);
+        node.put("distribution", record.distribution.getMode());
+        node.put("isFederated", record.isFederated);
+        node.put("allowServicePattern", record.allowServicePattern);
+        node.put("denyServicePattern", record.denyServicePattern);
+        ArrayNode ontologyArray = node.putArray("ontologies");
+        if (record.ontologies != null) {
+            for (String ontology : record.ontologies) {
+                ontologyArray.add(ontology);
+            }
+        }
+        node.put("revision", record.revision);
+        return node;
+    }
+
+    /**
+     * deserializes a record
+     *
+     * @param node json representation
+     * @return skill record
+     */
+    protected SkillRecord fromJson(JsonNode node) {
+        List<String> ontologies = new ArrayList<>();
+        node.path("ontologies").forEach(ontology -> ontologies.add(ontology.asText()));
+        return new SkillRecord(
+                node.get("key").asText(),
+                node.get("skill").asText(),
+                textOrNull(node, "name"),
+                textOrNull(node, "description"),
+                node.hasNonNull("version") ? node.get("version").asText() : "unknown version",
+                textOrNull(node, "contract"),
+                SkillDistribution.valueOfMode(textOrNull(node, "distribution")),
+                node.path("isFederated").asBoolean(false),
+                textOrNull(node, "allowServicePattern"),
+                textOrNull(node, "denyServicePattern"),
+                ontologies.toArray(new String[0]),
+                node.path("revision").asLong(0)
+        );
+    }
+
+    /**
+     * helper to read optional text fields
+     *
+     * @param node  json object
+     * @param field name of the field
+     * @return text or null if not set
+     */
+    protected static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        return value.asText();
+    }
+}
@@ -20,9 +20,9 @@ import org.eclipse.tractusx.agents.edc.AgentConfig;
 import org.eclipse.tractusx.agents.edc.SkillDistribution;
 import org.eclipse.tractusx.agents.edc.SkillStore;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
 /**
@@ -31,7 +31,7 @@ import java.util.regex.Matcher;
 public class InMemorySkillStore implements SkillStore {
 
     // temporary local skill store
-    protected final Map<String, String> skills = new HashMap<>();
+    protected final Map<String, String> skills = new ConcurrentHashMap<>();
 
     protected AgentConfig config;
 
@@ -62,10 +62,6 @@ public class InMemorySkillStore implements SkillStore {
 
     @Override
     public Optional<String> get(String key) {
-        if (!skills.containsKey(key)) {
-            return Optional.empty();
-        } else {
-            return Optional.of(skills.get(key));
-        }
+        return Optional.ofNullable(skills.get(key));
     }
 }
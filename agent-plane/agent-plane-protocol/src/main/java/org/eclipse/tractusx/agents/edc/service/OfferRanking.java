@@ -0,0 +1,348 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
+import org.eclipse.tractusx.agents.edc.model.DcatDataset;
+import org.eclipse.tractusx.agents.edc.model.OdrlPolicy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Ranks the contract offers of a catalogue by a chain
+ * of strategies where each strategy breaks the ties of its predecessors
+ */
+public class OfferRanking {
+
+    public static final String AGREED_STRATEGY = "agreed";
+    public static final String COMPLEXITY_STRATEGY = "complexity";
+    public static final String PREFERENCE_STRATEGY = "preference";
+
+    /**
+     * an offered policy of a dataset
+     */
+    public static class Offer {
+        protected final DcatDataset dataset;
+        protected final OdrlPolicy policy;
+        protected final String provider;
+
+        public Offer(DcatDataset dataset, OdrlPolicy policy, String provider) {
+            this.dataset = dataset;
+            this.policy = policy;
+            this.provider = provider;
+        }
+
+        public DcatDataset getDataset() {
+            return dataset;
+        }
+
+        public OdrlPolicy getPolicy() {
+            return policy;
+        }
+
+        /**
+         * access
+         *
+         * @return participant id of the offering connector, maybe null
+         */
+        public String getProvider() {
+            return provider;
+        }
+    }
+
+    /**
+     * the outcome of a ranking
+     */
+    public static class Selection {
+        protected final Offer offer;
+        protected final String strategy;
+        protected final int candidates;
+
+        public Selection(Offer offer, String strategy, int candidates) {
+            this.offer = offer;
+            this.strategy = strategy;
+            this.candidates = candidates;
+        }
+
+        public Offer getOffer() {
+            return offer;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public int getCandidates() {
+            return candidates;
+        }
+    }
+
+    /**
+     * a single ranking criterion
+     */
+    public interface Strategy {
+        /**
+         * access
+         *
+         * @return name of the strategy
+         */
+        String getName();
+
+        /**
+         * compares two offers
+         *
+         * @param first  offer
+         * @param second offer
+         * @return negative if the first offer is preferred, positive if the second offer is preferred, 0 if undecided
+         */
+        int compare(Offer first, Offer second);
+    }
+
+    /**
+     * prefers offers under a contract definition which we already hold an agreement
+     * for with the offering connector
+     */
+    public static class AgreedPolicyStrategy implements Strategy {
+        protected final Supplier<Collection<ContractAgreement>> agreements;
+
+        public AgreedPolicyStrategy(Supplier<Collection<ContractAgreement>> agreements) {
+            this.agreements = agreements;
+        }
+
+        @Override
+        public String getName() {
+            return AGREED_STRATEGY;
+        }
+
+        /**
+         * offer and agreement ids start with the (encoded) id of the contract definition
+         *
+         * @param id offer or agreement id
+         * @return contract definition part
+         */
+        protected static String getDefinition(String id) {
+            int separator = id.indexOf(':');
+            return separator < 0 ? id : id.substring(0, separator);
+        }
+
+        protected boolean isAgreed(Offer offer) {
+            if (offer.getProvider() == null) {
+                return false;
+            }
+            String definition = getDefinition(offer.getPolicy().getId());
+            // definition ids are only unique within a single connector
+            return agreements.get().stream()
+                    .filter(agreement -> offer.getProvider().equals(agreement.getProviderId()))
+                    .anyMatch(agreement -> getDefinition(agreement.getId()).equals(definition));
+        }
+
+        @Override
+        public int compare(Offer first, Offer second) {
+            return Boolean.compare(isAgreed(second), isAgreed(first));
+        }
+    }
+
+    /**
+     * prefers offers with fewer constraints and obligations
+     */
+    public static class ComplexityStrategy implements Strategy {
+
+        @Override
+        public String getName() {
+            return COMPLEXITY_STRATEGY;
+        }
+
+        /**
+         * counts the constraints and duties of a policy
+         *
+         * @param value policy or part of it
+         * @return complexity
+         */
+        protected static int getComplexity(JsonValue value) {
+            int complexity = 0;
+            switch (value.getValueType()) {
+                case ARRAY:
+                    for (JsonValue element : value.asJsonArray()) {
+                        complexity += getComplexity(element);
+                    }
+                    break;
+                case OBJECT:
+                    JsonObject object = value.asJsonObject();
+                    if (object.containsKey("http://www.w3.org/ns/odrl/2/leftOperand")) {
+                        complexity++;
+                    }
+                    for (Map.Entry<String, JsonValue> property : object.entrySet()) {
+                        if (property.getKey().equals("http://www.w3.org/ns/odrl/2/obligation") || property.getKey().equals("http://www.w3.org/ns/odrl/2/duty")) {
+                            complexity += property.getValue().getValueType() == JsonValue.ValueType.ARRAY ? property.getValue().asJsonArray().size() : 1;
+                        }
+                        complexity += getComplexity(property.getValue());
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return complexity;
+        }
+
+        @Override
+        public int compare(Offer first, Offer second) {
+            return Integer.compare(getComplexity(first.getPolicy().asJsonObject()), getComplexity(second.getPolicy().asJsonObject()));
+        }
+    }
+
+    /**
+     * prefers offers whose policy matches an earlier pattern of the configured preferences
+     */
+    public static class PreferenceStrategy implements Strategy {
+        protected final List<Pattern> preferences;
+
+        public PreferenceStrategy(List<Pattern> preferences) {
+            this.preferences = preferences;
+        }
+
+        @Override
+        public String getName() {
+            return PREFERENCE_STRATEGY;
+        }
+
+        protected int getRank(Offer offer) {
+            String policy = offer.getPolicy().asString();
+            for (int rank = 0; rank < preferences.size(); rank++) {
+                if (preferences.get(rank).matcher(policy).find()) {
+                    return rank;
+                }
+            }
+            return preferences.size();
+        }
+
+        @Override
+        public int compare(Offer first, Offer second) {
+            return Integer.compare(getRank(first), getRank(second));
+        }
+    }
+
+    protected final List<Strategy> strategies;
+
+    /**
+     * creates a ranking
+     *
+     * @param strategies chain of strategies, earlier strategies take precedence
+     */
+    public OfferRanking(List<Strategy> strategies) {
+        this.strategies = strategies;
+    }
+
+    /**
+     * creates the configured ranking
+     *
+     * @param config     typed config
+     * @param agreements supplier of the agreements we hold
+     * @return ranking
+     */
+    public static OfferRanking create(AgentConfig config, Supplier<Collection<ContractAgreement>> agreements) {
+        List<Strategy> strategies = new ArrayList<>();
+        for (String name : config.getOfferRankingStrategies()) {
+            switch (name) {
+                case AGREED_STRATEGY:
+                    strategies.add(new AgreedPolicyStrategy(agreements));
+                    break;
+                case COMPLEXITY_STRATEGY:
+                    strategies.add(new ComplexityStrategy());
+                    break;
+                case PREFERENCE_STRATEGY:
+                    strategies.add(new PreferenceStrategy(config.getOfferPreferences()));
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unknown offer ranking strategy %s", name));
+            }
+        }
+        return new OfferRanking(strategies);
+    }
+
+    /**
+     * access
+     *
+     * @return the chain of strategies
+     */
+    public List<Strategy> getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * compares two offers along the chain of strategies
+     *
+     * @param first  offer
+     * @param second offer
+     * @return negative if the first offer is preferred, positive if the second offer is preferred, 0 if undecided
+     */
+    public int compare(Offer first, Offer second) {
+        for (Strategy strategy : strategies) {
+            int result = strategy.compare(first, second);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * selects the best offer of the given datasets
+     *
+     * @param datasets offered datasets
+     * @param provider participant id of the offering connector, maybe null
+     * @return selection, null if there is no offered policy
+     */
+    public Selection select(List<DcatDataset> datasets, String provider) {
+        List<Offer> offers = new ArrayList<>();
+        for (DcatDataset dataset : datasets) {
+            for (OdrlPolicy policy : dataset.getPolicies()) {
+                offers.add(new Offer(dataset, policy, provider));
+            }
+        }
+        if (offers.isEmpty()) {
+            return null;
+        }
+        Offer best = offers.get(0);
+        Offer runnerUp = null;
+        for (Offer offer : offers.subList(1, offers.size())) {
+            if (compare(offer, best) < 0) {
+                runnerUp = best;
+                best = offer;
+            } else if (runnerUp == null || compare(offer, runnerUp) < 0) {
+                runnerUp = offer;
+            }
+        }
+        String decision = "order";
+        if (runnerUp != null) {
+            for (Strategy strategy : strategies) {
+                if (strategy.compare(best, runnerUp) != 0) {
+                    decision = strategy.getName();
+                    break;
+                }
+            }
+        }
+        return new Selection(best, decision, offers.size());
+    }
+}
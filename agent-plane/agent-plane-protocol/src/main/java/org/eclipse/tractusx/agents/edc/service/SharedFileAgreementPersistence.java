@@ -0,0 +1,274 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonWriter;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.SharedAgreementPersistence;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * A shared agreement persistence for replicas which mount
+ * the same directory. Each asset is kept in its own file which is
+ * atomically replaced on each change, negotiations and record updates are
+ * serialized across replicas by file locks on per-asset lock files.
+ * File locks are only advisory and, on shared network volumes (NFS, SMB),
+ * their exclusion depends on the lock support of the file system and mount.
+ * Intended for single-host setups and testing.
+ */
+public class SharedFileAgreementPersistence extends FileAgreementPersistence implements SharedAgreementPersistence {
+
+    public static final long LOCK_POLL_INTERVAL = 100;
+
+    protected final Path directory;
+
+    /**
+     * stripes of monitors which serialize record updates within this process,
+     * since file locks only exclude other processes
+     */
+    protected final Object[] recordMonitors = new Object[64];
+
+    /**
+     * create the persistence
+     *
+     * @param config  typed config
+     * @param monitor logging subsystem
+     */
+    public SharedFileAgreementPersistence(AgentConfig config, Monitor monitor) {
+        super(config, monitor);
+        this.directory = Path.of(config.getAgreementStoreDirectory());
+        for (int stripe = 0; stripe < recordMonitors.length; stripe++) {
+            recordMonitors[stripe] = new Object();
+        }
+    }
+
+    /**
+     * computes the base name of the files of an asset
+     *
+     * @param asset name of the asset
+     * @return file system compatible name
+     */
+    protected String fileName(String asset) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(asset.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte part : digest) {
+                name.append(String.format("%02x", part));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    @Override
+    public Collection<AgreementRecord> load() {
+        List<AgreementRecord> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            monitor.info(String.format("Shared agreement store %s does not exist yet. Starting without agreements.", directory));
+            return result;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                AgreementRecord record = read(file);
+                if (record != null) {
+                    result.add(record);
+                }
+            }
+        } catch (IOException e) {
+            monitor.severe(String.format("Could not list shared agreement store %s. Starting without agreements.", directory), e);
+        }
+        return result;
+    }
+
+    @Override
+    public AgreementRecord lookup(String asset) {
+        Path file = directory.resolve(fileName(asset) + ".json");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return read(file);
+    }
+
+    /**
+     * reads the record of an asset file
+     *
+     * @param file of the asset
+     * @return record, null if the file could not be read
+     */
+    protected AgreementRecord read(Path file) {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8); JsonReader jsonReader = Json.createReader(reader)) {
+            JsonObject object = jsonReader.readObject();
+            return fromJson(object.getString("asset"), object);
+        } catch (IOException | RuntimeException e) {
+            monitor.warning(String.format("Skipping corrupt entry %s in shared agreement store because of %s", file, e.getMessage()));
+            return null;
+        }
+    }
+
+    @Override
+    public void store(AgreementRecord record) {
+        JsonObject object = Json.createObjectBuilder(toJson(record)).add("asset", record.getAsset()).build();
+        String name = fileName(record.getAsset());
+        Path file = directory.resolve(name + ".json");
+        Path temporary = directory.resolve(name + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8); JsonWriter jsonWriter = Json.createWriter(writer)) {
+                jsonWriter.writeObject(object);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not write asset %s to shared agreement store %s.", record.getAsset(), directory), e);
+        }
+    }
+
+    @Override
+    public AgreementRecord update(String asset, UnaryOperator<AgreementRecord> merge) {
+        String name = fileName(asset);
+        Path file = directory.resolve(name + ".json");
+        synchronized (recordMonitors[Math.floorMod(name.hashCode(), recordMonitors.length)]) {
+            try {
+                Files.createDirectories(directory);
+                try (FileChannel channel = FileChannel.open(directory.resolve(name + ".record.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    FileLock lock = lockRecord(channel);
+                    try {
+                        AgreementRecord current = Files.exists(file) ? read(file) : null;
+                        AgreementRecord result = merge.apply(current);
+                        if (result != null) {
+                            store(result);
+                        } else if (current != null) {
+                            remove(asset);
+                        }
+                        return result;
+                    } finally {
+                        lock.release();
+                    }
+                }
+            } catch (IOException e) {
+                monitor.warning(String.format("Could not update asset %s in shared agreement store %s.", asset, directory), e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * blocks until the record lock file is exclusively held. Another persistence
+     * instance of this process on the same directory is not excluded by the monitors
+     * but holds an overlapping lock, so we wait until it is released.
+     *
+     * @param channel of the record lock file
+     * @return acquired lock
+     * @throws IOException if the lock cannot be acquired
+     */
+    protected FileLock lockRecord(FileChannel channel) throws IOException {
+        while (true) {
+            try {
+                return channel.lock();
+            } catch (OverlappingFileLockException e) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the record lock");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void remove(String asset) {
+        try {
+            Files.deleteIfExists(directory.resolve(fileName(asset) + ".json"));
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not remove asset %s from shared agreement store %s.", asset, directory), e);
+        }
+    }
+
+    @Override
+    public AssetLock lock(String asset, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        FileChannel channel;
+        try {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(directory.resolve(fileName(asset) + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            monitor.warning(String.format("Could not open lock of asset %s in shared agreement store %s.", asset, directory), e);
+            return null;
+        }
+        try {
+            while (true) {
+                FileLock lock = null;
+                try {
+                    lock = channel.tryLock();
+                } catch (OverlappingFileLockException e) {
+                    // held by another thread of this replica
+                }
+                if (lock != null) {
+                    final FileLock acquired = lock;
+                    return () -> {
+                        try {
+                            acquired.release();
+                            channel.close();
+                        } catch (IOException e) {
+                            monitor.warning(String.format("Could not release lock of asset %s in shared agreement store %s.", asset, directory), e);
+                        }
+                    };
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    channel.close();
+                    return null;
+                }
+                Thread.sleep(LOCK_POLL_INTERVAL);
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException closeError) {
+                monitor.debug(String.format("Could not close lock of asset %s because of %s", asset, closeError.getMessage()));
+            }
+            if (e instanceof InterruptedException) {
+                throw (InterruptedException) e;
+            }
+            monitor.warning(String.format("Could not acquire lock of asset %s in shared agreement store %s.", asset, directory), e);
+            return null;
+        }
+    }
+}
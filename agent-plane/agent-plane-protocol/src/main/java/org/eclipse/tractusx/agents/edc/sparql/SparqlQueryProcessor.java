@@ -22,6 +22,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.InternalServerErrorException;
+import jakarta.ws.rs.ServiceUnavailableException;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.apache.http.HttpStatus;
@@ -155,6 +156,9 @@ public class SparqlQueryProcessor extends SPARQL_QueryGeneral.SPARQL_QueryProc {
      * @param graph    graph ref
      */
     public void execute(HttpServletRequest request, HttpServletResponse response, String skill, String graph) {
+        if (!rdfStore.isReady()) {
+            throw new ServiceUnavailableException(String.format("The local graph store is %s. Please retry later.", rdfStore.getLoadingState()), RdfStore.RETRY_AFTER_SECONDS);
+        }
         request.getServletContext().setAttribute(Fuseki.attrVerbose, config.isSparqlVerbose());
         request.getServletContext().setAttribute(Fuseki.attrOperationRegistry, operationRegistry);
         request.getServletContext().setAttribute(Fuseki.attrNameRegistry, dataAccessPointRegistry);
@@ -209,6 +213,12 @@ public class SparqlQueryProcessor extends SPARQL_QueryGeneral.SPARQL_QueryProc {
      * @return simulated ok response
      */
     public Response execute(Request request, String skill, String graph, Map<String, Object> targetProperties) {
+        if (!rdfStore.isReady()) {
+            HttpServletResponseAdapter unavailable = new HttpServletResponseAdapter(request);
+            unavailable.addHeader("Retry-After", String.valueOf(RdfStore.RETRY_AFTER_SECONDS));
+            unavailable.setStatus(HttpStatus.SC_SERVICE_UNAVAILABLE, String.format("The local graph store is %s. Please retry later.", rdfStore.getLoadingState()));
+            return unavailable.toResponse();
+        }
 
         // wrap jakarta into java.servlet
         HttpServletContextAdapter contextAdapter = new HttpServletContextAdapter(request);
@@ -0,0 +1,374 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc;
+
+import jakarta.json.Json;
+import jakarta.ws.rs.InternalServerErrorException;
+import okhttp3.OkHttpClient;
+import org.eclipse.edc.connector.controlplane.contract.spi.event.contractnegotiation.ContractNegotiationFinalized;
+import org.eclipse.edc.connector.controlplane.contract.spi.event.contractnegotiation.ContractNegotiationTerminated;
+import org.eclipse.edc.connector.controlplane.transfer.spi.event.TransferProcessStarted;
+import org.eclipse.edc.json.JacksonTypeManager;
+import org.eclipse.edc.policy.model.Policy;
+import org.eclipse.edc.spi.event.EventEnvelope;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.edc.spi.types.domain.edr.EndpointDataReference;
+import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
+import org.eclipse.tractusx.agents.edc.model.ContractNegotiation;
+import org.eclipse.tractusx.agents.edc.model.ContractNegotiationRequest;
+import org.eclipse.tractusx.agents.edc.model.DcatCatalog;
+import org.eclipse.tractusx.agents.edc.model.TransferProcess;
+import org.eclipse.tractusx.agents.edc.model.TransferRequest;
+import org.eclipse.tractusx.agents.edc.service.DataManagement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the negotiation and transfer handling of the agreement controller
+ * against a simulated control plane
+ */
+public class TestAgreementController {
+
+    public static final String REMOTE_URL = "http://provider:8282";
+    public static final String PROVIDER = "BPNL00000000PROV";
+    public static final String ASSET = "GraphAsset?test=1";
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+    ScheduledExecutorService callbacks;
+    ControlPlane controlPlane;
+    AgreementControllerImpl controller;
+
+    /**
+     * a control plane which finalizes negotiations and starts transfers
+     * either by callbacks or only through its status api
+     */
+    class ControlPlane extends DataManagement {
+        final AtomicInteger negotiations = new AtomicInteger();
+        final AtomicInteger transfers = new AtomicInteger();
+        final AtomicInteger statusChecks = new AtomicInteger();
+        final Set<String> finalized = ConcurrentHashMap.newKeySet();
+        final Set<String> started = ConcurrentHashMap.newKeySet();
+        boolean negotiationCallbacks = true;
+        boolean terminate = false;
+        long signingDate = System.currentTimeMillis() / 1000;
+
+        ControlPlane(AgentConfig config) {
+            super(monitor, new JacksonTypeManager(), new OkHttpClient(), config);
+        }
+
+        @Override
+        public DcatCatalog findContractOffers(String remoteControlPlaneIdsUrl, String assetId) {
+            return new DcatCatalog(Json.createObjectBuilder()
+                    .add("https://w3id.org/dspace/v0.8/participantId", PROVIDER)
+                    .add("http://www.w3.org/ns/dcat#dataset", Json.createObjectBuilder()
+                            .add("@id", assetId)
+                            .add("http://www.w3.org/ns/odrl/2/hasPolicy", Json.createObjectBuilder()
+                                    .add("@id", "ZGVm:YXNzZXQ=:b2ZmZXI=")
+                                    .add("http://www.w3.org/ns/odrl/2/permission", Json.createObjectBuilder()
+                                            .add("http://www.w3.org/ns/odrl/2/action", "use"))))
+                    .build());
+        }
+
+        @Override
+        public void invalidateContractOffers(String remoteControlPlaneIdsUrl, String assetId) {
+        }
+
+        @Override
+        public List<ContractAgreement> findAgreements(String assetId, String providerId) {
+            return List.of();
+        }
+
+        @Override
+        public String initiateNegotiation(ContractNegotiationRequest negotiationRequest) {
+            String negotiationId = "negotiation-" + negotiations.incrementAndGet();
+            if (negotiationCallbacks) {
+                callbacks.schedule(() -> {
+                    if (terminate) {
+                        controller.receiveNegotiationTerminated(EventEnvelope.Builder.newInstance().at(System.currentTimeMillis())
+                                .payload(ContractNegotiationTerminated.Builder.newInstance()
+                                        .contractNegotiationId(negotiationId)
+                                        .counterPartyAddress(REMOTE_URL + "/api/v1/dsp")
+                                        .counterPartyId(PROVIDER)
+                                        .protocol("dataspace-protocol-http")
+                                        .build())
+                                .build());
+                    } else {
+                        finalized.add(negotiationId);
+                        controller.receiveNegotiationFinalized(EventEnvelope.Builder.newInstance().at(System.currentTimeMillis())
+                                .payload(ContractNegotiationFinalized.Builder.newInstance()
+                                        .contractNegotiationId(negotiationId)
+                                        .counterPartyAddress(REMOTE_URL + "/api/v1/dsp")
+                                        .counterPartyId(PROVIDER)
+                                        .protocol("dataspace-protocol-http")
+                                        .contractAgreement(org.eclipse.edc.connector.controlplane.contract.spi.types.agreement.ContractAgreement.Builder.newInstance()
+                                                .id("agreement-" + negotiationId)
+                                                .assetId(ASSET)
+                                                .providerId(PROVIDER)
+                                                .consumerId("BPNL00000000CONS")
+                                                .contractSigningDate(signingDate)
+                                                .policy(Policy.Builder.newInstance().build())
+                                                .build())
+                                        .build())
+                                .build());
+                    }
+                }, 50, TimeUnit.MILLISECONDS);
+            } else {
+                finalized.add(negotiationId);
+            }
+            return negotiationId;
+        }
+
+        @Override
+        public ContractNegotiation getNegotiation(String negotiationId) {
+            statusChecks.incrementAndGet();
+            var negotiation = Json.createObjectBuilder().add("@id", negotiationId);
+            if (finalized.contains(negotiationId)) {
+                negotiation.add("https://w3id.org/edc/v0.0.1/ns/state", AgreementControllerImpl.FINALIZED_STATE)
+                        .add("https://w3id.org/edc/v0.0.1/ns/contractAgreementId", "agreement-" + negotiationId);
+            } else {
+                negotiation.add("https://w3id.org/edc/v0.0.1/ns/state", "REQUESTED");
+            }
+            return new ContractNegotiation(negotiation.build());
+        }
+
+        @Override
+        public ContractAgreement getAgreement(String agreementId) {
+            return new ContractAgreement(Json.createObjectBuilder()
+                    .add("@id", agreementId)
+                    .add("https://w3id.org/edc/v0.0.1/ns/assetId", ASSET)
+                    .add("https://w3id.org/edc/v0.0.1/ns/providerId", PROVIDER)
+                    .add("https://w3id.org/edc/v0.0.1/ns/contractSigningDate", signingDate)
+                    .build());
+        }
+
+        @Override
+        public String initiateHttpProxyTransferProcess(TransferRequest transferRequest) {
+            String transferId = "transfer-" + transfers.incrementAndGet();
+            String contractId = transferRequest.getContractId();
+            callbacks.schedule(() -> {
+                started.add(transferId);
+                controller.receiveEdcCallback(EventEnvelope.Builder.newInstance().at(System.currentTimeMillis())
+                        .payload(TransferProcessStarted.Builder.newInstance()
+                                .transferProcessId(transferId)
+                                .assetId(ASSET)
+                                .contractId(contractId)
+                                .dataAddress(DataAddress.Builder.newInstance()
+                                        .type("https://w3id.org/idsa/v4.1/HTTP")
+                                        .property("https://w3id.org/edc/v0.0.1/ns/endpoint", "http://provider:8185/api/public")
+                                        .property("https://w3id.org/edc/v0.0.1/ns/authorization", createToken(System.currentTimeMillis() / 1000 + 3600))
+                                        .build())
+                                .build())
+                        .build());
+            }, 50, TimeUnit.MILLISECONDS);
+            return transferId;
+        }
+
+        @Override
+        public TransferProcess getTransfer(String transferProcessId) {
+            return new TransferProcess(Json.createObjectBuilder()
+                    .add("@id", transferProcessId)
+                    .add("https://w3id.org/edc/v0.0.1/ns/state", started.contains(transferProcessId) ? AgreementControllerImpl.STARTED_STATE : "REQUESTED")
+                    .build());
+        }
+    }
+
+    /**
+     * creates an (unsigned) token which expires at the given time
+     *
+     * @param expiry in seconds since epoch
+     * @return token
+     */
+    protected static String createToken(long expiry) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(String.format("{\"exp\":%d}", expiry).getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString("signature".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * sets up the controller with the given fallback poll interval
+     *
+     * @param fallbackPollInterval milliseconds to wait for a callback before the status is polled
+     */
+    protected void setUp(long fallbackPollInterval) {
+        Map<String, String> settings = new HashMap<>();
+        settings.put(AgentConfig.CALLBACK_ENDPOINT, "http://consumer:8280/callback");
+        settings.put(AgentConfig.BUSINESS_PARTNER_NUMBER, "BPNL00000000CONS");
+        settings.put(AgentConfig.NEGOTIATION_TIMEOUT_PROPERTY, "10000");
+        settings.put(AgentConfig.NEGOTIATION_FALLBACK_POLLINTERVAL_PROPERTY, String.valueOf(fallbackPollInterval));
+        AgentConfig config = new AgentConfig(monitor, ConfigFactory.fromMap(settings));
+        callbacks = Executors.newScheduledThreadPool(2);
+        controlPlane = new ControlPlane(config);
+        controller = new AgreementControllerImpl(monitor, config, controlPlane);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (callbacks != null) {
+            callbacks.shutdownNow();
+        }
+    }
+
+    /**
+     * test that concurrent requests for the same asset result in a single negotiation
+     */
+    @Test
+    public void testConcurrentNegotiation() throws Exception {
+        setUp(60000);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<EndpointDataReference>> results = new ArrayList<>();
+            for (int caller = 0; caller < 8; caller++) {
+                results.add(callers.submit(() -> controller.createAgreement(REMOTE_URL, ASSET)));
+            }
+            for (Future<EndpointDataReference> result : results) {
+                EndpointDataReference reference = result.get(20, TimeUnit.SECONDS);
+                assertNotNull(reference, "Every caller gets an endpoint");
+                assertEquals("transfer-1", reference.getId(), "Every caller gets the same endpoint");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, controlPlane.negotiations.get(), "Only one negotiation is made");
+        assertEquals(1, controlPlane.transfers.get(), "Only one transfer is made");
+        assertEquals("transfer-1", controller.get(ASSET).getId(), "Endpoint is active");
+    }
+
+    /**
+     * test that callbacks complete the awaited negotiation and transfer
+     * and that callbacks for foreign ids are ignored
+     */
+    @Test
+    public void testCallbackCompletion() {
+        setUp(60000);
+        controller.receiveNegotiationTerminated(EventEnvelope.Builder.newInstance().at(System.currentTimeMillis())
+                .payload(ContractNegotiationTerminated.Builder.newInstance()
+                        .contractNegotiationId("foreign-negotiation")
+                        .counterPartyAddress(REMOTE_URL + "/api/v1/dsp")
+                        .counterPartyId(PROVIDER)
+                        .protocol("dataspace-protocol-http")
+                        .build())
+                .build());
+        long start = System.currentTimeMillis();
+        EndpointDataReference reference = controller.createAgreement(REMOTE_URL, ASSET);
+        assertNotNull(reference, "Endpoint is obtained");
+        assertTrue(System.currentTimeMillis() - start < 10000, "Callbacks complete without waiting for the status poll");
+        assertEquals(0, controlPlane.statusChecks.get(), "Status is not polled");
+        assertTrue(controller.negotiationEvents.isEmpty(), "No negotiation is awaited anymore");
+        assertTrue(controller.transferEvents.isEmpty(), "No transfer is awaited anymore");
+    }
+
+    /**
+     * test that a terminated negotiation fails the awaiting caller
+     */
+    @Test
+    public void testCallbackTermination() {
+        setUp(60000);
+        controlPlane.terminate = true;
+        long start = System.currentTimeMillis();
+        assertThrows(InternalServerErrorException.class, () -> controller.createAgreement(REMOTE_URL, ASSET));
+        assertTrue(System.currentTimeMillis() - start < 10000, "Termination is signalled by the callback");
+        assertNull(controller.get(ASSET), "No endpoint is active");
+        assertFalse(controller.negotiations.containsKey(ASSET), "Failed negotiation is not kept");
+    }
+
+    /**
+     * test that the negotiation status is polled if no callback arrives
+     */
+    @Test
+    public void testPollingFallback() {
+        setUp(100);
+        controlPlane.negotiationCallbacks = false;
+        EndpointDataReference reference = controller.createAgreement(REMOTE_URL, ASSET);
+        assertNotNull(reference, "Endpoint is obtained");
+        assertTrue(controlPlane.statusChecks.get() > 0, "Negotiation status is polled");
+        assertEquals(1, controlPlane.negotiations.get(), "Only one negotiation is made");
+    }
+
+    /**
+     * test that an expired endpoint is replaced by a new transfer under the same agreement
+     * as long as the agreement is reusable
+     */
+    @Test
+    public void testReuse() {
+        setUp(60000);
+        assertNotNull(controller.createAgreement(REMOTE_URL, ASSET), "Endpoint is obtained");
+        expireEndpoint();
+        assertNull(controller.get(ASSET), "Expired endpoint is not served");
+        EndpointDataReference reference = controller.createAgreement(REMOTE_URL, ASSET);
+        assertEquals("transfer-2", reference.getId(), "New transfer is made");
+        assertEquals(1, controlPlane.negotiations.get(), "Agreement is reused");
+        assertTrue(controller.isReusable(controller.agreementStore.get(ASSET)), "Agreement is reusable");
+    }
+
+    /**
+     * test that an outdated agreement is not reused
+     */
+    @Test
+    public void testExpiry() {
+        setUp(60000);
+        controlPlane.signingDate = System.currentTimeMillis() / 1000 - 3600;
+        assertNotNull(controller.createAgreement(REMOTE_URL, ASSET), "Endpoint is obtained");
+        assertFalse(controller.isReusable(controller.agreementStore.get(ASSET)), "Agreement is outdated");
+        expireEndpoint();
+        assertNull(controller.get(ASSET), "Expired endpoint is not served");
+        assertNotNull(controller.createAgreement(REMOTE_URL, ASSET), "Endpoint is obtained again");
+        assertEquals(2, controlPlane.negotiations.get(), "Outdated agreement is renegotiated");
+    }
+
+    /**
+     * test that a refresh issues a new transfer under the existing agreement
+     */
+    @Test
+    public void testRefresh() {
+        setUp(60000);
+        assertEquals("transfer-1", controller.createAgreement(REMOTE_URL, ASSET).getId(), "Endpoint is obtained");
+        controller.refresh(ASSET);
+        assertEquals(1, controlPlane.negotiations.get(), "No new negotiation is made");
+        assertEquals(2, controlPlane.transfers.get(), "New transfer is made");
+        EndpointDataReference reference = controller.get(ASSET);
+        assertEquals("transfer-2", reference.getId(), "Refreshed endpoint replaces the old one");
+        assertEquals("agreement-negotiation-1", reference.getContractId(), "Refreshed endpoint uses the existing agreement");
+    }
+
+    /**
+     * lets the active endpoint of the asset expire
+     */
+    protected void expireEndpoint() {
+        AgreementControllerImpl.ActiveEndpoint endpoint = controller.endpointStore.get(ASSET);
+        controller.endpointStore.put(ASSET, new AgreementControllerImpl.ActiveEndpoint(endpoint.getReference(), 0));
+    }
+}
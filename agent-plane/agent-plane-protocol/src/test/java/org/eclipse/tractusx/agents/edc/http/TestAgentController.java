@@ -19,6 +19,7 @@ package org.eclipse.tractusx.agents.edc.http;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MultivaluedHashMap;
 import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import org.eclipse.tractusx.agents.edc.rdf.RdfStore;
 import org.eclipse.tractusx.agents.edc.service.InMemorySkillStore;
@@ -45,6 +46,7 @@ import java.util.*;
 
 import org.apache.jena.fuseki.Fuseki;
 import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -424,4 +426,73 @@ public class TestAgentController extends RestControllerTestBase {
         assertEquals(1,bindings.size(),"Correct number of result bindings.");
     }
 
+    /**
+     * creates a controller on top of the given graph store
+     * @param graphStore the graph store
+     * @return agent controller
+     */
+    protected AgentController createController(RdfStore graphStore) {
+        SparqlQueryProcessor graphProcessor=new SparqlQueryProcessor(serviceExecutorReg,monitor,agentConfig,graphStore,typeManager);
+        return new AgentController(monitor,mockController,agentConfig,graphProcessor,skillStore,delegationService,graphStore);
+    }
+
+    /**
+     * test that the readiness probe follows the loading of the graph store
+     */
+    @Test
+    public void testReadiness() throws IOException {
+        List<Runnable> loading=new ArrayList<>();
+        RdfStore loadingStore=new RdfStore(agentConfig,monitor,loading::add);
+        AgentController loadingController=createController(loadingStore);
+        try {
+            try (Response readiness=loadingController.getReadiness()) {
+                assertEquals(503,readiness.getStatus(),"Not ready while loading");
+                assertEquals(String.valueOf(RdfStore.RETRY_AFTER_SECONDS),readiness.getHeaderString(HttpHeaders.RETRY_AFTER),"Retry is hinted while loading");
+                assertEquals("LOADING",mapper.readTree(String.valueOf(readiness.getEntity())).get("state").asText(),"Loading state is reported");
+            }
+            loading.forEach(Runnable::run);
+            try (Response readiness=loadingController.getReadiness()) {
+                assertEquals(200,readiness.getStatus(),"Ready once loaded");
+                assertNull(readiness.getHeaderString(HttpHeaders.RETRY_AFTER),"No retry hint once loaded");
+            }
+        } finally {
+            loadingStore.close();
+        }
+    }
+
+    /**
+     * test that the readiness probe reports a failed load without retry hint
+     */
+    @Test
+    public void testReadinessFailed() throws IOException {
+        AgentConfig missingConfig=new AgentConfig(monitor,ConfigFactory.fromMap(Map.of(AgentConfig.ASSET_FILE_PROPERTY,"does-not-exist.ttl")));
+        List<Runnable> loading=new ArrayList<>();
+        RdfStore failedStore=new RdfStore(missingConfig,monitor,loading::add);
+        loading.forEach(Runnable::run);
+        try (Response readiness=createController(failedStore).getReadiness()) {
+            assertEquals(503,readiness.getStatus(),"Not ready after a failure");
+            assertNull(readiness.getHeaderString(HttpHeaders.RETRY_AFTER),"Retrying does not help");
+            JsonNode root=mapper.readTree(String.valueOf(readiness.getEntity()));
+            assertEquals("FAILED",root.get("state").asText(),"Failed state is reported");
+            assertTrue(root.has("failure"),"Failure is reported");
+        } finally {
+            failedStore.close();
+        }
+    }
+
+    /**
+     * test that queries are rejected with a retry hint while the graph store is loading
+     */
+    @Test
+    public void testQueryWhileLoading() {
+        List<Runnable> loading=new ArrayList<>();
+        RdfStore loadingStore=new RdfStore(agentConfig,monitor,loading::add);
+        try (Response result=createController(loadingStore).getQuery(null,headers,request,response,uriInfo)) {
+            assertEquals(503,result.getStatus(),"Query is rejected while loading");
+            assertEquals(String.valueOf(RdfStore.RETRY_AFTER_SECONDS),result.getHeaderString(HttpHeaders.RETRY_AFTER),"Retry is hinted");
+        } finally {
+            loadingStore.close();
+        }
+    }
+
 }
@@ -0,0 +1,78 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the mapping of csv records to triples
+ */
+public class TestCsvMapping {
+
+    Node subject = NodeFactory.createURI("urn:a");
+
+    /**
+     * test that cells are converted to iris and literals with datatype and language suffixes
+     */
+    @Test
+    public void testCellSuffixes() {
+        CsvMapping mapping = new CsvMapping(List.of("id", "<urn:iri>", "urn:typed", "urn:lang", "urn:plain"));
+        List<Triple> triples = mapping.convert(List.of(List.of("<urn:a>", "<urn:b>", "\"1\"^^xsd:int", "\"Teil\"@de", "\"say \"\"hi\"\"\"")));
+        assertEquals(4, triples.size(), "Every cell becomes a triple");
+        assertEquals(Triple.create(subject, NodeFactory.createURI("urn:iri"), NodeFactory.createURI("urn:b")), triples.get(0), "Iri cell");
+        assertEquals(NodeFactory.createLiteral("1", XSDDatatype.XSDint), triples.get(1).getObject(), "Datatype suffix");
+        assertEquals(NodeFactory.createLiteral("Teil", "de"), triples.get(2).getObject(), "Language suffix");
+        assertEquals(NodeFactory.createLiteral("say \"hi\""), triples.get(3).getObject(), "Doubled quotes are unescaped");
+    }
+
+    /**
+     * test that the datatype declared by the header applies to unquoted and plain quoted cells only
+     */
+    @Test
+    public void testColumnDatatype() {
+        CsvMapping mapping = new CsvMapping(List.of("id", "\"urn:count^^<http://www.w3.org/2001/XMLSchema#long>\""));
+        List<Triple> triples = mapping.convert(List.of(
+                List.of("urn:a", "42"),
+                List.of("urn:a", "\"43\""),
+                List.of("urn:a", "\"44\"^^xsd:int"),
+                List.of("urn:a", ""),
+                List.of("", "45")));
+        assertEquals(3, triples.size(), "Empty cells and subjects are skipped");
+        assertEquals(NodeFactory.createURI("urn:count"), triples.get(0).getPredicate(), "Datatype is stripped from the predicate");
+        assertEquals(NodeFactory.createLiteral("42", XSDDatatype.XSDlong), triples.get(0).getObject(), "Column datatype applies to plain cells");
+        assertEquals(NodeFactory.createLiteral("43", XSDDatatype.XSDlong), triples.get(1).getObject(), "Column datatype applies to quoted cells");
+        assertEquals(NodeFactory.createLiteral("44", XSDDatatype.XSDint), triples.get(2).getObject(), "Cell datatype overrides the column");
+    }
+
+    /**
+     * test that a multi-line quoted cell keeps its line breaks
+     */
+    @Test
+    public void testMultiLineCell() {
+        CsvMapping mapping = new CsvMapping(List.of("id", "urn:text"));
+        List<Triple> triples = mapping.convert(List.of(List.of("urn:a", "\"first,\nsecond\"@en")));
+        assertEquals(NodeFactory.createLiteral("first,\nsecond", "en"), triples.get(0).getObject(), "Line break and separator are part of the literal");
+    }
+}
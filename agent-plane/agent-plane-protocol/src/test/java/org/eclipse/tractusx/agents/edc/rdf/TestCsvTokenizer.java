@@ -0,0 +1,63 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the streaming csv tokenizer
+ */
+public class TestCsvTokenizer {
+
+    /**
+     * test plain records with both kinds of line breaks
+     */
+    @Test
+    public void testPlainRecords() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,b,c\r\nd,,f\n"), ',');
+        assertEquals(List.of("a", "b", "c"), tokenizer.next(), "First record");
+        assertEquals(List.of("d", "", "f"), tokenizer.next(), "Empty cells are kept");
+        assertNull(tokenizer.next(), "End of input");
+    }
+
+    /**
+     * test that quoted cells may span separators, line breaks and doubled quotes
+     */
+    @Test
+    public void testQuotedMultiLineCells() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("<urn:a>,\"first,\nsecond \"\"line\"\"\"@en\n<urn:b>,\"1\"^^xsd:int"), ',');
+        assertEquals(List.of("<urn:a>", "\"first,\nsecond \"\"line\"\"\"@en"), tokenizer.next(), "Quoted cell keeps its raw text and suffix");
+        assertEquals(List.of("<urn:b>", "\"1\"^^xsd:int"), tokenizer.next(), "Record without trailing line break");
+        assertNull(tokenizer.next(), "End of input");
+    }
+
+    /**
+     * test that an input ending inside a quoted cell is rejected
+     */
+    @Test
+    public void testUnterminatedQuote() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("<urn:a>,\"complete\"\n<urn:b>,\"truncated\n"), ',');
+        assertEquals(List.of("<urn:a>", "\"complete\""), tokenizer.next(), "Complete record is read");
+        assertThrows(IOException.class, tokenizer::next, "Truncated record is rejected");
+    }
+}
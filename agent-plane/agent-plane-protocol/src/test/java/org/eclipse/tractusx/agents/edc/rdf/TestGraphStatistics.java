@@ -0,0 +1,167 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the maintenance of the store statistics
+ */
+public class TestGraphStatistics {
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+
+    Node graph = NodeFactory.createURI("http://test/graph");
+    Node subject = NodeFactory.createURI("urn:a");
+    Node name = NodeFactory.createURI("urn:name");
+    Node clazz = NodeFactory.createURI("urn:Class");
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * test that committed adds and deletes are counted exactly and aborted ones are forgotten
+     */
+    @Test
+    public void testAddDeleteAbort() {
+        GraphStatistics statistics = new GraphStatistics();
+        DatasetGraph dataset = new StatisticsDatasetGraph(DatasetGraphFactory.createTxnMem(), statistics);
+        dataset.begin(TxnType.WRITE);
+        dataset.add(graph, subject, name, NodeFactory.createLiteral("A"));
+        dataset.add(graph, subject, name, NodeFactory.createLiteral("A"));
+        dataset.getGraph(graph).add(Triple.create(subject, RDF.type.asNode(), clazz));
+        assertEquals(0, statistics.getTotal(), "Uncommitted changes are not counted");
+        dataset.commit();
+        dataset.end();
+        assertEquals(2, statistics.getTotal(), "Duplicates are counted once");
+        assertEquals(2, statistics.getTriples(graph), "Graph is counted");
+        assertEquals(1, statistics.getPredicateCount(name), "Predicate is counted");
+        assertEquals(1, statistics.getClassCount(clazz), "Writes through graph views are counted");
+
+        dataset.begin(TxnType.WRITE);
+        dataset.deleteAny(graph, Node.ANY, Node.ANY, Node.ANY);
+        dataset.abort();
+        dataset.end();
+        assertEquals(2, statistics.getTotal(), "Aborted changes are forgotten");
+
+        dataset.begin(TxnType.WRITE);
+        dataset.delete(graph, subject, name, NodeFactory.createLiteral("B"));
+        dataset.deleteAny(graph, Node.ANY, RDF.type.asNode(), Node.ANY);
+        dataset.commit();
+        dataset.end();
+        assertEquals(1, statistics.getTotal(), "Only actual deletes are counted");
+        assertEquals(0, statistics.getClassCount(clazz), "Class is no longer counted");
+    }
+
+    /**
+     * test that publishing catalogue partitions and writing asset partitions are counted
+     */
+    @Test
+    public void testPartitionPublish() {
+        RdfStore store = new RdfStore(new AgentConfig(monitor, ConfigFactory.fromMap(Map.of())), monitor);
+        try {
+            long initial = store.getStatistics().getTotal();
+            Node connector = NodeFactory.createURI("edc://test");
+            Graph catalogue = GraphFactory.createDefaultGraph();
+            catalogue.add(Triple.create(connector, name, NodeFactory.createLiteral("A")));
+            catalogue.add(Triple.create(connector, RDF.type.asNode(), clazz));
+            store.publishCatalogGraph(connector, catalogue);
+            assertEquals(2, store.getStatistics().getTriples(connector), "Published catalogue is counted");
+            assertEquals(1, store.getStatistics().getClassCount(clazz), "Class of the catalogue is counted");
+
+            Graph replacement = GraphFactory.createDefaultGraph();
+            replacement.add(Triple.create(connector, name, NodeFactory.createLiteral("B")));
+            store.publishCatalogGraph(connector, replacement);
+            assertEquals(1, store.getStatistics().getTriples(connector), "Replaced catalogue is counted");
+            assertEquals(0, store.getStatistics().getClassCount(clazz), "Replaced class is no longer counted");
+
+            store.registerAsset("http://test/graph", new ByteArrayInputStream("id,urn:name\n<urn:a>,\"A\"\n".getBytes(StandardCharsets.UTF_8)), ExternalFormat.CSV);
+            assertEquals(1, store.getStatistics().getTriples(graph), "Asset partition is counted");
+
+            store.publishCatalogGraph(connector, null);
+            store.deleteAsset("http://test/graph");
+            assertEquals(initial, store.getStatistics().getTotal(), "Dropped partitions are no longer counted");
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * test that the statistics of a persistent store survive a clean restart, but not a crash
+     */
+    @Test
+    public void testPersistentRestart() {
+        AgentConfig config = new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.RDF_STORE_PROPERTY, "tdb2",
+                AgentConfig.RDF_STORE_DIRECTORY_PROPERTY, tempDir.toString())));
+        RdfStore store = new RdfStore(config, monitor);
+        store.registerAsset("http://test/graph", new ByteArrayInputStream("id,urn:name\n<urn:a>,\"A\"\n<urn:b>,\"B\"\n".getBytes(StandardCharsets.UTF_8)), ExternalFormat.CSV);
+        Node connector = NodeFactory.createURI("edc://test");
+        Graph catalogue = GraphFactory.createDefaultGraph();
+        catalogue.add(Triple.create(connector, name, NodeFactory.createLiteral("A")));
+        store.publishCatalogGraph(connector, catalogue);
+        long total = store.getStatistics().getTotal();
+        store.close();
+        Path record = tempDir.resolve(RdfStore.ASSET_STATISTICS_FILE);
+        assertTrue(Files.exists(record), "Statistics are recorded on close");
+
+        store = new RdfStore(config, monitor);
+        assertFalse(Files.exists(record), "Recorded statistics are consumed");
+        assertEquals(total - 1, store.getStatistics().getTotal(), "Statistics are restored without the catalogues");
+        assertEquals(2, store.getStatistics().getTriples(graph), "Asset is counted");
+        assertEquals(2, store.getStatistics().getPredicateCount(name), "Predicate is counted");
+        store.close();
+    }
+
+    /**
+     * test that changes survive their json representation
+     */
+    @Test
+    public void testJson() {
+        GraphStatistics.Delta delta = new GraphStatistics.Delta();
+        delta.add(graph, Triple.create(subject, RDF.type.asNode(), clazz));
+        delta.add(null, Triple.create(subject, name, NodeFactory.createLiteral("A")));
+        GraphStatistics statistics = new GraphStatistics();
+        statistics.apply(GraphStatistics.Delta.fromJson(delta.toJson()));
+        assertEquals(2, statistics.getTotal(), "Total survives");
+        assertEquals(1, statistics.getTriples(graph), "Named graph survives");
+        assertEquals(1, statistics.getTriples(null), "Default graph survives");
+        assertEquals(1, statistics.getClassCount(clazz), "Class survives");
+        assertEquals(1, statistics.getPredicateCount(name), "Predicate survives");
+    }
+}
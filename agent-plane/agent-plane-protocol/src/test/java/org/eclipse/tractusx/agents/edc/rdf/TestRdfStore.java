@@ -0,0 +1,408 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.rdf;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.system.Txn;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.TestConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the graph assets of the rdf store
+ */
+public class TestRdfStore {
+
+    public static final String ASSET = "http://test/GraphAsset";
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+    AgentConfig agentConfig = new AgentConfig(monitor, new TestConfig());
+    RdfStore store = new RdfStore(agentConfig, monitor);
+    Node graph = NodeFactory.createURI(ASSET);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    public void tearDown() {
+        store.close();
+    }
+
+    protected long countAsset() {
+        DatasetGraph target = store.getAssetDataset(graph);
+        target.begin(TxnType.READ);
+        try {
+            return target.getGraph(graph).size();
+        } finally {
+            target.end();
+        }
+    }
+
+    protected ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * test that a truncated csv source does not replace the existing content
+     */
+    @Test
+    public void testTruncatedCsv() {
+        assertEquals(2, store.replaceAsset(ASSET, stream("id,urn:name\n<urn:a>,\"A\"\n<urn:b>,\"B\"\n"), ExternalFormat.CSV), "Csv is loaded");
+        assertThrows(UncheckedIOException.class, () -> store.replaceAsset(ASSET, stream("id,urn:name\n<urn:c>,\"C\"\n<urn:d>,\"trunc"), ExternalFormat.CSV));
+        assertEquals(2, countAsset(), "Existing content survives the failed replacement");
+    }
+
+    /**
+     * test that deleting an unknown asset does not create a partition
+     */
+    @Test
+    public void testDeleteUnknownAsset() {
+        assertEquals(0, store.deleteAsset(ASSET), "Nothing is deleted");
+        assertFalse(store.assetPartitions.containsKey(graph), "No partition is created");
+    }
+
+    /**
+     * test that the default asset and connector catalogues are reserved
+     */
+    @Test
+    public void testReservedGraphs() {
+        assertTrue(store.isReservedAsset(agentConfig.getDefaultAsset()), "Default asset is reserved");
+        assertTrue(store.isReservedAsset("edcs://provider:8282"), "Catalogue is reserved");
+        assertTrue(store.isReservedAsset("edc://provider:8282"), "Catalogue is reserved");
+        assertFalse(store.isReservedAsset(ASSET), "Graph asset is not reserved");
+        assertFalse(store.isReservedAsset("GraphAsset"), "Relative graph asset is not reserved");
+    }
+
+    /**
+     * test that the partition of an asset takes over its content from the shared dataset
+     */
+    @Test
+    public void testPartitionTakesOverContent() {
+        Txn.executeWrite(store.store, () -> store.store.add(graph, NodeFactory.createURI("urn:a"), NodeFactory.createURI("urn:name"), NodeFactory.createLiteral("A")));
+        assertEquals(1, store.registerAsset(ASSET, stream("id,urn:name\n<urn:b>,\"B\"\n"), ExternalFormat.CSV), "Csv is loaded");
+        assertTrue(store.assetPartitions.containsKey(graph), "Partition is created");
+        assertEquals(2, countAsset(), "Partition hosts the existing and the new content");
+        assertEquals(0, (int) Txn.calculateRead(store.store, () -> store.store.getGraph(graph).size()), "Shared dataset no longer hosts the asset");
+        assertEquals(2, store.deleteAsset(ASSET), "Both triples are deleted");
+        assertEquals(0, countAsset(), "Asset is empty");
+    }
+
+    /**
+     * test that deleting an asset which only has content in the shared dataset goes through its partition
+     */
+    @Test
+    public void testDeleteSharedContent() {
+        Txn.executeWrite(store.store, () -> store.store.add(graph, NodeFactory.createURI("urn:a"), NodeFactory.createURI("urn:name"), NodeFactory.createLiteral("A")));
+        assertEquals(1, store.deleteAsset(ASSET), "Shared content is deleted");
+        assertTrue(store.assetPartitions.containsKey(graph), "Partition is created");
+        assertEquals(0, (int) Txn.calculateRead(store.store, () -> store.store.getGraph(graph).size()), "Shared dataset no longer hosts the asset");
+        assertEquals(0, countAsset(), "Deleted content is not resurrected by the partition");
+    }
+
+    /**
+     * test that a snapshot which is restored in the background does not replace a fresher catalogue
+     */
+    @Test
+    public void testRestoreAfterSynchronization() {
+        AgentConfig snapshotConfig = new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.RDF_SNAPSHOT_PROPERTY, tempDir.resolve("store.rt").toString())));
+        Node connector = NodeFactory.createURI("edc://test");
+        RdfStore first = new RdfStore(snapshotConfig, monitor);
+        first.publishCatalogGraph(connector, createCatalogue("stale"));
+        assertTrue(first.snapshot(), "Snapshot is written");
+        first.close();
+
+        List<Runnable> loading = new ArrayList<>();
+        RdfStore second = new RdfStore(snapshotConfig, monitor, loading::add);
+        try {
+            second.publishCatalogGraph(connector, createCatalogue("fresh"));
+            loading.forEach(Runnable::run);
+            assertTrue(second.isReady(), "Snapshot is restored");
+            Graph published = second.getCatalogGraph(connector);
+            assertTrue(published.contains(connector, Node.ANY, NodeFactory.createLiteral("fresh")), "Fresh catalogue survives the restore");
+            assertEquals(1, second.getStatistics().getTriples(connector), "Statistics only count the fresh catalogue");
+        } finally {
+            second.close();
+        }
+    }
+
+    /**
+     * creates the config of a persistent store
+     *
+     * @param assetFiles the asset files to load
+     * @return typed config
+     */
+    protected AgentConfig createPersistentConfig(Path... assetFiles) {
+        return new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.RDF_STORE_PROPERTY, "tdb2",
+                AgentConfig.RDF_STORE_DIRECTORY_PROPERTY, tempDir.resolve("tdb").toString(),
+                AgentConfig.ASSET_FILE_PROPERTY, Stream.of(assetFiles).map(Path::toString).collect(Collectors.joining(",")))));
+    }
+
+    /**
+     * writes an asset file with the given names
+     *
+     * @param file  to write
+     * @param names of the subjects
+     * @return the file
+     */
+    protected Path writeAssetFile(Path file, String... names) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (String name : names) {
+            content.append(String.format("<urn:test:%s> <urn:test:name> \"%s\" .%n", name, name));
+        }
+        return Files.writeString(file, content.toString(), StandardCharsets.UTF_8);
+    }
+
+    protected long countDefaultGraph(RdfStore target) {
+        return Txn.calculateRead(target.store, () -> target.store.getDefaultGraph().size());
+    }
+
+    /**
+     * test that the persistent store reuses its content and statistics if the asset files are unchanged
+     */
+    @Test
+    public void testPersistentReuse() throws IOException {
+        AgentConfig persistentConfig = createPersistentConfig(writeAssetFile(tempDir.resolve("assets.ttl"), "a", "b"));
+        RdfStore first = new RdfStore(persistentConfig, monitor);
+        assertTrue(first.isPersistent(), "Store is persistent");
+        assertEquals(1, first.getFilesParsed(), "Asset file is parsed");
+        assertEquals(2, countDefaultGraph(first), "Asset file is loaded");
+        assertEquals(2, first.getStatistics().getTotal(), "Asset file is counted");
+        first.close();
+        assertTrue(Files.exists(tempDir.resolve("tdb").resolve(RdfStore.ASSET_FINGERPRINT_FILE)), "Fingerprint is recorded");
+        assertTrue(Files.exists(tempDir.resolve("tdb").resolve(RdfStore.ASSET_STATISTICS_FILE)), "Statistics are recorded");
+
+        RdfStore second = new RdfStore(persistentConfig, monitor);
+        try {
+            assertEquals(0, second.getFilesParsed(), "Asset file is not parsed again");
+            assertEquals(2, countDefaultGraph(second), "Content is reused");
+            assertEquals(2, second.getStatistics().getTotal(), "Statistics are restored");
+            assertFalse(Files.exists(tempDir.resolve("tdb").resolve(RdfStore.ASSET_STATISTICS_FILE)), "Recorded statistics are consumed");
+        } finally {
+            second.close();
+        }
+    }
+
+    /**
+     * test that the persistent store replaces its content if the asset files have changed
+     */
+    @Test
+    public void testPersistentReload() throws IOException {
+        Path assetFile = writeAssetFile(tempDir.resolve("assets.ttl"), "a", "b");
+        RdfStore first = new RdfStore(createPersistentConfig(assetFile), monitor);
+        first.close();
+
+        writeAssetFile(assetFile, "c", "d", "e");
+        RdfStore second = new RdfStore(createPersistentConfig(assetFile), monitor);
+        try {
+            assertEquals(1, second.getFilesParsed(), "Changed asset file is parsed");
+            assertEquals(3, countDefaultGraph(second), "Previous content is cleared");
+            assertEquals(3, second.getStatistics().getTotal(), "Outdated statistics are ignored");
+            assertTrue(Txn.calculateRead(second.store, () -> second.store.getDefaultGraph().contains(NodeFactory.createURI("urn:test:e"), Node.ANY, Node.ANY)), "New content is loaded");
+        } finally {
+            second.close();
+        }
+    }
+
+    /**
+     * test that statistics of other asset files are not restored
+     */
+    @Test
+    public void testRestoreStatisticsFingerprint() throws IOException {
+        Path file = tempDir.resolve(RdfStore.ASSET_STATISTICS_FILE);
+        Files.writeString(file, "{\"assetFingerprint\":\"other\",\"statistics\":{}}", StandardCharsets.UTF_8);
+        assertFalse(store.restoreStatistics(file), "Statistics of other asset files are ignored");
+        assertFalse(Files.exists(file), "Statistics are consumed anyway");
+        assertFalse(store.restoreStatistics(file), "Missing statistics are not restored");
+    }
+
+    /**
+     * test that asset files are parsed according to their extension and compression
+     */
+    @Test
+    public void testAssetFileFormats() throws IOException {
+        Path turtle = writeAssetFile(tempDir.resolve("assets.ttl"), "a");
+        Path triples = writeAssetFile(tempDir.resolve("assets.nt"), "b");
+        Path compressed = tempDir.resolve("assets.nt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+            out.write(Files.readAllBytes(writeAssetFile(tempDir.resolve("compressed.nt"), "c", "d")));
+        }
+        Path thrift = tempDir.resolve("assets.rt");
+        Graph graph = GraphFactory.createDefaultGraph();
+        graph.add(Triple.create(NodeFactory.createURI("urn:test:e"), NodeFactory.createURI("urn:test:name"), NodeFactory.createLiteral("e")));
+        try (OutputStream out = Files.newOutputStream(thrift)) {
+            RDFDataMgr.write(out, graph, Lang.RDFTHRIFT);
+        }
+        Path[] assetFiles = { turtle, triples, compressed, thrift };
+        assertEquals(5, store.loadAssetFiles(Stream.of(assetFiles).map(Path::toString).toArray(String[]::new), false), "All files are loaded");
+        assertEquals(4, store.getFilesParsed(), "Each file is parsed");
+        assertEquals(5, store.getTuplesParsed(), "Parsed tuples are counted");
+        for (String name : List.of("a", "b", "c", "d", "e")) {
+            assertTrue(Txn.calculateRead(store.store, () -> store.store.getDefaultGraph().contains(NodeFactory.createURI("urn:test:" + name), Node.ANY, Node.ANY)),
+                    String.format("Content of %s is loaded", name));
+        }
+    }
+
+    /**
+     * test that a broken asset file fails the loading without partial content
+     */
+    @Test
+    public void testBrokenAssetFile() throws IOException {
+        Path valid = writeAssetFile(tempDir.resolve("valid.ttl"), "a", "b");
+        Path broken = Files.writeString(tempDir.resolve("broken.ttl"), "<urn:test:c> <urn:test:name> \"c", StandardCharsets.UTF_8);
+        assertThrows(RuntimeException.class, () -> store.loadAssetFiles(new String[] { valid.toString(), broken.toString() }, false));
+        assertEquals(0, countDefaultGraph(store), "Nothing is loaded");
+    }
+
+    /**
+     * test that a compressed snapshot restores the asset content and re-publishes the catalogues
+     */
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        Path snapshot = tempDir.resolve("store.rt.gz");
+        AgentConfig snapshotConfig = new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.RDF_SNAPSHOT_PROPERTY, snapshot.toString(),
+                AgentConfig.ASSET_FILE_PROPERTY, writeAssetFile(tempDir.resolve("assets.ttl"), "a", "b").toString())));
+        Node connector = NodeFactory.createURI("edc://test");
+        RdfStore first = new RdfStore(snapshotConfig, monitor);
+        first.publishCatalogGraph(connector, createCatalogue("offer"));
+        assertTrue(first.snapshot(), "Snapshot is written");
+        first.close();
+        byte[] header = Arrays.copyOf(Files.readAllBytes(snapshot), 2);
+        assertArrayEquals(new byte[] { (byte) 0x1f, (byte) 0x8b }, header, "Snapshot is compressed");
+        assertTrue(Files.exists(tempDir.resolve("store.rt.gz" + RdfStore.SNAPSHOT_MANIFEST_SUFFIX)), "Manifest is written");
+
+        RdfStore second = new RdfStore(snapshotConfig, monitor);
+        try {
+            assertEquals(0, second.getFilesParsed(), "Asset file is not parsed");
+            assertEquals(2, countDefaultGraph(second), "Asset content is restored");
+            Graph published = second.getCatalogGraph(connector);
+            assertNotNull(published, "Catalogue is re-published");
+            assertTrue(published.contains(connector, Node.ANY, NodeFactory.createLiteral("offer")), "Catalogue content is restored");
+            assertEquals(0, (int) Txn.calculateRead(second.store, () -> second.store.getGraph(connector).size()), "Catalogue is not restored into the store");
+            assertEquals(1, second.getStatistics().getTriples(connector), "Catalogue is counted");
+        } finally {
+            second.close();
+        }
+    }
+
+    /**
+     * test that a snapshot of other asset files is ignored
+     */
+    @Test
+    public void testSnapshotFingerprintMismatch() throws IOException {
+        Path assetFile = writeAssetFile(tempDir.resolve("assets.ttl"), "a", "b");
+        AgentConfig snapshotConfig = new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.RDF_SNAPSHOT_PROPERTY, tempDir.resolve("store.rt").toString(),
+                AgentConfig.ASSET_FILE_PROPERTY, assetFile.toString())));
+        Node connector = NodeFactory.createURI("edc://test");
+        RdfStore first = new RdfStore(snapshotConfig, monitor);
+        first.publishCatalogGraph(connector, createCatalogue("offer"));
+        assertTrue(first.snapshot(), "Snapshot is written");
+        first.close();
+
+        writeAssetFile(assetFile, "c", "d", "e");
+        RdfStore second = new RdfStore(snapshotConfig, monitor);
+        try {
+            assertEquals(1, second.getFilesParsed(), "Changed asset file is parsed");
+            assertEquals(3, countDefaultGraph(second), "Only the changed asset file is loaded");
+            assertNull(second.getCatalogGraph(connector), "Catalogue of the outdated snapshot is not published");
+        } finally {
+            second.close();
+        }
+    }
+
+    /**
+     * test that the store reports its loading state and only snapshots loaded content
+     */
+    @Test
+    public void testLoadingStates() throws IOException {
+        AgentConfig snapshotConfig = new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.RDF_SNAPSHOT_PROPERTY, tempDir.resolve("store.rt").toString(),
+                AgentConfig.ASSET_FILE_PROPERTY, writeAssetFile(tempDir.resolve("assets.ttl"), "a").toString())));
+        List<Runnable> loading = new ArrayList<>();
+        RdfStore loadingStore = new RdfStore(snapshotConfig, monitor, loading::add);
+        try {
+            assertEquals(RdfStore.LoadingState.LOADING, loadingStore.getLoadingState(), "Store is loading");
+            assertFalse(loadingStore.isReady(), "Store is not ready");
+            assertFalse(loadingStore.snapshot(), "Incomplete content is not snapshotted");
+            loading.forEach(Runnable::run);
+            assertEquals(RdfStore.LoadingState.READY, loadingStore.getLoadingState(), "Store is ready");
+            assertEquals(1, loadingStore.getTuplesParsed(), "Progress is reported");
+            assertNull(loadingStore.getLoadingFailure(), "There is no failure");
+            assertTrue(loadingStore.snapshot(), "Loaded content is snapshotted");
+        } finally {
+            loadingStore.close();
+        }
+    }
+
+    /**
+     * test that a failed background load is reported and a failed immediate load is raised
+     */
+    @Test
+    public void testLoadingFailure() {
+        AgentConfig missingConfig = new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.ASSET_FILE_PROPERTY, tempDir.resolve("missing.ttl").toString())));
+        List<Runnable> loading = new ArrayList<>();
+        RdfStore failedStore = new RdfStore(missingConfig, monitor, loading::add);
+        try {
+            loading.forEach(Runnable::run);
+            assertEquals(RdfStore.LoadingState.FAILED, failedStore.getLoadingState(), "Loading has failed");
+            assertFalse(failedStore.isReady(), "Store is not ready");
+            assertNotNull(failedStore.getLoadingFailure(), "Failure is reported");
+        } finally {
+            failedStore.close();
+        }
+        assertThrows(IllegalStateException.class, () -> new RdfStore(missingConfig, monitor));
+    }
+
+    protected Graph createCatalogue(String name) {
+        Graph catalogue = GraphFactory.createDefaultGraph();
+        catalogue.add(Triple.create(NodeFactory.createURI("edc://test"), NodeFactory.createURI("urn:name"), NodeFactory.createLiteral(name)));
+        return catalogue;
+    }
+}
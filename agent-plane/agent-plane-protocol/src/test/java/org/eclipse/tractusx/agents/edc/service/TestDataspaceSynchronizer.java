@@ -17,6 +17,7 @@
 package org.eclipse.tractusx.agents.edc.service;
 
 import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
 import jakarta.json.JsonObjectBuilder;
 import org.eclipse.tractusx.agents.edc.TestConfig;
 import org.eclipse.tractusx.agents.edc.jsonld.JsonLd;
@@ -24,6 +25,7 @@ import org.eclipse.tractusx.agents.edc.model.DcatCatalog;
 import org.eclipse.tractusx.agents.edc.model.DcatDataset;
 import org.eclipse.tractusx.agents.edc.rdf.RdfStore;
 import okhttp3.*;
+import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.sparql.core.Quad;
 import org.eclipse.edc.json.JacksonTypeManager;
@@ -37,6 +39,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import org.eclipse.edc.spi.monitor.ConsoleMonitor;
 import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 
 
 import org.mockito.MockitoAnnotations;
@@ -44,9 +47,11 @@ import org.mockito.MockitoAnnotations;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Tests the dataspace synchronization
@@ -94,34 +99,117 @@ public class TestDataspaceSynchronizer {
     }
 
     /**
-     * test quad representation of a contract offer
+     * test publishing and removing the catalogue of a connector
      */
     @Test
     public void testAddRemove() {
-        Node graph = store.getDefaultGraph();
         Node connector = NodeFactory.createURI("edc://test");
-        JsonObjectBuilder offerBuilder = createOffer();
-        DcatDataset offer = new DcatDataset(offerBuilder.build());
-        int added = synchronizer.addOfferFacts(graph, connector, offer);
-        assertEquals(store.getDataSet().getDefaultGraph().size(), added, "All added tuples have been stored");
-        Quad findAssets = Quad.create(graph, connector, DataspaceSynchronizer.CX_ASSET, Node.ANY);
-        var allAssets = store.getDataSet().find(findAssets);
-        Map<String, Quad> assetSet = new HashMap<>();
-        while (allAssets.hasNext()) {
-            Quad assetQuad = allAssets.next();
-            assetSet.put(assetQuad.getObject().toString(false), assetQuad);
-        }
+        long added = synchronizer.applyCatalog("http://test", createCatalog(createOffer()));
+        Graph published = store.getCatalogGraph(connector);
+        assertEquals(published.size(), added, "All added tuples have been stored");
+        Map<String, Triple> assetSet = new HashMap<>();
+        published.find(connector, DataspaceSynchronizer.CX_ASSET, Node.ANY)
+                .forEachRemaining(assetTriple -> assetSet.put(assetTriple.getObject().toString(false), assetTriple));
         assertEquals(true, assetSet.containsKey("cx-taxo:GraphAsset?test=ExampleAsset"), "Found the first asset from the catalogue");
         assertEquals(1, assetSet.size(), "Assets/offers are complete");
-        assertEquals(store.getDataSet().getDefaultGraph().size(), added, "All added tuples have been stored");
-        int removed = synchronizer.deleteConnectorFacts(graph, connector);
-        assertEquals(0, store.getDataSet().getDefaultGraph().size(), "All stored tuples have been removed");
-        assertEquals(added, removed, "All added tuples have been removed");
+        long removed = synchronizer.applyCatalog("http://test", createCatalog());
+        assertEquals(0, removed, "All added tuples have been removed");
+        assertEquals(0, store.getCatalogGraph(connector).size(), "All stored tuples have been removed");
+    }
+
+    /**
+     * test that changing or removing a single offer keeps the shapes of the other offers
+     * and deletes the nested shape nodes of the offer
+     */
+    @Test
+    public void testIncrementalShapes() {
+        Node connector = NodeFactory.createURI("edc://test");
+        Node sharedShape = NodeFactory.createURI("https://w3id.org/catenax/ontology/common#GraphAsset?test=ExampleAsset&shapeObject=OemDTC");
+        long single = synchronizer.applyCatalog("http://single", createCatalog(createOffer("cx-taxo:GraphAsset?test=Second")));
+        long both = synchronizer.applyCatalog("http://test", createCatalog(createOffer(), createOffer("cx-taxo:GraphAsset?test=Second")));
+        assertTrue(both > single, "Both offers add facts");
+        long changed = synchronizer.applyCatalog("http://test", createCatalog(createOffer().add("https://w3id.org/catenax/ontology/common#name", "Changed Asset"),
+                createOffer("cx-taxo:GraphAsset?test=Second")));
+        assertEquals(both, changed, "Changed offer replaces its facts");
+        long remaining = synchronizer.applyCatalog("http://test", createCatalog(createOffer("cx-taxo:GraphAsset?test=Second")));
+        assertEquals(single, remaining, "Removed offer leaves exactly the facts of the remaining offer");
+        Graph published = store.getCatalogGraph(connector);
+        assertTrue(published.contains(sharedShape, Node.ANY, Node.ANY), "Shared shape survives");
+        published.find().forEachRemaining(triple -> {
+            if (triple.getObject().isBlank()) {
+                assertTrue(published.contains(triple.getObject(), Node.ANY, Node.ANY), "No dangling shape nodes");
+            }
+        });
+        assertEquals(0, synchronizer.applyCatalog("http://test", createCatalog()), "Removed offers leave no facts");
+    }
+
+    /**
+     * test that incremental updates are layered over the published catalogue
+     * and compacted once the accumulated changes grow
+     */
+    @Test
+    public void testCatalogVersions() {
+        Node connector = NodeFactory.createURI("edc://test");
+        Node name = NodeFactory.createURI("https://w3id.org/catenax/ontology/common#name");
+        synchronizer.applyCatalog("http://test", createCatalog(createOffer(), createOffer("cx-taxo:GraphAsset?test=Second"),
+                createOffer("cx-taxo:GraphAsset?test=Third"), createOffer("cx-taxo:GraphAsset?test=Fourth")));
+        Graph base = store.getCatalogGraph(connector);
+        long full = base.size();
+        for (int round = 0; round < 4; round++) {
+            synchronizer.applyCatalog("http://test", createCatalog(createOffer().add("https://w3id.org/catenax/ontology/common#name", "Changed Asset " + round),
+                    createOffer("cx-taxo:GraphAsset?test=Second"), createOffer("cx-taxo:GraphAsset?test=Third"), createOffer("cx-taxo:GraphAsset?test=Fourth")));
+            Graph published = store.getCatalogGraph(connector);
+            assertTrue(published instanceof DataspaceSynchronizer.CatalogDelta, "Changes are layered");
+            assertEquals(full, published.size(), "Changed offer replaces its facts");
+            assertTrue(published.contains(Node.ANY, name, NodeFactory.createLiteral("Changed Asset " + round)), "Latest change is visible");
+        }
+        DataspaceSynchronizer.CatalogDelta published = (DataspaceSynchronizer.CatalogDelta) store.getCatalogGraph(connector);
+        assertTrue(published.getBase() != base, "Accumulated changes have been compacted into a new base");
+        assertFalse(base.contains(Node.ANY, name, NodeFactory.createLiteral("Changed Asset 0")), "Earlier versions are not changed");
+    }
+
+    /**
+     * test that the cached shapes are relabelled per offer
+     */
+    @Test
+    public void testShapesRelabelling() {
+        Node graph = store.getDefaultGraph();
+        Node connector = NodeFactory.createURI("edc://test");
+        Set<Node> firstBlanks = getBlankNodes(synchronizer.convertToQuads(graph, connector, new DcatDataset(createOffer().build())));
+        Set<Node> secondBlanks = getBlankNodes(synchronizer.convertToQuads(graph, connector, new DcatDataset(createOffer("cx-taxo:GraphAsset?test=Second").build())));
+        assertEquals(4, firstBlanks.size(), "Each property shape gets a blank node");
+        assertEquals(firstBlanks.size(), secondBlanks.size(), "Cached shapes have the same structure");
+        firstBlanks.retainAll(secondBlanks);
+        assertTrue(firstBlanks.isEmpty(), "Offers never share blank nodes");
+        String shapes = createOffer().build().getString("http://www.w3.org/ns/shacl#shapesGraph");
+        assertTrue(synchronizer.getShapesTriples(shapes) == synchronizer.getShapesTriples(shapes), "Shapes are parsed once");
+    }
+
+    private static Set<Node> getBlankNodes(Collection<Quad> quads) {
+        return quads.stream()
+                .flatMap(quad -> Stream.of(quad.getSubject(), quad.getObject()))
+                .filter(Node::isBlank)
+                .collect(Collectors.toSet());
+    }
+
+    private static DcatCatalog createCatalog(JsonObjectBuilder... offers) {
+        JsonArrayBuilder datasets = Json.createArrayBuilder();
+        for (JsonObjectBuilder offer : offers) {
+            datasets.add(offer);
+        }
+        return new DcatCatalog(Json.createObjectBuilder()
+                .add("@id", "test-catalog")
+                .add("http://www.w3.org/ns/dcat#dataset", datasets)
+                .build());
     }
 
     private static JsonObjectBuilder createOffer() {
+        return createOffer("cx-taxo:GraphAsset?test=ExampleAsset");
+    }
+
+    private static JsonObjectBuilder createOffer(String id) {
         JsonObjectBuilder offerBuilder = Json.createObjectBuilder()
-                .add("@id", "cx-taxo:GraphAsset?test=ExampleAsset")
+                .add("@id", id)
                 .add("https://w3id.org/edc/v0.0.1/ns/contenttype", "application/json, application/xml")
                 .add("https://w3id.org/catenax/ontology/common#version", "1.12.19-SNAPSHOT")
                 .add("https://w3id.org/catenax/ontology/common#name", "Test Asset")
@@ -298,4 +386,24 @@ public class TestDataspaceSynchronizer {
         assertEquals(2 + 22 + 32 + 10, results.size(), "Got correct number of quads (2 connector subject and 22 asset subjects + 32 shape triples + 10 node to shape relations).");
     }
 
+    /**
+     * test that the freshness of a connector is a consistent copy of its state
+     */
+    @Test
+    public void testFreshness() {
+        DataspaceSynchronizer.ConnectorState state = new DataspaceSynchronizer.ConnectorState("BPNL00000000TEST", "http://test");
+        state.recordFailure(1000, "timeout");
+        state.recordFailure(2000, "timeout");
+        DataspaceSynchronizer.Freshness failed = state.getFreshness();
+        state.recordSuccess(3000, 42, 2);
+        DataspaceSynchronizer.Freshness fresh = state.getFreshness();
+        assertEquals(2, failed.getFailures(), "Failures are counted");
+        assertEquals(0, failed.getLastSuccess(), "Earlier copy is not changed");
+        assertEquals(0, fresh.getFailures(), "Success resets the failures");
+        assertEquals(3000, fresh.getLastSuccess(), "Success is recorded");
+        assertEquals(2000, fresh.getLastError(), "Last error is kept");
+        assertEquals(42, fresh.getFactCount(), "Facts are recorded");
+        assertEquals(2, fresh.getOfferCount(), "Offers are recorded");
+    }
+
 }
\ No newline at end of file
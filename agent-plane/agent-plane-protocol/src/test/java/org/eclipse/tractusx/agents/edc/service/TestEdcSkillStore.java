@@ -0,0 +1,118 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import jakarta.json.Json;
+import okhttp3.OkHttpClient;
+import org.eclipse.edc.json.JacksonTypeManager;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.query.QuerySpec;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.edc.spi.types.TypeManager;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.SkillDistribution;
+import org.eclipse.tractusx.agents.edc.model.Asset;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the skill cache of the control plane based skill store
+ */
+public class TestEdcSkillStore {
+
+    public static final String SKILL = "SkillAsset?test=1";
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+    TypeManager typeManager = new JacksonTypeManager();
+    AtomicInteger lookups = new AtomicInteger();
+
+    protected AgentConfig createConfig(long ttl) {
+        return new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(AgentConfig.SKILL_CACHE_TTL_PROPERTY, String.valueOf(ttl))));
+    }
+
+    /**
+     * creates a store whose control plane knows the given skills
+     *
+     * @param config typed config
+     * @param skills names of the known skill assets
+     * @return skill store
+     */
+    protected EdcSkillStore createStore(AgentConfig config, String... skills) {
+        DataManagement management = new DataManagement(monitor, typeManager, new OkHttpClient(), config) {
+            @Override
+            public List<Asset> listAssets(QuerySpec spec) {
+                lookups.incrementAndGet();
+                String key = String.valueOf(spec.getFilterExpression().get(0).getOperandRight());
+                if (!List.of(skills).contains(key)) {
+                    return List.of();
+                }
+                return List.of(new Asset(Json.createObjectBuilder()
+                        .add("@id", key)
+                        .add("https://w3id.org/edc/v0.0.1/ns/properties", Json.createObjectBuilder()
+                                .add(EdcSkillStore.DISTRIBUTION_MODE_PROPERTY, SkillDistribution.PROVIDER.getDistributionMode()))
+                        .add("https://w3id.org/edc/v0.0.1/ns/privateProperties", Json.createObjectBuilder()
+                                .add(EdcSkillStore.QUERY_PROPERTY, "SELECT * WHERE { ?s ?p ?o }"))
+                        .build()));
+            }
+        };
+        return new EdcSkillStore(management, typeManager, config, monitor);
+    }
+
+    /**
+     * test that text and distribution of a skill are served from a single lookup
+     */
+    @Test
+    public void testCacheHit() {
+        EdcSkillStore store = createStore(createConfig(60000), SKILL);
+        assertEquals("SELECT * WHERE { ?s ?p ?o }", store.get(SKILL).orElse(null), "Skill text is found");
+        assertEquals(SkillDistribution.PROVIDER, store.getDistribution(SKILL), "Distribution is found");
+        assertEquals("SELECT * WHERE { ?s ?p ?o }", store.get(SKILL).orElse(null), "Skill text is cached");
+        assertEquals(1, lookups.get(), "Control plane is asked once");
+        assertEquals(1, store.getControlPlaneCalls(), "Control plane call is counted");
+        assertEquals(2, store.getSavedCalls(), "Cache hits are counted");
+    }
+
+    /**
+     * test that expired skills are looked up again
+     */
+    @Test
+    public void testCacheExpiry() throws Exception {
+        EdcSkillStore store = createStore(createConfig(1), SKILL);
+        assertTrue(store.get(SKILL).isPresent(), "Skill is found");
+        Thread.sleep(10);
+        assertTrue(store.get(SKILL).isPresent(), "Skill is found again");
+        assertEquals(2, lookups.get(), "Expired skill is looked up again");
+        assertEquals(0, store.getSavedCalls(), "No cache hit");
+    }
+
+    /**
+     * test that unknown skills are not cached
+     */
+    @Test
+    public void testUnknownSkillNotCached() {
+        EdcSkillStore store = createStore(createConfig(60000));
+        assertTrue(store.get(SKILL).isEmpty(), "Skill is unknown");
+        assertTrue(store.get(SKILL).isEmpty(), "Skill is still unknown");
+        assertEquals(2, lookups.get(), "Unknown skill is looked up each time");
+        assertTrue(store.cache.isEmpty(), "Nothing is cached");
+    }
+}
@@ -0,0 +1,157 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import jakarta.json.Json;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.edc.spi.types.domain.edr.EndpointDataReference;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.AgreementPersistence;
+import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the file-based agreement persistence
+ */
+public class TestFileAgreementPersistence {
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+
+    @TempDir
+    Path tempDir;
+
+    protected AgentConfig createConfig() {
+        return createConfig(new byte[16]);
+    }
+
+    protected AgentConfig createConfig(byte[] key) {
+        return new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.AGREEMENT_STORE_FILE_PROPERTY, tempDir.resolve("agreements.journal").toString(),
+                AgentConfig.AGREEMENT_STORE_KEY_PROPERTY, Base64.getEncoder().encodeToString(key))));
+    }
+
+    protected AgreementPersistence.AgreementRecord createRecord(String asset, String token) {
+        ContractAgreement agreement = new ContractAgreement(Json.createObjectBuilder()
+                .add("@id", "agreement-" + asset)
+                .add("https://w3id.org/edc/v0.0.1/ns/assetId", asset)
+                .add("https://w3id.org/edc/v0.0.1/ns/contractSigningDate", System.currentTimeMillis() / 1000)
+                .build());
+        EndpointDataReference reference = EndpointDataReference.Builder.newInstance()
+                .id("edr-" + asset)
+                .contractId("agreement-" + asset)
+                .endpoint("http://localhost/api/public")
+                .authKey("Authorization")
+                .authCode(token)
+                .build();
+        return new AgreementPersistence.AgreementRecord(asset, "http://localhost:8080", agreement, Map.of(), reference);
+    }
+
+    /**
+     * test that agreements and endpoints survive a restart and tokens are not stored in plain text
+     */
+    @Test
+    public void testWarmStart() throws Exception {
+        FileAgreementPersistence persistence = new FileAgreementPersistence(createConfig(), monitor);
+        assertTrue(persistence.load().isEmpty(), "Persistence is initially empty");
+        ContractAgreement agreement = new ContractAgreement(Json.createObjectBuilder()
+                .add("@id", "agreement1")
+                .add("https://w3id.org/edc/v0.0.1/ns/assetId", "GraphAsset?test=1")
+                .add("https://w3id.org/edc/v0.0.1/ns/contractSigningDate", System.currentTimeMillis() / 1000)
+                .build());
+        EndpointDataReference reference = EndpointDataReference.Builder.newInstance()
+                .id("edr1")
+                .contractId("agreement1")
+                .endpoint("http://localhost/api/public")
+                .authKey("Authorization")
+                .authCode("secret-token")
+                .build();
+        reference.getProperties().put("http://www.w3.org/1999/02/22-rdf-syntax-ns#type", "cx-common:GraphAsset");
+        persistence.store(new AgreementPersistence.AgreementRecord("GraphAsset?test=1", "http://localhost:8080", agreement,
+                Map.of("http://www.w3.org/1999/02/22-rdf-syntax-ns#type", Json.createValue("cx-common:GraphAsset")), reference));
+        assertFalse(Files.readString(tempDir.resolve("agreements.journal")).contains("secret-token"), "Token is encrypted");
+        Collection<AgreementPersistence.AgreementRecord> records = new FileAgreementPersistence(createConfig(), monitor).load();
+        assertEquals(1, records.size(), "Record is restored");
+        AgreementPersistence.AgreementRecord record = records.iterator().next();
+        assertEquals("agreement1", record.getAgreement().getId(), "Agreement is restored");
+        assertEquals("http://localhost:8080", record.getRemoteUrl(), "Remote connector is restored");
+        assertEquals("secret-token", record.getReference().getAuthCode(), "Token is decrypted");
+        assertEquals("cx-common:GraphAsset", record.getReference().getProperties().get("http://www.w3.org/1999/02/22-rdf-syntax-ns#type"), "Properties are restored");
+    }
+
+    /**
+     * test that changes are appended instead of rewriting the store and that removals survive a restart
+     */
+    @Test
+    public void testJournal() throws Exception {
+        FileAgreementPersistence persistence = new FileAgreementPersistence(createConfig(), monitor);
+        persistence.store(createRecord("GraphAsset?test=1", "token1"));
+        persistence.store(createRecord("GraphAsset?test=2", "token2"));
+        persistence.store(createRecord("GraphAsset?test=1", "token3"));
+        persistence.remove("GraphAsset?test=2");
+        assertEquals(4, Files.readAllLines(tempDir.resolve("agreements.journal")).size(), "Each change appends one entry");
+        Collection<AgreementPersistence.AgreementRecord> records = new FileAgreementPersistence(createConfig(), monitor).load();
+        assertEquals(1, records.size(), "Removed asset is not restored");
+        assertEquals("token3", records.iterator().next().getReference().getAuthCode(), "Latest entry wins");
+        assertEquals(1, Files.readAllLines(tempDir.resolve("agreements.journal")).size(), "Journal is compacted when loaded");
+    }
+
+    /**
+     * test that a token which cannot be decrypted only drops the endpoint reference
+     */
+    @Test
+    public void testKeyChange() throws Exception {
+        new FileAgreementPersistence(createConfig(), monitor).store(createRecord("GraphAsset?test=1", "secret-token"));
+        byte[] otherKey = new byte[16];
+        otherKey[0] = 1;
+        Collection<AgreementPersistence.AgreementRecord> records = new FileAgreementPersistence(createConfig(otherKey), monitor).load();
+        assertEquals(1, records.size(), "Agreement is restored");
+        AgreementPersistence.AgreementRecord record = records.iterator().next();
+        assertEquals("agreement-GraphAsset?test=1", record.getAgreement().getId(), "Agreement survives the key change");
+        assertNull(record.getReference(), "Endpoint reference is dropped");
+    }
+
+    /**
+     * test that endpoint references without token can be persisted
+     */
+    @Test
+    public void testIncompleteReference() throws Exception {
+        AgreementPersistence.AgreementRecord complete = createRecord("GraphAsset?test=1", "token1");
+        EndpointDataReference reference = EndpointDataReference.Builder.newInstance()
+                .id("edr-incomplete")
+                .contractId("agreement-GraphAsset?test=1")
+                .endpoint("http://localhost/api/public")
+                .build();
+        new FileAgreementPersistence(createConfig(), monitor).store(new AgreementPersistence.AgreementRecord(complete.getAsset(), complete.getRemoteUrl(),
+                complete.getAgreement(), complete.getAssetProperties(), reference));
+        Collection<AgreementPersistence.AgreementRecord> records = new FileAgreementPersistence(createConfig(), monitor).load();
+        assertEquals(1, records.size(), "Record is restored");
+        AgreementPersistence.AgreementRecord record = records.iterator().next();
+        assertEquals("edr-incomplete", record.getReference().getId(), "Reference is restored");
+        assertNull(record.getReference().getAuthCode(), "Missing token stays missing");
+        assertNull(record.getReference().getAuthKey(), "Missing key stays missing");
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright (c) 2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import org.eclipse.edc.json.JacksonTypeManager;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.edc.spi.types.TypeManager;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.SkillDistribution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the file-based skill store
+ */
+public class TestFileSkillStore {
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+    TypeManager typeManager = new JacksonTypeManager();
+
+    @TempDir
+    Path tempDir;
+
+    protected AgentConfig createConfig() {
+        return new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(AgentConfig.SKILL_STORE_FILE_PROPERTY, tempDir.resolve("skills.journal").toString())));
+    }
+
+    /**
+     * test that skills survive a restart of the store
+     */
+    @Test
+    public void testWarmStart() {
+        FileSkillStore store = new FileSkillStore(createConfig(), typeManager, monitor);
+        assertTrue(store.get("SkillAsset?test=1").isEmpty(), "Store is initially empty");
+        store.put("SkillAsset?test=1", "SELECT * WHERE { ?s ?p ?o }", "Test", null, "1", null, SkillDistribution.PROVIDER, false, null, null);
+        store.put("SkillAsset?test=1", "SELECT ?s WHERE { ?s ?p ?o }", "Test", null, "2", null, SkillDistribution.CONSUMER, false, null, null);
+        store.put("SkillAsset?test=1", "SELECT ?p WHERE { ?s ?p ?o }", "Test", null, "2", null, SkillDistribution.CONSUMER, false, null, null);
+        FileSkillStore restarted = new FileSkillStore(createConfig(), typeManager, monitor);
+        assertEquals("SELECT ?p WHERE { ?s ?p ?o }", restarted.get("SkillAsset?test=1").orElse(null), "Latest skill text is restored");
+        assertEquals(SkillDistribution.CONSUMER, restarted.getDistribution("SkillAsset?test=1"), "Latest distribution is restored");
+        assertEquals("SELECT * WHERE { ?s ?p ?o }", restarted.get("SkillAsset?test=1", "1").orElse(null), "Older version is restored");
+    }
+}
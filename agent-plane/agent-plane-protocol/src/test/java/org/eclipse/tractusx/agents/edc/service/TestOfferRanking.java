@@ -0,0 +1,160 @@
+// Copyright (c) 2022,2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
+import org.eclipse.tractusx.agents.edc.model.DcatDataset;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the strategies of the offer ranking
+ */
+public class TestOfferRanking {
+
+    public static final String PROVIDER = "BPNL00000000PROV";
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+
+    List<ContractAgreement> agreements = new ArrayList<>();
+
+    protected OfferRanking createRanking(Map<String, String> settings) {
+        return OfferRanking.create(new AgentConfig(monitor, ConfigFactory.fromMap(settings)), () -> agreements);
+    }
+
+    protected ContractAgreement createAgreement(String id, String provider) {
+        return new ContractAgreement(Json.createObjectBuilder()
+                .add("@id", id)
+                .add("https://w3id.org/edc/v0.0.1/ns/providerId", provider)
+                .build());
+    }
+
+    protected JsonObject createPolicy(String id, String... leftOperands) {
+        JsonArrayBuilder constraints = Json.createArrayBuilder();
+        for (String leftOperand : leftOperands) {
+            constraints.add(Json.createObjectBuilder()
+                    .add("http://www.w3.org/ns/odrl/2/leftOperand", leftOperand)
+                    .add("http://www.w3.org/ns/odrl/2/operator", "odrl:eq")
+                    .add("http://www.w3.org/ns/odrl/2/rightOperand", "active"));
+        }
+        return Json.createObjectBuilder()
+                .add("@id", id)
+                .add("http://www.w3.org/ns/odrl/2/permission", Json.createObjectBuilder()
+                        .add("http://www.w3.org/ns/odrl/2/action", "use")
+                        .add("http://www.w3.org/ns/odrl/2/constraint", constraints))
+                .build();
+    }
+
+    protected List<DcatDataset> createDatasets(JsonObject... policies) {
+        JsonArrayBuilder offered = Json.createArrayBuilder();
+        for (JsonObject policy : policies) {
+            offered.add(policy);
+        }
+        return List.of(new DcatDataset(Json.createObjectBuilder()
+                .add("@id", "GraphAsset?test=1")
+                .add("http://www.w3.org/ns/odrl/2/hasPolicy", offered)
+                .build()));
+    }
+
+    /**
+     * test that an offer under an already agreed contract definition wins
+     */
+    @Test
+    public void testAgreedStrategy() {
+        agreements.add(createAgreement("ZGVmMg==:YXNzZXQ=:YWdyZWVk", PROVIDER));
+        OfferRanking.Selection selection = createRanking(Map.of()).select(createDatasets(
+                createPolicy("ZGVmMQ==:YXNzZXQ=:b2ZmZXIx"),
+                createPolicy("ZGVmMg==:YXNzZXQ=:b2ZmZXIy", "Membership", "FrameworkAgreement")), PROVIDER);
+        assertEquals("ZGVmMg==:YXNzZXQ=:b2ZmZXIy", selection.getOffer().getPolicy().getId(), "Agreed definition is preferred over a simpler offer");
+        assertEquals(OfferRanking.AGREED_STRATEGY, selection.getStrategy(), "Agreement decides");
+        assertEquals(2, selection.getCandidates(), "All offers are candidates");
+    }
+
+    /**
+     * test that agreements with other connectors do not decide
+     */
+    @Test
+    public void testAgreedStrategyOtherProvider() {
+        agreements.add(createAgreement("ZGVmMg==:YXNzZXQ=:YWdyZWVk", "BPNL00000000OTHR"));
+        OfferRanking ranking = createRanking(Map.of());
+        OfferRanking.Selection selection = ranking.select(createDatasets(
+                createPolicy("ZGVmMQ==:YXNzZXQ=:b2ZmZXIx"),
+                createPolicy("ZGVmMg==:YXNzZXQ=:b2ZmZXIy", "Membership", "FrameworkAgreement")), PROVIDER);
+        assertEquals("ZGVmMQ==:YXNzZXQ=:b2ZmZXIx", selection.getOffer().getPolicy().getId(), "Agreement with another connector is ignored");
+        assertEquals(OfferRanking.COMPLEXITY_STRATEGY, selection.getStrategy(), "Complexity decides");
+        selection = ranking.select(createDatasets(
+                createPolicy("ZGVmMQ==:YXNzZXQ=:b2ZmZXIx"),
+                createPolicy("ZGVmMg==:YXNzZXQ=:b2ZmZXIy", "Membership", "FrameworkAgreement")), null);
+        assertEquals("ZGVmMQ==:YXNzZXQ=:b2ZmZXIx", selection.getOffer().getPolicy().getId(), "Agreements do not decide for an unknown connector");
+    }
+
+    /**
+     * test that the offer with fewer constraints wins
+     */
+    @Test
+    public void testComplexityStrategy() {
+        OfferRanking.Selection selection = createRanking(Map.of()).select(createDatasets(
+                createPolicy("offer1", "Membership", "FrameworkAgreement"),
+                createPolicy("offer2", "Membership")), PROVIDER);
+        assertEquals("offer2", selection.getOffer().getPolicy().getId(), "Simpler offer is preferred");
+        assertEquals(OfferRanking.COMPLEXITY_STRATEGY, selection.getStrategy(), "Complexity decides");
+    }
+
+    /**
+     * test that the earliest matching preference wins among equally complex offers
+     */
+    @Test
+    public void testPreferenceStrategy() {
+        OfferRanking.Selection selection = createRanking(Map.of(AgentConfig.OFFER_PREFERENCE_PROPERTY, "Dismantler,FrameworkAgreement")).select(createDatasets(
+                createPolicy("offer1", "Membership"),
+                createPolicy("offer2", "FrameworkAgreement"),
+                createPolicy("offer3", "Dismantler")), PROVIDER);
+        assertEquals("offer3", selection.getOffer().getPolicy().getId(), "Earliest preference is preferred");
+        assertEquals(OfferRanking.PREFERENCE_STRATEGY, selection.getStrategy(), "Preference decides");
+    }
+
+    /**
+     * test that the configured order of strategies is respected and ties keep the catalogue order
+     */
+    @Test
+    public void testStrategyOrder() {
+        OfferRanking ranking = createRanking(Map.of(AgentConfig.OFFER_RANKING_PROPERTY, "preference,complexity",
+                AgentConfig.OFFER_PREFERENCE_PROPERTY, "FrameworkAgreement"));
+        OfferRanking.Selection selection = ranking.select(createDatasets(
+                createPolicy("offer1", "Membership"),
+                createPolicy("offer2", "Membership", "FrameworkAgreement")), PROVIDER);
+        assertEquals("offer2", selection.getOffer().getPolicy().getId(), "Preference overrides complexity");
+        selection = ranking.select(createDatasets(
+                createPolicy("offer1", "Membership"),
+                createPolicy("offer2", "Dismantler")), PROVIDER);
+        assertEquals("offer1", selection.getOffer().getPolicy().getId(), "Ties keep the catalogue order");
+        assertEquals("order", selection.getStrategy(), "No strategy decides");
+        assertNull(ranking.select(List.of(), PROVIDER), "Nothing is selected without offers");
+        assertThrows(IllegalArgumentException.class, () -> createRanking(Map.of(AgentConfig.OFFER_RANKING_PROPERTY, "cheapest")));
+    }
+}
@@ -0,0 +1,140 @@
+// Copyright (c) 2022,2024 Contributors to the Eclipse Foundation
+//
+// See the NOTICE file(s) distributed with this work for additional
+// information regarding copyright ownership.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Apache License, Version 2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0.
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+// WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+// License for the specific language governing permissions and limitations
+// under the License.
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.eclipse.tractusx.agents.edc.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.MACSigner;
+import jakarta.json.Json;
+import org.eclipse.edc.connector.controlplane.transfer.spi.event.TransferProcessStarted;
+import org.eclipse.edc.connector.controlplane.transfer.spi.event.TransferProcessTerminated;
+import org.eclipse.edc.spi.event.EventEnvelope;
+import org.eclipse.edc.spi.monitor.ConsoleMonitor;
+import org.eclipse.edc.spi.system.configuration.ConfigFactory;
+import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.tractusx.agents.edc.AgentConfig;
+import org.eclipse.tractusx.agents.edc.AgreementControllerImpl;
+import org.eclipse.tractusx.agents.edc.AgreementPersistence;
+import org.eclipse.tractusx.agents.edc.model.ContractAgreement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests two replicas which share an agreement store directory
+ */
+public class TestSharedFileAgreementPersistence {
+
+    public static final String ASSET = "GraphAsset?test=1";
+
+    ConsoleMonitor monitor = new ConsoleMonitor();
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * a replica which exposes the persistence of its local state
+     */
+    protected static class Replica extends AgreementControllerImpl {
+        public Replica(ConsoleMonitor monitor, AgentConfig config, SharedFileAgreementPersistence persistence) {
+            super(monitor, config, null, null, persistence);
+        }
+
+        public void persistLocalState(String asset) {
+            persist(asset);
+        }
+    }
+
+    protected AgentConfig createConfig() {
+        return new AgentConfig(monitor, ConfigFactory.fromMap(Map.of(
+                AgentConfig.AGREEMENT_STORE_DIRECTORY_PROPERTY, tempDir.toString(),
+                AgentConfig.AGREEMENT_STORE_KEY_PROPERTY, Base64.getEncoder().encodeToString(new byte[16]))));
+    }
+
+    protected String createToken() throws Exception {
+        JWSObject token = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload(Map.of("exp", System.currentTimeMillis() / 1000 + 3600)));
+        token.sign(new MACSigner(new byte[32]));
+        return token.serialize();
+    }
+
+    /**
+     * test that a transfer callback received by one replica is published to the other
+     * and is neither overwritten by the stale state of the other nor outlives its transfer
+     */
+    @Test
+    public void testCallbackOnOtherReplica() throws Exception {
+        AgentConfig config = createConfig();
+        SharedFileAgreementPersistence first = new SharedFileAgreementPersistence(config, monitor);
+        SharedFileAgreementPersistence second = new SharedFileAgreementPersistence(config, monitor);
+        ContractAgreement agreement = new ContractAgreement(Json.createObjectBuilder()
+                .add("@id", "agreement1")
+                .add("https://w3id.org/edc/v0.0.1/ns/assetId", ASSET)
+                .add("https://w3id.org/edc/v0.0.1/ns/contractSigningDate", System.currentTimeMillis() / 1000)
+                .build());
+        first.store(new AgreementPersistence.AgreementRecord(ASSET, "http://localhost:8080", agreement,
+                Map.of("@id", Json.createValue(ASSET)), null));
+        Replica negotiating = new Replica(monitor, config, first);
+        negotiating.start();
+        Replica receiving = new Replica(monitor, config, second);
+
+        String token = createToken();
+        receiving.receiveEdcCallback(EventEnvelope.Builder.newInstance()
+                .id("event1")
+                .at(System.currentTimeMillis())
+                .payload(TransferProcessStarted.Builder.newInstance()
+                        .transferProcessId("transfer1")
+                        .assetId(ASSET)
+                        .contractId("agreement1")
+                        .dataAddress(DataAddress.Builder.newInstance()
+                                .type("HttpData")
+                                .property("https://w3id.org/edc/v0.0.1/ns/endpoint", "http://localhost/api/public")
+                                .property("https://w3id.org/edc/v0.0.1/ns/authorization", token)
+                                .build())
+                        .build())
+                .build());
+        AgreementPersistence.AgreementRecord record = first.lookup(ASSET);
+        assertNotNull(record.getReference(), "Reference is published to the other replica");
+        assertEquals(token, record.getReference().getAuthCode(), "Published reference carries the token");
+        assertEquals("agreement1", record.getAgreement().getId(), "Agreement is kept");
+
+        // the negotiating replica did not see the reference yet
+        negotiating.persistLocalState(ASSET);
+        record = second.lookup(ASSET);
+        assertNotNull(record.getReference(), "Stale state does not overwrite the published reference");
+        assertEquals("transfer1", record.getReference().getId(), "Reference is identified by its transfer");
+
+        receiving.receiveTransferTerminated(EventEnvelope.Builder.newInstance()
+                .id("event2")
+                .at(System.currentTimeMillis())
+                .payload(TransferProcessTerminated.Builder.newInstance()
+                        .transferProcessId("transfer1")
+                        .assetId(ASSET)
+                        .reason("test")
+                        .build())
+                .build());
+        record = first.lookup(ASSET);
+        assertNull(record.getReference(), "Terminated transfer drops the reference");
+        assertEquals("agreement1", record.getAgreement().getId(), "Agreement survives the transfer");
+    }
+}
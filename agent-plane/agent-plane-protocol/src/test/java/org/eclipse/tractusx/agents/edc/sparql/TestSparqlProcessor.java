@@ -317,4 +317,32 @@ public class TestSparqlProcessor {
         }
     }
 
+    /**
+     * test that queries are rejected with a retry hint while the graph store is loading
+     * @throws IOException in case of an error
+     */
+    @Test
+    public void testUnavailableWhileLoading() throws IOException {
+        List<Runnable> loading=new ArrayList<>();
+        RdfStore loadingStore=new RdfStore(agentConfig,monitor,loading::add);
+        SparqlQueryProcessor loadingProcessor=new SparqlQueryProcessor(serviceExecutorReg,monitor,agentConfig,loadingStore,typeManager);
+        try {
+            String query="PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> SELECT ?what WHERE { VALUES (?what) { (\"42\"^^xsd:int) } }";
+            Request.Builder builder=new Request.Builder();
+            builder.url("http://localhost:8080");
+            builder.addHeader("Accept","application/sparql-results+json");
+            builder.put(RequestBody.create(query, MediaType.parse("application/sparql-query")));
+            try(Response response=loadingProcessor.execute(builder.build(),null,null,Map.of())) {
+                assertEquals(503, response.code(), "Query is rejected while loading");
+                assertEquals(String.valueOf(RdfStore.RETRY_AFTER_SECONDS), response.header("Retry-After"), "Retry is hinted");
+            }
+            loading.forEach(Runnable::run);
+            try(Response response=loadingProcessor.execute(builder.build(),null,null,Map.of())) {
+                assertTrue(response.isSuccessful(), "Query is answered once loaded");
+            }
+        } finally {
+            loadingStore.close();
+        }
+    }
+
 }